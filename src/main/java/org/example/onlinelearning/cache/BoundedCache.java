@@ -0,0 +1,150 @@
+package org.example.onlinelearning.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Небольшой кэш в памяти процесса: LRU по размеру плюс TTL на запись.
+ * Загрузка из базы идёт вне блокировки; если за это время кэш инвалидировали,
+ * загруженное значение не сохраняется, чтобы не вернуть в кэш устаревшие данные.
+ */
+public class BoundedCache<K, V> {
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<K, Entry<V>> entries;
+    // Растёт при каждой инвалидации — по нему отбрасываем «опоздавшие» загрузки
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public BoundedCache(int maxSize, long ttlMillis) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    public V get(K key) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            if (entry.isExpired(System.nanoTime())) {
+                entries.remove(key);
+                evictions.increment();
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.value();
+        }
+    }
+
+    public V get(K key, Function<K, V> loader) {
+        V cached = get(key);
+        if (cached != null) {
+            return cached;
+        }
+        long loadedAt = generation.get();
+        V value = loader.apply(key);
+        if (value != null) {
+            putIfCurrent(key, value, loadedAt);
+        }
+        return value;
+    }
+
+    // Чтение без учёта в статистике — для служебных обращений
+    public V peek(K key) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            return entry == null || entry.isExpired(System.nanoTime()) ? null : entry.value();
+        }
+    }
+
+    /**
+     * Загружает значение заранее, если его ещё нет. Статистику попаданий не трогает,
+     * чтобы hit rate отражал только обращения клиентов.
+     */
+    public boolean preload(K key, Function<K, V> loader) {
+        long loadedAt;
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && !entry.isExpired(System.nanoTime())) {
+                return false;
+            }
+            loadedAt = generation.get();
+        }
+        V value = loader.apply(key);
+        if (value != null) {
+            putIfCurrent(key, value, loadedAt);
+        }
+        return true;
+    }
+
+    public void put(K key, V value) {
+        putIfCurrent(key, value, generation.get());
+    }
+
+    public void invalidate(K key) {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.remove(key);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public void bindTo(MeterRegistry registry, String name) {
+        FunctionCounter.builder("cache.gets", hits, LongAdder::sum)
+                .tag("cache", name).tag("result", "hit").register(registry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum)
+                .tag("cache", name).tag("result", "miss").register(registry);
+        FunctionCounter.builder("cache.evictions", evictions, LongAdder::sum)
+                .tag("cache", name).register(registry);
+        Gauge.builder("cache.size", this, BoundedCache::size)
+                .tag("cache", name).register(registry);
+    }
+
+    private void putIfCurrent(K key, V value, long expectedGeneration) {
+        synchronized (entries) {
+            if (generation.get() != expectedGeneration) {
+                return;
+            }
+            entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+            if (entries.size() > maxSize) {
+                Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+                eldest.next();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+        boolean isExpired(long now) {
+            return now - expiresAt > 0;
+        }
+    }
+}
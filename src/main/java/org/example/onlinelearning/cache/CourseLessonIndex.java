@@ -0,0 +1,93 @@
+package org.example.onlinelearning.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Неизменяемое оглавление курса: уроки без содержимого, упорядоченные по {@code lessonOrder}.
+ * Изменения создают новый экземпляр (copy-on-write), поэтому читатели работают без блокировок.
+ * Если номера идут подряд с единицы, поиск по номеру — прямое обращение к массиву.
+ */
+public final class CourseLessonIndex {
+    public record Entry(Long id, Long courseId, String title, String videoURL, Integer lessonOrder) {
+    }
+
+    private static final Comparator<Entry> BY_ORDER = Comparator
+            .comparing(Entry::lessonOrder, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Entry::id);
+
+    private final Entry[] entries;
+    private final int[] orders;
+    private final boolean dense;
+
+    private CourseLessonIndex(Entry[] entries) {
+        this.entries = entries;
+        this.orders = new int[entries.length];
+        boolean contiguous = true;
+        for (int i = 0; i < entries.length; i++) {
+            Integer order = entries[i].lessonOrder();
+            orders[i] = order == null ? Integer.MAX_VALUE : order;
+            contiguous &= orders[i] == i + 1;
+        }
+        this.dense = contiguous;
+    }
+
+    public static CourseLessonIndex of(List<Entry> lessons) {
+        Entry[] sorted = lessons.toArray(new Entry[0]);
+        Arrays.sort(sorted, BY_ORDER);
+        return new CourseLessonIndex(sorted);
+    }
+
+    public List<Entry> entries() {
+        return List.of(entries);
+    }
+
+    public int size() {
+        return entries.length;
+    }
+
+    /**
+     * Позиция урока с данным номером в массиве или -1.
+     */
+    public int positionOf(int lessonOrder) {
+        if (dense) {
+            return lessonOrder >= 1 && lessonOrder <= entries.length ? lessonOrder - 1 : -1;
+        }
+        int position = Arrays.binarySearch(orders, lessonOrder);
+        if (position < 0) {
+            return -1;
+        }
+        // При повторяющихся номерах берём первый
+        while (position > 0 && orders[position - 1] == lessonOrder) {
+            position--;
+        }
+        return position;
+    }
+
+    public Entry at(int position) {
+        return position >= 0 && position < entries.length ? entries[position] : null;
+    }
+
+    public CourseLessonIndex with(Entry lesson) {
+        List<Entry> updated = new ArrayList<>(entries.length + 1);
+        for (Entry entry : entries) {
+            if (!entry.id().equals(lesson.id())) {
+                updated.add(entry);
+            }
+        }
+        updated.add(lesson);
+        return of(updated);
+    }
+
+    public CourseLessonIndex without(Long lessonId) {
+        List<Entry> updated = new ArrayList<>(entries.length);
+        for (Entry entry : entries) {
+            if (!entry.id().equals(lessonId)) {
+                updated.add(entry);
+            }
+        }
+        return updated.size() == entries.length ? this : of(updated);
+    }
+}
@@ -0,0 +1,103 @@
+package org.example.onlinelearning.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+@EnableScheduling
+public class AsyncConfig {
+
+    // Собственные пулы отключают автоконфигурацию Spring Boot, поэтому объявляем
+    // общий пул явно — его использует MVC для StreamingResponseBody
+    @Bean(name = "applicationTaskExecutor")
+    public ThreadPoolTaskExecutor applicationTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(8);
+        executor.setMaxPoolSize(8);
+        executor.setThreadNamePrefix("task-");
+        executor.initialize();
+        return executor;
+    }
+
+    // Пул для чтения изображений курсов при потоковой отдаче
+    @Bean(name = "courseImageExecutor")
+    public ThreadPoolTaskExecutor courseImageExecutor(
+            @Value("${courses.images.read-threads:4}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(256);
+        executor.setThreadNamePrefix("course-image-");
+        // При переполнении очереди читаем в вызывающем потоке — естественный backpressure
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    // Фоновая генерация превью: при переполнении очереди задача отклоняется
+    // и догоняется лениво при первом запросе нужного размера
+    @Bean(name = "imageDerivativeExecutor")
+    public ThreadPoolTaskExecutor imageDerivativeExecutor(
+            @Value("${courses.images.derivative-threads:2}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("image-derivative-");
+        executor.initialize();
+        return executor;
+    }
+
+    // Предзагрузка следующего урока: очередь ограничена, лишние задачи отклоняются —
+    // без предзагрузки запрос просто пойдёт в базу
+    @Bean(name = "lessonPrefetchExecutor")
+    public ThreadPoolTaskExecutor lessonPrefetchExecutor(
+            @Value("${lessons.prefetch.threads:2}") int threads,
+            @Value("${lessons.prefetch.queue-capacity:500}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("lesson-prefetch-");
+        executor.initialize();
+        return executor;
+    }
+
+    // Параллельные чтения сводки курса. Отдельно от applicationTaskExecutor: там идёт
+    // потоковая отдача (изображения, ведомость), и блокирующие запросы сводки её бы вытесняли.
+    // При переполнении очереди часть выполняется в потоке запроса — сводка просто станет последовательной
+    @Bean(name = "courseOverviewExecutor")
+    public ThreadPoolTaskExecutor courseOverviewExecutor(
+            @Value("${courses.overview.threads:8}") int threads,
+            @Value("${courses.overview.queue-capacity:200}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("course-overview-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    // Автопроверка работ: при переполнении очереди проверяем в вызывающем потоке,
+    // чтобы в пик сдачи работы не терялись
+    @Bean(name = "gradingExecutor")
+    public ThreadPoolTaskExecutor gradingExecutor(
+            @Value("${grading.threads:4}") int threads,
+            @Value("${grading.queue-capacity:10000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("grading-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
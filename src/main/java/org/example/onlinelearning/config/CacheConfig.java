@@ -0,0 +1,35 @@
+package org.example.onlinelearning.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.onlinelearning.cache.BoundedCache;
+import org.example.onlinelearning.dtos.CourseDTO;
+import org.example.onlinelearning.dtos.CoursePageDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class CacheConfig {
+
+    // Отдельные курсы по id
+    @Bean(name = "courseCache")
+    public BoundedCache<Long, CourseDTO> courseCache(
+            MeterRegistry registry,
+            @Value("${courses.cache.max-size:10000}") int maxSize,
+            @Value("${courses.cache.ttl-seconds:300}") long ttlSeconds) {
+        BoundedCache<Long, CourseDTO> cache = new BoundedCache<>(maxSize, ttlSeconds * 1000);
+        cache.bindTo(registry, "courses");
+        return cache;
+    }
+
+    // Страницы каталога по ключу «курсор/лимит/сортировка»; сбрасываются целиком при любой записи
+    @Bean(name = "catalogCache")
+    public BoundedCache<String, CoursePageDTO> catalogCache(
+            MeterRegistry registry,
+            @Value("${courses.cache.catalog-max-size:256}") int maxSize,
+            @Value("${courses.cache.catalog-ttl-seconds:60}") long ttlSeconds) {
+        BoundedCache<String, CoursePageDTO> cache = new BoundedCache<>(maxSize, ttlSeconds * 1000);
+        cache.bindTo(registry, "course-catalog");
+        return cache;
+    }
+}
@@ -6,6 +6,7 @@ import org.example.onlinelearning.dtos.LogDTO;
 import org.example.onlinelearning.exceptions.ErrorResponse;
 import org.example.onlinelearning.exceptions.NotFoundException;
 import org.example.onlinelearning.services.AnswerService;
+import org.example.onlinelearning.services.EnrollmentGuard;
 import org.example.onlinelearning.services.LogService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -27,8 +28,14 @@ public class AnswerController {
     @Autowired
     private LogService logService;
 
+    @Autowired
+    private EnrollmentGuard enrollmentGuard;
+
     @GetMapping("/assignments/{assignmentId}/answers")
-    public ResponseEntity<?> getAllAnswersByAssignmentId(@PathVariable Long assignmentId) {
+    public ResponseEntity<?> getAllAnswersByAssignmentId(
+            @PathVariable Long assignmentId,
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        enrollmentGuard.checkAssignment(authHeader, assignmentId);
         try {
             List<AnswerDTO> answers = answerService.getAllAnswersByAssignmentId(assignmentId);
             return ResponseEntity.ok(answers);
@@ -42,6 +49,7 @@ public class AnswerController {
     public ResponseEntity<?> getUserAnswerForAssignment(
             @PathVariable Long assignmentId,
             @RequestHeader("Authorization") String authHeader) {
+        enrollmentGuard.checkAssignment(authHeader, assignmentId);
         try {
             Long userId = jwtTokenProvider.getUserId(authHeader.substring(7));
             AnswerDTO answer = answerService.getUserAnswerForAssignment(assignmentId, userId);
@@ -65,8 +73,8 @@ public class AnswerController {
             String token = authHeader.substring(7);
             Long userId = jwtTokenProvider.getUserId(token);
 
-            // Создаем ответ
-            AnswerDTO createdAnswer = answerService.createAnswer(assignmentId, answerDTO);
+            // Создаем ответ; ответ преподавателя становится эталоном автопроверки
+            AnswerDTO createdAnswer = answerService.createAnswer(assignmentId, answerDTO, isStaff(token));
 
             // Логируем действие
             LogDTO logDTO = new LogDTO();
@@ -87,9 +95,10 @@ public class AnswerController {
     @PutMapping("/answers/{id}")
     public ResponseEntity<?> updateAnswer(
             @PathVariable Long id,
-            @RequestBody AnswerDTO answerDTO) {
+            @RequestBody AnswerDTO answerDTO,
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
         try {
-            AnswerDTO updatedAnswer = answerService.updateAnswer(id, answerDTO);
+            AnswerDTO updatedAnswer = answerService.updateAnswer(id, answerDTO, isStaffHeader(authHeader));
             return ResponseEntity.ok(updatedAnswer);
         } catch (NotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -98,9 +107,11 @@ public class AnswerController {
     }
 
     @DeleteMapping("/answers/{id}")
-    public ResponseEntity<?> deleteAnswer(@PathVariable Long id) {
+    public ResponseEntity<?> deleteAnswer(
+            @PathVariable Long id,
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
         try {
-            answerService.deleteAnswer(id);
+            answerService.deleteAnswer(id, isStaffHeader(authHeader));
             return ResponseEntity.noContent().build();
         } catch (NotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -109,13 +120,28 @@ public class AnswerController {
     }
 
     @GetMapping("/answers/{id}")
-    public ResponseEntity<?> getAnswerById(@PathVariable Long id) {
+    public ResponseEntity<?> getAnswerById(
+            @PathVariable Long id,
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
         try {
             AnswerDTO answerDTO = answerService.getAnswerById(id);
+            enrollmentGuard.checkAssignment(authHeader, answerDTO.getAssignmentId());
             return ResponseEntity.ok(answerDTO);
         } catch (NotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(new ErrorResponse(HttpStatus.NOT_FOUND.value(), "Answer not found", e.getMessage()));
         }
     }
-}
\ No newline at end of file
+
+    private boolean isStaffHeader(String authHeader) {
+        return authHeader != null && authHeader.startsWith("Bearer ") && isStaff(authHeader.substring(7));
+    }
+
+    private boolean isStaff(String token) {
+        if (!jwtTokenProvider.validateToken(token)) {
+            return false;
+        }
+        String role = jwtTokenProvider.getRole(token);
+        return "TEACHER".equalsIgnoreCase(role) || "ADMIN".equalsIgnoreCase(role);
+    }
+}
@@ -6,6 +6,7 @@ import org.example.onlinelearning.dtos.LogDTO;
 import org.example.onlinelearning.exceptions.ErrorResponse;
 import org.example.onlinelearning.exceptions.NotFoundException;
 import org.example.onlinelearning.services.AssignmentService;
+import org.example.onlinelearning.services.EnrollmentGuard;
 import org.example.onlinelearning.services.LogService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -27,10 +28,16 @@ public class AssignmentController {
     @Autowired
     private LogService logService;
 
+    @Autowired
+    private EnrollmentGuard enrollmentGuard;
+
     @GetMapping("/assignments/{id}")
-    public ResponseEntity<?> getAssignmentById(@PathVariable Long id) {
+    public ResponseEntity<?> getAssignmentById(
+            @PathVariable Long id,
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
         try {
             AssignmentDTO assignmentDTO = assignmentService.getAssignmentById(id);
+            enrollmentGuard.checkLesson(authHeader, assignmentDTO.getLessonId());
             return ResponseEntity.ok(assignmentDTO);
         } catch (NotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -93,7 +100,10 @@ public class AssignmentController {
     }
 
     @GetMapping("/lessons/{lessonId}/assignment")
-    public ResponseEntity<?> getAssignmentForLesson(@PathVariable Long lessonId) {
+    public ResponseEntity<?> getAssignmentForLesson(
+            @PathVariable Long lessonId,
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        enrollmentGuard.checkLesson(authHeader, lessonId);
         try {
             AssignmentDTO assignmentDTO = assignmentService.getAssignmentByLessonId(lessonId);
             return ResponseEntity.ok(assignmentDTO);
@@ -1,31 +1,46 @@
 package org.example.onlinelearning.controllers;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.example.onlinelearning.config.JwtTokenProvider;
 import org.example.onlinelearning.dtos.CourseDTO;
+import org.example.onlinelearning.dtos.CourseOverviewDTO;
+import org.example.onlinelearning.dtos.CoursePageDTO;
 import org.example.onlinelearning.dtos.LogDTO;
+import org.example.onlinelearning.enums.ImageSize;
 import org.example.onlinelearning.exceptions.InvalidRequestException;
 import org.example.onlinelearning.exceptions.NotFoundException;
+import org.example.onlinelearning.exceptions.SecurityException;
 import org.example.onlinelearning.models.Course;
+import org.example.onlinelearning.repositories.GradebookRepository;
+import org.example.onlinelearning.services.CourseImageService;
+import org.example.onlinelearning.services.CourseOverviewService;
 import org.example.onlinelearning.services.CourseService;
+import org.example.onlinelearning.services.FileDeliveryService;
+import org.example.onlinelearning.services.GradebookService;
+import org.example.onlinelearning.services.ImageDerivativeService;
 import org.example.onlinelearning.services.LogService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.InputStreamResource;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Base64;
 import java.util.HashMap;
@@ -46,10 +61,31 @@ public class CourseController {
     @Autowired
     private LogService logService;
 
+    @Autowired
+    private CourseImageService courseImageService;
+
+    @Autowired
+    private CourseOverviewService courseOverviewService;
+
+    @Autowired
+    private FileDeliveryService fileDeliveryService;
+
+    @Autowired
+    private ImageDerivativeService imageDerivativeService;
+
+    @Autowired
+    private GradebookService gradebookService;
+
+    @Value("${courses.images.cache-max-age-days:30}")
+    private long imageCacheMaxAgeDays;
+
     @GetMapping("")
-    public ResponseEntity<List<CourseDTO>> getAllCourses() {
-        List<CourseDTO> courses = courseService.getAllCourses();
-        return ResponseEntity.ok(courses);
+    public ResponseEntity<CoursePageDTO> getAllCourses(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "sort", defaultValue = "id") String sort) {
+        CoursePageDTO page = courseService.getCoursePage(cursor, limit, sort);
+        return ResponseEntity.ok(page);
     }
 
     @GetMapping(value = "/images", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -78,6 +114,50 @@ public class CourseController {
                 .body(imageMap);
     }
 
+    @GetMapping(value = "/images/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamCourseImages(
+            @RequestParam(value = "ids", required = false) List<Long> ids,
+            @RequestParam(value = "size", required = false) String size) {
+        if (ids != null && ids.size() > CourseImageService.MAX_IDS_PER_REQUEST) {
+            throw new InvalidRequestException("Too many ids, max is " + CourseImageService.MAX_IDS_PER_REQUEST);
+        }
+        ImageSize imageSize = ImageSize.fromParam(size);
+        StreamingResponseBody body = out -> courseImageService.streamImages(ids, imageSize, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    /**
+     * Ведомость курса (студент × задание) потоком: CSV или NDJSON (?format=ndjson).
+     * Доступна преподавателям и администраторам.
+     */
+    @GetMapping("/{id}/gradebook")
+    public ResponseEntity<StreamingResponseBody> exportGradebook(
+            @PathVariable("id") Long id,
+            @RequestParam(value = "format", required = false) String format,
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            throw new SecurityException("Invalid or missing Authorization header");
+        }
+        String role = jwtTokenProvider.getRole(authHeader.substring(7));
+        if (!"TEACHER".equalsIgnoreCase(role) && !"ADMIN".equalsIgnoreCase(role)) {
+            throw new SecurityException("Insufficient privileges");
+        }
+
+        String gradebookFormat = GradebookService.formatOf(format);
+        List<GradebookRepository.Column> columns = gradebookService.columns(id);
+        StreamingResponseBody body = out -> gradebookService.export(id, columns, gradebookFormat, out);
+        boolean csv = GradebookService.CSV.equals(gradebookFormat);
+        return ResponseEntity.ok()
+                .contentType(csv
+                        ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                        : MediaType.parseMediaType("application/x-ndjson"))
+                .header("Content-Disposition",
+                        "attachment; filename=\"course-" + id + "-gradebook." + gradebookFormat + "\"")
+                .body(body);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<CourseDTO> getCourseById(@PathVariable("id") Long id) {
         CourseDTO course = courseService.getCourseById(id);
@@ -87,18 +167,35 @@ public class CourseController {
         return ResponseEntity.ok(course);
     }
 
+    @GetMapping("/{id}/overview")
+    public ResponseEntity<CourseOverviewDTO> getCourseOverview(
+            @PathVariable("id") Long id,
+            @RequestParam(value = "reviews", required = false) Integer reviews,
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        // Токен необязателен: без него просто не будет флага записи на курс
+        Long userId = null;
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            String token = authHeader.substring(7);
+            if (jwtTokenProvider.validateToken(token)) {
+                userId = jwtTokenProvider.getUserId(token);
+            }
+        }
+        return ResponseEntity.ok(courseOverviewService.getOverview(id, userId, reviews));
+    }
+
     @GetMapping("/{id}/image")
-    public ResponseEntity<Resource> getCourseImage(@PathVariable Long id) throws IOException {
+    public void getCourseImage(
+            @PathVariable Long id,
+            @RequestParam(value = "size", required = false) String size,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        ImageSize imageSize = ImageSize.fromParam(size);
         CourseDTO courseDTO = courseService.getCourseById(id);
-        Path imagePath = Paths.get(courseDTO.getImagePath());
-
-        Resource resource = new InputStreamResource(
-                Files.newInputStream(imagePath)
-        );
+        // Пока превью не готово, отдаётся оригинал
+        Path imagePath = imageDerivativeService.resolve(Paths.get(courseDTO.getImagePath()), imageSize);
 
-        return ResponseEntity.ok()
-                .contentType(MediaType.IMAGE_JPEG)
-                .body(resource);
+        CacheControl cacheControl = CacheControl.maxAge(Duration.ofDays(imageCacheMaxAgeDays)).cachePublic();
+        fileDeliveryService.serve(request, response, imagePath, cacheControl);
     }
 
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -121,13 +218,7 @@ public class CourseController {
             CourseDTO savedCourse = courseService.createCourse(courseDTO, image);
 
             // Логирование действия
-            LogDTO logDTO = new LogDTO();
-            logDTO.setUserId(userId);
-            logDTO.setTitle(String.format(
-                    "Создал курс " + savedCourse.getId() + " " + savedCourse.getTitle()
-            ));
-            logDTO.setLogTime(LocalDateTime.now());
-            logService.saveLog(logDTO);
+            logCourseCreated(userId, savedCourse);
 
             // Формирование ответа
             URI location = ServletUriComponentsBuilder.fromCurrentRequest()
@@ -144,6 +235,48 @@ public class CourseController {
         }
     }
 
+    /**
+     * Потоковая загрузка изображения сырым телом запроса (не multipart).
+     * Возвращает токен, который передаётся в {@code POST /api/courses?imageToken=...}.
+     * Пишет на диск, поэтому, как и создание курса, только с токеном.
+     */
+    @PostMapping(value = "/images", consumes = {"image/*", MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<Map<String, String>> uploadCourseImage(
+            HttpServletRequest request,
+            @RequestHeader(value = "Authorization", required = false) String authHeader) throws IOException {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")
+                || !jwtTokenProvider.validateToken(authHeader.substring(7))) {
+            throw new SecurityException("Invalid or missing Authorization header");
+        }
+        String token = courseService.uploadImage(request.getInputStream(), request.getContentLengthLong());
+        return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("imageToken", token));
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, params = "imageToken")
+    public ResponseEntity<CourseDTO> createCourseFromUpload(
+            @RequestParam("imageToken") String imageToken,
+            @RequestBody @Valid CourseDTO courseDTO,
+            @RequestHeader("Authorization") String authHeader) {
+        String token = authHeader.substring(7);
+        Long userId = jwtTokenProvider.getUserId(token);
+
+        CourseDTO savedCourse = courseService.createCourseFromUpload(courseDTO, imageToken);
+        logCourseCreated(userId, savedCourse);
+
+        URI location = ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/api/courses/{id}")
+                .buildAndExpand(savedCourse.getId())
+                .toUri();
+        return ResponseEntity.created(location).body(savedCourse);
+    }
+
+    @PutMapping(value = "/{id}/image", consumes = {"image/*", MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<CourseDTO> replaceCourseImage(
+            @PathVariable("id") Long id,
+            HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(courseService.replaceImage(id, request.getInputStream(), request.getContentLengthLong()));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<CourseDTO> updateCourse(@PathVariable("id") Long id, @RequestBody CourseDTO courseDTO) {
         CourseDTO existingCourse = courseService.getCourseById(id);
@@ -163,4 +296,14 @@ public class CourseController {
         }
         return ResponseEntity.noContent().build();
     }
-}
\ No newline at end of file
+
+    private void logCourseCreated(Long userId, CourseDTO savedCourse) {
+        LogDTO logDTO = new LogDTO();
+        logDTO.setUserId(userId);
+        logDTO.setTitle(String.format(
+                "Создал курс " + savedCourse.getId() + " " + savedCourse.getTitle()
+        ));
+        logDTO.setLogTime(LocalDateTime.now());
+        logService.saveLog(logDTO);
+    }
+}
@@ -1,13 +1,20 @@
 package org.example.onlinelearning.controllers;
 
 import lombok.RequiredArgsConstructor;
+import jakarta.servlet.http.HttpServletRequest;
 import org.example.onlinelearning.config.JwtTokenProvider;
+import org.example.onlinelearning.dtos.BulkEnrollmentResultDTO;
 import org.example.onlinelearning.dtos.CourseDTO;
+import org.example.onlinelearning.dtos.CourseProgressDTO;
 import org.example.onlinelearning.dtos.EnrollmentDTO;
 import org.example.onlinelearning.dtos.LogDTO;
+import org.example.onlinelearning.dtos.UserEnrollmentPageDTO;
 import org.example.onlinelearning.exceptions.ErrorResponse;
 import org.example.onlinelearning.exceptions.NotFoundException;
+import org.example.onlinelearning.exceptions.SecurityException;
 import org.example.onlinelearning.services.AssignmentService;
+import org.example.onlinelearning.services.CohortEnrollmentService;
+import org.example.onlinelearning.services.CourseProgressService;
 import org.example.onlinelearning.services.CourseService;
 import org.example.onlinelearning.services.EnrollmentService;
 import org.example.onlinelearning.services.LogService;
@@ -16,7 +23,9 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -39,6 +48,12 @@ public class EnrollmentController {
     @Autowired
     private CourseService courseService;
 
+    @Autowired
+    private CourseProgressService courseProgressService;
+
+    @Autowired
+    private CohortEnrollmentService cohortEnrollmentService;
+
     @GetMapping("/enrollments/{id}")
     public ResponseEntity<?> getEnrollmentById(@PathVariable Long id) {
         try {
@@ -63,24 +78,26 @@ public class EnrollmentController {
             Long userId = jwtTokenProvider.getUserId(token);
 
             // Обрабатываем запись на курс
-            int lessonOrder = enrollmentService.processEnrollment(courseId, enrollmentDTO);
-
-            // Получаем информацию о курсе для лога
-            CourseDTO course = courseService.getCourseById(courseId);
-
-            // Логируем действие
-            LogDTO logDTO = new LogDTO();
-            logDTO.setUserId(userId);
-            logDTO.setTitle(String.format(
-                    "Записался на курс [ID:%d] '%s'",
-                    courseId,
-                    course.getTitle()
-            ));
-            logDTO.setLogTime(LocalDateTime.now());
-            logService.saveLog(logDTO);
+            EnrollmentService.EnrollmentResult result = enrollmentService.processEnrollment(courseId, enrollmentDTO);
+
+            // Логируем только новую запись; повторный вызов лишь возвращает урок для продолжения
+            if (result.created()) {
+                // Название курса — из кэша карточек
+                CourseDTO course = courseService.getCourseById(courseId);
+
+                LogDTO logDTO = new LogDTO();
+                logDTO.setUserId(userId);
+                logDTO.setTitle(String.format(
+                        "Записался на курс [ID:%d] '%s'",
+                        courseId,
+                        course.getTitle()
+                ));
+                logDTO.setLogTime(LocalDateTime.now());
+                logService.saveLog(logDTO);
+            }
 
             return ResponseEntity.ok(Map.of(
-                    "lessonOrder", lessonOrder,
+                    "lessonOrder", result.lessonOrder(),
                     "message", "Enrollment successful"
             ));
 
@@ -101,6 +118,82 @@ public class EnrollmentController {
         }
     }
 
+    // Запись группы: JSON-массив id пользователей
+    @PostMapping(value = "/courses/{course_id}/enrollments/bulk", consumes = "application/json")
+    public ResponseEntity<BulkEnrollmentResultDTO> bulkEnroll(
+            @PathVariable("course_id") Long courseId,
+            @RequestBody List<Long> userIds,
+            @RequestHeader("Authorization") String authHeader) {
+        Long actorId = requireStaff(authHeader);
+        return ResponseEntity.ok(logBulkEnrollment(actorId, cohortEnrollmentService.enroll(courseId, userIds)));
+    }
+
+    // Запись группы из CSV; тело читается потоком, без буферизации целиком
+    @PostMapping(value = "/courses/{course_id}/enrollments/bulk", consumes = {"text/csv", "text/plain"})
+    public ResponseEntity<BulkEnrollmentResultDTO> bulkEnrollCsv(
+            @PathVariable("course_id") Long courseId,
+            HttpServletRequest request,
+            @RequestHeader("Authorization") String authHeader) throws IOException {
+        Long actorId = requireStaff(authHeader);
+        return ResponseEntity.ok(logBulkEnrollment(actorId,
+                cohortEnrollmentService.enrollCsv(courseId, request.getReader())));
+    }
+
+    private Long requireStaff(String authHeader) {
+        String token = authHeader.substring(7);
+        String role = jwtTokenProvider.getRole(token);
+        if (!"TEACHER".equalsIgnoreCase(role) && !"ADMIN".equalsIgnoreCase(role)) {
+            throw new SecurityException("Access denied");
+        }
+        return jwtTokenProvider.getUserId(token);
+    }
+
+    // Одна запись журнала на весь пакет, а не по записи на пользователя
+    private BulkEnrollmentResultDTO logBulkEnrollment(Long actorId, BulkEnrollmentResultDTO result) {
+        CourseDTO course = courseService.getCourseById(result.getCourseId());
+        LogDTO logDTO = new LogDTO();
+        logDTO.setUserId(actorId);
+        logDTO.setTitle(String.format(
+                "Записал на курс [ID:%d] '%s' пользователей: %d (уже записаны: %d, не найдены: %d, ошибки: %d)",
+                result.getCourseId(),
+                course.getTitle(),
+                result.getEnrolled(),
+                result.getAlreadyEnrolled(),
+                result.getUnknownUsers(),
+                result.getFailed()
+        ));
+        logDTO.setLogTime(LocalDateTime.now());
+        logService.saveLog(logDTO);
+        return result;
+    }
+
+    // Прогресс текущего пользователя по курсу
+    @GetMapping("/courses/{course_id}/progress")
+    public ResponseEntity<CourseProgressDTO> getCourseProgress(
+            @PathVariable("course_id") Long courseId,
+            @RequestHeader("Authorization") String authHeader) {
+        Long userId = jwtTokenProvider.getUserId(authHeader.substring(7));
+        return ResponseEntity.ok(courseProgressService.getProgress(userId, courseId));
+    }
+
+    /**
+     * Курсы пользователя с прогрессом, последним занятием и уроком для продолжения.
+     * Свои записи видит сам пользователь, чужие — только администратор.
+     */
+    @GetMapping("/users/{id}/enrollments")
+    public ResponseEntity<UserEnrollmentPageDTO> getUserEnrollments(
+            @PathVariable("id") Long id,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestHeader("Authorization") String authHeader) {
+        String token = authHeader.substring(7);
+        if (!id.equals(jwtTokenProvider.getUserId(token))
+                && !"ADMIN".equalsIgnoreCase(jwtTokenProvider.getRole(token))) {
+            throw new SecurityException("Access denied");
+        }
+        return ResponseEntity.ok(enrollmentService.getUserEnrollments(id, cursor, limit));
+    }
+
     @DeleteMapping("/enrollments/{id}")
     public ResponseEntity<?> deleteEnrollment(@PathVariable Long id) {
         try {
@@ -1,22 +1,32 @@
 package org.example.onlinelearning.controllers;
 
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.example.onlinelearning.config.JwtTokenProvider;
 import org.example.onlinelearning.dtos.LessonDTO;
+import org.example.onlinelearning.dtos.LessonNavigationDTO;
 import org.example.onlinelearning.dtos.LogDTO;
 import org.example.onlinelearning.exceptions.NotFoundException;
 import org.example.onlinelearning.models.Course;
 import org.example.onlinelearning.models.Lesson;
 import org.example.onlinelearning.services.CourseService;
+import org.example.onlinelearning.services.LessonContentService;
+import org.example.onlinelearning.services.EnrollmentGuard;
+import org.example.onlinelearning.services.LessonPrefetcher;
 import org.example.onlinelearning.services.LessonService;
+import org.example.onlinelearning.services.LessonVideoService;
 import org.example.onlinelearning.services.LogService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api")
@@ -33,29 +43,114 @@ public class LessonController {
     @Autowired
     private LogService logService;
 
+    @Autowired
+    private LessonContentService lessonContentService;
+
+    @Autowired
+    private LessonVideoService lessonVideoService;
+
+    @Autowired
+    private LessonPrefetcher lessonPrefetcher;
+
+    @Autowired
+    private EnrollmentGuard enrollmentGuard;
+
     @GetMapping("/lessons/{id}")
-    public ResponseEntity<LessonDTO> getLessonById(@PathVariable("id") Long id) {
+    public ResponseEntity<LessonDTO> getLessonById(
+            @PathVariable("id") Long id,
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
         LessonDTO lessonDTO = lessonService.getLessonById(id);
         if (lessonDTO == null) {
             return ResponseEntity.notFound().build();
         }
+        enrollmentGuard.checkCourse(authHeader, lessonDTO.getCourseId());
         return ResponseEntity.ok(lessonDTO);
     }
 
+    // Готовый HTML урока: gzip при Accept-Encoding, 304 по If-None-Match
+    @GetMapping("/lessons/{id}/content")
+    public void getLessonContent(
+            @PathVariable("id") Long id,
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        enrollmentGuard.checkLesson(authHeader, id);
+        lessonContentService.serve(request, response, id);
+    }
+
+    // Видео урока с поддержкой Range/206 для перемотки; для <video> — ссылка с token из /video-link
+    @GetMapping("/lessons/{id}/video")
+    public void getLessonVideo(
+            @PathVariable("id") Long id,
+            @RequestParam(value = "token", required = false) String token,
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        enrollmentGuard.checkLessonVideo(authHeader, token, id);
+        lessonVideoService.stream(request, response, id);
+    }
+
+    @GetMapping("/lessons/{id}/video-link")
+    public ResponseEntity<Map<String, Object>> getLessonVideoLink(
+            @PathVariable("id") Long id,
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        String token = enrollmentGuard.lessonVideoToken(authHeader, id);
+        return ResponseEntity.ok(Map.of(
+                "url", "/api/lessons/" + id + "/video?token=" + token,
+                "expiresIn", enrollmentGuard.getVideoTokenTtlSeconds()));
+    }
+
+    /**
+     * Загрузка видео сырым телом запроса. Большие файлы лучше грузить через
+     * {@code /api/uploads} (kind=video) и передать сюда полученный токен.
+     */
+    @PutMapping(value = "/lessons/{id}/video", consumes = {"video/*", MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<LessonDTO> uploadLessonVideo(
+            @PathVariable("id") Long id,
+            HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(lessonVideoService.uploadVideo(id, request.getInputStream(), request.getContentLengthLong()));
+    }
+
+    @PutMapping(value = "/lessons/{id}/video", params = "uploadToken")
+    public ResponseEntity<LessonDTO> attachLessonVideo(
+            @PathVariable("id") Long id,
+            @RequestParam("uploadToken") String uploadToken) {
+        return ResponseEntity.ok(lessonVideoService.attachUpload(id, uploadToken));
+    }
+
     @GetMapping("/courses/{courseId}/lessons/{lessonOrder}")
     public ResponseEntity<LessonDTO> getLessonByCourseIdAndLessonOrder(
             @PathVariable("courseId") Long courseId,
-            @PathVariable("lessonOrder") Integer lessonOrder) {
+            @PathVariable("lessonOrder") Integer lessonOrder,
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        enrollmentGuard.checkCourse(authHeader, courseId);
         LessonDTO lessonDTO = lessonService.getLessonByCourseAndOrder(courseId, lessonOrder);
         if (lessonDTO == null) {
             return ResponseEntity.notFound().build();
         }
+        // Задание, ответ пользователя и следующий урок подгружаются в фоне
+        lessonPrefetcher.lessonViewed(lessonDTO, currentUserId(authHeader));
         return ResponseEntity.ok(lessonDTO);
     }
 
+    @GetMapping("/courses/{courseId}/lessons/index")
+    public ResponseEntity<List<LessonDTO>> getLessonIndex(@PathVariable("courseId") Long courseId) {
+        return ResponseEntity.ok(lessonService.getLessonIndex(courseId));
+    }
+
+    @GetMapping("/courses/{courseId}/lessons/{lessonOrder}/navigation")
+    public ResponseEntity<LessonNavigationDTO> getLessonNavigation(
+            @PathVariable("courseId") Long courseId,
+            @PathVariable("lessonOrder") Integer lessonOrder) {
+        return ResponseEntity.ok(lessonService.getLessonNavigation(courseId, lessonOrder));
+    }
+
     @GetMapping("/courses/{courseId}/lessons")
     public ResponseEntity<List<LessonDTO>> getLessonsByCourseId(
-            @PathVariable("courseId") Long courseId) {
+            @PathVariable("courseId") Long courseId,
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        // Полные уроки с содержимым — только записанным; оглавление без содержимого открыто
+        enrollmentGuard.checkCourse(authHeader, courseId);
         List<LessonDTO> lessons = lessonService.getAllLessonsByCourseId(courseId);
         return ResponseEntity.ok(lessons);
     }
@@ -108,4 +203,15 @@ public class LessonController {
         lessonService.deleteLesson(lessonId);
         return ResponseEntity.noContent().build();
     }
+
+    // Токен необязателен: без него предзагружаем только общие для всех данные
+    private Long currentUserId(String authHeader) {
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            String token = authHeader.substring(7);
+            if (jwtTokenProvider.validateToken(token)) {
+                return jwtTokenProvider.getUserId(token);
+            }
+        }
+        return null;
+    }
 }
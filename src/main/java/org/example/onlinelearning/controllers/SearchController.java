@@ -0,0 +1,24 @@
+package org.example.onlinelearning.controllers;
+
+import org.example.onlinelearning.dtos.SearchResultDTO;
+import org.example.onlinelearning.services.SearchService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/search")
+public class SearchController {
+    @Autowired
+    private SearchService searchService;
+
+    @GetMapping
+    public ResponseEntity<List<SearchResultDTO>> search(
+            @RequestParam("q") String query,
+            @RequestParam(value = "type", required = false) String type,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        return ResponseEntity.ok(searchService.search(query, type, limit));
+    }
+}
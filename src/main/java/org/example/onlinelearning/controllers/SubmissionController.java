@@ -4,12 +4,19 @@ import lombok.RequiredArgsConstructor;
 import org.example.onlinelearning.config.JwtTokenProvider;
 import org.example.onlinelearning.dtos.AnswerDTO;
 import org.example.onlinelearning.dtos.AssignmentDTO;
+import org.example.onlinelearning.dtos.GradeDTO;
+import org.example.onlinelearning.dtos.GradeResultDTO;
 import org.example.onlinelearning.dtos.LogDTO;
+import org.example.onlinelearning.dtos.SimilarPairDTO;
 import org.example.onlinelearning.exceptions.ErrorResponse;
 import org.example.onlinelearning.dtos.SubmissionDTO;
+import org.example.onlinelearning.dtos.SubmissionReceiptDTO;
 import org.example.onlinelearning.exceptions.NotFoundException;
+import org.example.onlinelearning.exceptions.SecurityException;
 import org.example.onlinelearning.services.AssignmentService;
 import org.example.onlinelearning.services.LogService;
+import org.example.onlinelearning.services.SimilarityService;
+import org.example.onlinelearning.services.SubmissionIngestService;
 import org.example.onlinelearning.services.SubmissionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -17,6 +24,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api")
@@ -31,6 +39,12 @@ public class SubmissionController {
     @Autowired
     private AssignmentService assignmentService;
 
+    @Autowired
+    private SubmissionIngestService submissionIngestService;
+
+    @Autowired
+    private SimilarityService similarityService;
+
 
     @Autowired
     JwtTokenProvider jwtTokenProvider;
@@ -107,6 +121,44 @@ public class SubmissionController {
         }
     }
 
+    /**
+     * Приём работы через очередь: ответ 202 с квитанцией сразу после записи в журнал,
+     * в базу работа попадает пачкой. Статус — GET /api/submissions/receipts/{receiptId}.
+     * Журнал действий здесь не пишется, чтобы в пик запрос не ходил в базу.
+     */
+    @PostMapping("/assignments/{assignment_id}/submissions/async")
+    public ResponseEntity<SubmissionReceiptDTO> submitAsync(
+            @PathVariable("assignment_id") Long assignmentId,
+            @RequestBody SubmissionDTO submissionDTO,
+            @RequestHeader("Authorization") String authHeader) {
+        Long userId = jwtTokenProvider.getUserId(authHeader.substring(7));
+        SubmissionReceiptDTO receipt = submissionIngestService.accept(assignmentId, userId, submissionDTO.getContent());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(receipt);
+    }
+
+    @GetMapping("/submissions/receipts/{receiptId}")
+    public ResponseEntity<SubmissionReceiptDTO> getReceipt(@PathVariable String receiptId) {
+        return ResponseEntity.ok(submissionIngestService.getReceipt(receiptId));
+    }
+
+    /**
+     * Отчёт о почти одинаковых работах задания: пары с оценкой похожести не ниже minSimilarity.
+     * Называет подозреваемых в списывании — только для преподавателей.
+     */
+    @GetMapping("/assignments/{assignmentId}/similar-submissions")
+    public ResponseEntity<List<SimilarPairDTO>> getSimilarSubmissions(
+            @PathVariable Long assignmentId,
+            @RequestParam(defaultValue = "0.8") double minSimilarity,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        requireStaff(authHeader);
+        SimilarityService.SimilarPairs result = similarityService.findSimilarPairs(assignmentId, minSimilarity, limit);
+        // Тело — прежний список пар; о пропущенных корзинах сообщает заголовок
+        return ResponseEntity.ok()
+                .header("X-Similarity-Skipped-Buckets", String.valueOf(result.skippedBuckets()))
+                .body(result.pairs());
+    }
+
     @PutMapping("/submissions/{id}")
     public ResponseEntity<?> updateSubmission(
             @PathVariable Long id,
@@ -120,6 +172,28 @@ public class SubmissionController {
         }
     }
 
+    /**
+     * Массовое оценивание: список пар {submissionId, grade}. Только для преподавателей:
+     * оценка ставится как ручная и выключает автопроверку этих работ.
+     * Ответ — результат по каждому элементу в том же порядке.
+     */
+    @PutMapping("/submissions/grades")
+    public ResponseEntity<List<GradeResultDTO>> gradeSubmissions(
+            @RequestBody List<GradeDTO> grades,
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        Long userId = requireStaff(authHeader);
+        List<GradeResultDTO> results = submissionService.gradeSubmissions(grades);
+
+        long updated = results.stream().filter(r -> GradeResultDTO.UPDATED.equals(r.getStatus())).count();
+        LogDTO logDTO = new LogDTO();
+        logDTO.setUserId(userId);
+        logDTO.setTitle(String.format("Оценил %d работ из %d", updated, results.size()));
+        logDTO.setLogTime(LocalDateTime.now());
+        logService.saveLog(logDTO);
+
+        return ResponseEntity.ok(results);
+    }
+
     @DeleteMapping("/submissions/{id}")
     public ResponseEntity<?> deleteSubmission(@PathVariable Long id) {
         try {
@@ -130,4 +204,19 @@ public class SubmissionController {
                     .body(new ErrorResponse(HttpStatus.NOT_FOUND.value(), "Submission not found", e.getMessage()));
         }
     }
-}
\ No newline at end of file
+
+    private Long requireStaff(String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            throw new SecurityException("Invalid or missing Authorization header");
+        }
+        String token = authHeader.substring(7);
+        if (!jwtTokenProvider.validateToken(token)) {
+            throw new SecurityException("Invalid or expired token");
+        }
+        String role = jwtTokenProvider.getRole(token);
+        if (!"TEACHER".equalsIgnoreCase(role) && !"ADMIN".equalsIgnoreCase(role)) {
+            throw new SecurityException("Insufficient privileges");
+        }
+        return jwtTokenProvider.getUserId(token);
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.onlinelearning.controllers;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.example.onlinelearning.config.JwtTokenProvider;
+import org.example.onlinelearning.dtos.UploadSessionDTO;
+import org.example.onlinelearning.exceptions.SecurityException;
+import org.example.onlinelearning.services.ResumableUploadService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.net.URI;
+
+/**
+ * Возобновляемая загрузка: создать сессию, прислать чанки (в любом порядке, можно параллельно),
+ * узнать, что уже принято, и завершить. Токен из ответа на завершение передаётся
+ * при создании курса ({@code imageToken}) или при привязке видео к уроку.
+ * Все операции — только с токеном, и только над своими сессиями.
+ */
+@RestController
+@RequestMapping("/api/uploads")
+public class UploadController {
+    public static final String CHECKSUM_HEADER = "X-Chunk-Sha256";
+
+    @Autowired
+    private ResumableUploadService resumableUploadService;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @PostMapping
+    public ResponseEntity<UploadSessionDTO> createSession(
+            @RequestBody UploadSessionDTO request,
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        UploadSessionDTO session = resumableUploadService.createSession(
+                requireUserId(authHeader), request.getKind(), request.getSize(), request.getChunkSize());
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest()
+                .path("/{id}")
+                .buildAndExpand(session.getId())
+                .toUri();
+        return ResponseEntity.created(location).body(session);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<UploadSessionDTO> getSession(
+            @PathVariable("id") String id,
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        return ResponseEntity.ok(resumableUploadService.getSession(id, requireUserId(authHeader)));
+    }
+
+    @PutMapping("/{id}/chunks/{index}")
+    public ResponseEntity<UploadSessionDTO> uploadChunk(
+            @PathVariable("id") String id,
+            @PathVariable("index") int index,
+            @RequestHeader(value = CHECKSUM_HEADER, required = false) String checksum,
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(resumableUploadService.writeChunk(id, requireUserId(authHeader),
+                index, checksum, request.getContentLengthLong(), request.getInputStream()));
+    }
+
+    @PostMapping("/{id}/complete")
+    public ResponseEntity<UploadSessionDTO> complete(
+            @PathVariable("id") String id,
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        return ResponseEntity.ok(resumableUploadService.complete(id, requireUserId(authHeader)));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> cancel(
+            @PathVariable("id") String id,
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        resumableUploadService.cancel(id, requireUserId(authHeader));
+        return ResponseEntity.noContent().build();
+    }
+
+    private Long requireUserId(String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            throw new SecurityException("Invalid or missing Authorization header");
+        }
+        String token = authHeader.substring(7);
+        if (!jwtTokenProvider.validateToken(token)) {
+            throw new SecurityException("Invalid or expired token");
+        }
+        Long userId = jwtTokenProvider.getUserId(token);
+        if (userId == null) {
+            throw new SecurityException("Invalid token");
+        }
+        return userId;
+    }
+}
@@ -16,6 +16,8 @@ public class AnswerDTO {
     private Long userId;  // Добавляем поле
     private String content;
     private LocalDateTime time;
+    // Эталон автопроверки; задаётся сервером по роли автора
+    private boolean reference;
 
     public Long getId() {
         return id;
@@ -56,4 +58,12 @@ public class AnswerDTO {
     public void setTime(LocalDateTime time) {
         this.time = time;
     }
+
+    public boolean isReference() {
+        return reference;
+    }
+
+    public void setReference(boolean reference) {
+        this.reference = reference;
+    }
 }
@@ -13,6 +13,8 @@ public class AssignmentDTO {
     private String title;
     private String description;
     private LocalDateTime dueDate;
+    // exact | normalized | regex | numeric; пусто — ручная проверка
+    private String gradingMode;
 
     public Long getId() {
         return id;
@@ -53,4 +55,12 @@ public class AssignmentDTO {
     public void setDueDate(LocalDateTime dueDate) {
         this.dueDate = dueDate;
     }
+
+    public String getGradingMode() {
+        return gradingMode;
+    }
+
+    public void setGradingMode(String gradingMode) {
+        this.gradingMode = gradingMode;
+    }
 }
@@ -0,0 +1,78 @@
+package org.example.onlinelearning.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Итог пакетной записи на курс. requested — число уникальных корректных id;
+ * failed — пользователи из пакетов, которые не удалось записать из-за ошибки базы.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkEnrollmentResultDTO {
+    private Long courseId;
+    private int requested;
+    private int enrolled;
+    private int alreadyEnrolled;
+    private int unknownUsers;
+    private int invalid;
+    private int failed;
+
+    public Long getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(Long courseId) {
+        this.courseId = courseId;
+    }
+
+    public int getRequested() {
+        return requested;
+    }
+
+    public void setRequested(int requested) {
+        this.requested = requested;
+    }
+
+    public int getEnrolled() {
+        return enrolled;
+    }
+
+    public void setEnrolled(int enrolled) {
+        this.enrolled = enrolled;
+    }
+
+    public int getAlreadyEnrolled() {
+        return alreadyEnrolled;
+    }
+
+    public void setAlreadyEnrolled(int alreadyEnrolled) {
+        this.alreadyEnrolled = alreadyEnrolled;
+    }
+
+    public int getUnknownUsers() {
+        return unknownUsers;
+    }
+
+    public void setUnknownUsers(int unknownUsers) {
+        this.unknownUsers = unknownUsers;
+    }
+
+    public int getInvalid() {
+        return invalid;
+    }
+
+    public void setInvalid(int invalid) {
+        this.invalid = invalid;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+}
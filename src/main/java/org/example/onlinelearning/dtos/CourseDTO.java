@@ -4,6 +4,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -16,6 +18,14 @@ public class CourseDTO {
     private String rating;
     private String imagePath;
 
+    // Статистика курса, считается инкрементально
+    private Long reviewCount;
+    private Double averageRating;
+    // Количество оценок 1..5
+    private List<Long> ratingHistogram;
+    private Long enrollmentCount;
+    private Long lessonCount;
+
     public Long getId() {
         return id;
     }
@@ -63,4 +73,44 @@ public class CourseDTO {
     public void setImagePath(String imagePath) {
         this.imagePath = imagePath;
     }
+
+    public Long getReviewCount() {
+        return reviewCount;
+    }
+
+    public void setReviewCount(Long reviewCount) {
+        this.reviewCount = reviewCount;
+    }
+
+    public Double getAverageRating() {
+        return averageRating;
+    }
+
+    public void setAverageRating(Double averageRating) {
+        this.averageRating = averageRating;
+    }
+
+    public List<Long> getRatingHistogram() {
+        return ratingHistogram;
+    }
+
+    public void setRatingHistogram(List<Long> ratingHistogram) {
+        this.ratingHistogram = ratingHistogram;
+    }
+
+    public Long getEnrollmentCount() {
+        return enrollmentCount;
+    }
+
+    public void setEnrollmentCount(Long enrollmentCount) {
+        this.enrollmentCount = enrollmentCount;
+    }
+
+    public Long getLessonCount() {
+        return lessonCount;
+    }
+
+    public void setLessonCount(Long lessonCount) {
+        this.lessonCount = lessonCount;
+    }
 }
@@ -0,0 +1,74 @@
+package org.example.onlinelearning.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Всё, что нужно странице курса, одним ответом.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CourseOverviewDTO {
+    // Курс со статистикой (отзывы, записи, уроки)
+    private CourseDTO course;
+    private String authorName;
+    private String imageUrl;
+    // Оглавление: уроки без содержимого
+    private List<LessonDTO> lessons;
+    // Последние отзывы
+    private List<ReviewDTO> reviews;
+    // null, если запрос без токена
+    private Boolean enrolled;
+
+    public CourseDTO getCourse() {
+        return course;
+    }
+
+    public void setCourse(CourseDTO course) {
+        this.course = course;
+    }
+
+    public String getAuthorName() {
+        return authorName;
+    }
+
+    public void setAuthorName(String authorName) {
+        this.authorName = authorName;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public void setImageUrl(String imageUrl) {
+        this.imageUrl = imageUrl;
+    }
+
+    public List<LessonDTO> getLessons() {
+        return lessons;
+    }
+
+    public void setLessons(List<LessonDTO> lessons) {
+        this.lessons = lessons;
+    }
+
+    public List<ReviewDTO> getReviews() {
+        return reviews;
+    }
+
+    public void setReviews(List<ReviewDTO> reviews) {
+        this.reviews = reviews;
+    }
+
+    public Boolean getEnrolled() {
+        return enrolled;
+    }
+
+    public void setEnrolled(Boolean enrolled) {
+        this.enrolled = enrolled;
+    }
+}
@@ -0,0 +1,69 @@
+package org.example.onlinelearning.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CourseProgressDTO {
+    private Long userId;
+    private Long courseId;
+    // null — работ по курсу ещё нет
+    private Integer lastLessonOrder;
+    // Урок, с которого продолжать курс
+    private Integer nextLessonOrder;
+    private Long completedCount;
+    private LocalDateTime lastActivity;
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(Long courseId) {
+        this.courseId = courseId;
+    }
+
+    public Integer getLastLessonOrder() {
+        return lastLessonOrder;
+    }
+
+    public void setLastLessonOrder(Integer lastLessonOrder) {
+        this.lastLessonOrder = lastLessonOrder;
+    }
+
+    public Integer getNextLessonOrder() {
+        return nextLessonOrder;
+    }
+
+    public void setNextLessonOrder(Integer nextLessonOrder) {
+        this.nextLessonOrder = nextLessonOrder;
+    }
+
+    public Long getCompletedCount() {
+        return completedCount;
+    }
+
+    public void setCompletedCount(Long completedCount) {
+        this.completedCount = completedCount;
+    }
+
+    public LocalDateTime getLastActivity() {
+        return lastActivity;
+    }
+
+    public void setLastActivity(LocalDateTime lastActivity) {
+        this.lastActivity = lastActivity;
+    }
+}
@@ -0,0 +1,30 @@
+package org.example.onlinelearning.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Элемент запроса массового оценивания
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class GradeDTO {
+    private Long submissionId;
+    private Integer grade;
+
+    public Long getSubmissionId() {
+        return submissionId;
+    }
+
+    public void setSubmissionId(Long submissionId) {
+        this.submissionId = submissionId;
+    }
+
+    public Integer getGrade() {
+        return grade;
+    }
+
+    public void setGrade(Integer grade) {
+        this.grade = grade;
+    }
+}
@@ -0,0 +1,44 @@
+package org.example.onlinelearning.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class GradeResultDTO {
+    public static final String UPDATED = "updated";
+    public static final String NOT_FOUND = "not_found";
+    public static final String INVALID = "invalid";
+    public static final String FAILED = "failed";
+
+    private Long submissionId;
+    // updated | not_found | invalid | failed
+    private String status;
+    private String message;
+
+    public Long getSubmissionId() {
+        return submissionId;
+    }
+
+    public void setSubmissionId(Long submissionId) {
+        this.submissionId = submissionId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.onlinelearning.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Текущий урок и соседние — для кнопок «назад»/«вперёд». Уроки без содержимого.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LessonNavigationDTO {
+    private LessonDTO lesson;
+    private LessonDTO previous;
+    private LessonDTO next;
+    private Integer position;
+    private Integer total;
+
+    public LessonDTO getLesson() {
+        return lesson;
+    }
+
+    public void setLesson(LessonDTO lesson) {
+        this.lesson = lesson;
+    }
+
+    public LessonDTO getPrevious() {
+        return previous;
+    }
+
+    public void setPrevious(LessonDTO previous) {
+        this.previous = previous;
+    }
+
+    public LessonDTO getNext() {
+        return next;
+    }
+
+    public void setNext(LessonDTO next) {
+        this.next = next;
+    }
+
+    public Integer getPosition() {
+        return position;
+    }
+
+    public void setPosition(Integer position) {
+        this.position = position;
+    }
+
+    public Integer getTotal() {
+        return total;
+    }
+
+    public void setTotal(Integer total) {
+        this.total = total;
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.onlinelearning.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Пара почти одинаковых работ задания. similarity — оценка коэффициента Жаккара
+ * по MinHash-подписям (0..1).
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SimilarPairDTO {
+    private Long submissionId;
+    private Long userId;
+    private Long otherSubmissionId;
+    private Long otherUserId;
+    private double similarity;
+
+    public Long getSubmissionId() {
+        return submissionId;
+    }
+
+    public void setSubmissionId(Long submissionId) {
+        this.submissionId = submissionId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getOtherSubmissionId() {
+        return otherSubmissionId;
+    }
+
+    public void setOtherSubmissionId(Long otherSubmissionId) {
+        this.otherSubmissionId = otherSubmissionId;
+    }
+
+    public Long getOtherUserId() {
+        return otherUserId;
+    }
+
+    public void setOtherUserId(Long otherUserId) {
+        this.otherUserId = otherUserId;
+    }
+
+    public double getSimilarity() {
+        return similarity;
+    }
+
+    public void setSimilarity(double similarity) {
+        this.similarity = similarity;
+    }
+}
@@ -0,0 +1,106 @@
+package org.example.onlinelearning.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserEnrollmentDTO {
+    private Long enrollmentId;
+    private Long courseId;
+    private String title;
+    private String imagePath;
+    private LocalDateTime enrollmentTime;
+    // Доля заданий курса, по которым сдана работа, 0..100
+    private Integer progressPercent;
+    private Long completedCount;
+    private Long assignmentCount;
+    // Урок, с которого продолжать курс
+    private Integer resumeLessonOrder;
+    // null — работ по курсу ещё нет
+    private LocalDateTime lastActivity;
+
+    public Long getEnrollmentId() {
+        return enrollmentId;
+    }
+
+    public void setEnrollmentId(Long enrollmentId) {
+        this.enrollmentId = enrollmentId;
+    }
+
+    public Long getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(Long courseId) {
+        this.courseId = courseId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getImagePath() {
+        return imagePath;
+    }
+
+    public void setImagePath(String imagePath) {
+        this.imagePath = imagePath;
+    }
+
+    public LocalDateTime getEnrollmentTime() {
+        return enrollmentTime;
+    }
+
+    public void setEnrollmentTime(LocalDateTime enrollmentTime) {
+        this.enrollmentTime = enrollmentTime;
+    }
+
+    public Integer getProgressPercent() {
+        return progressPercent;
+    }
+
+    public void setProgressPercent(Integer progressPercent) {
+        this.progressPercent = progressPercent;
+    }
+
+    public Long getCompletedCount() {
+        return completedCount;
+    }
+
+    public void setCompletedCount(Long completedCount) {
+        this.completedCount = completedCount;
+    }
+
+    public Long getAssignmentCount() {
+        return assignmentCount;
+    }
+
+    public void setAssignmentCount(Long assignmentCount) {
+        this.assignmentCount = assignmentCount;
+    }
+
+    public Integer getResumeLessonOrder() {
+        return resumeLessonOrder;
+    }
+
+    public void setResumeLessonOrder(Integer resumeLessonOrder) {
+        this.resumeLessonOrder = resumeLessonOrder;
+    }
+
+    public LocalDateTime getLastActivity() {
+        return lastActivity;
+    }
+
+    public void setLastActivity(LocalDateTime lastActivity) {
+        this.lastActivity = lastActivity;
+    }
+}
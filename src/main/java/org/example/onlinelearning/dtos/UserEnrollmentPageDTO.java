@@ -0,0 +1,31 @@
+package org.example.onlinelearning.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserEnrollmentPageDTO {
+    private List<UserEnrollmentDTO> items;
+    private String next;
+
+    public List<UserEnrollmentDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<UserEnrollmentDTO> items) {
+        this.items = items;
+    }
+
+    public String getNext() {
+        return next;
+    }
+
+    public void setNext(String next) {
+        this.next = next;
+    }
+}
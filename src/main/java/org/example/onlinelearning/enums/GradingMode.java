@@ -0,0 +1,24 @@
+package org.example.onlinelearning.enums;
+
+import org.example.onlinelearning.exceptions.InvalidRequestException;
+
+// Как сравнивать работу с эталонными ответами задания
+public enum GradingMode {
+    EXACT,
+    NORMALIZED,
+    REGEX,
+    NUMERIC;
+
+    // Пустое значение — ручная проверка
+    public static GradingMode fromParam(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        for (GradingMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(value.strip())) {
+                return mode;
+            }
+        }
+        throw new InvalidRequestException("Unsupported grading mode: " + value);
+    }
+}
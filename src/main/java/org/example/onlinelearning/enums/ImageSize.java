@@ -0,0 +1,36 @@
+package org.example.onlinelearning.enums;
+
+import org.example.onlinelearning.exceptions.InvalidRequestException;
+
+public enum ImageSize {
+    THUMBNAIL(160),
+    CARD(480),
+    FULL(1280);
+
+    private final int maxWidth;
+
+    ImageSize(int maxWidth) {
+        this.maxWidth = maxWidth;
+    }
+
+    public int getMaxWidth() {
+        return maxWidth;
+    }
+
+    public String suffix() {
+        return name().toLowerCase();
+    }
+
+    // null означает оригинальный файл
+    public static ImageSize fromParam(String value) {
+        if (value == null || value.isBlank() || value.equalsIgnoreCase("original")) {
+            return null;
+        }
+        for (ImageSize size : values()) {
+            if (size.name().equalsIgnoreCase(value)) {
+                return size;
+            }
+        }
+        throw new InvalidRequestException("Unsupported image size: " + value);
+    }
+}
@@ -0,0 +1,28 @@
+package org.example.onlinelearning.enums;
+
+import org.example.onlinelearning.exceptions.InvalidRequestException;
+import org.example.onlinelearning.services.MediaSniffer;
+
+public enum UploadKind {
+    IMAGE,
+    VIDEO;
+
+    // Тип проверяется по сигнатуре собранного файла, а не по заявлению клиента
+    public boolean accepts(String extension) {
+        return this == IMAGE ? MediaSniffer.isImage(extension) : MediaSniffer.isVideo(extension);
+    }
+
+    // Подкаталог uploads для плоского режима хранения: видео лежат рядом с видео уроков
+    public String flatDirectory() {
+        return this == IMAGE ? "courses" : "lessons";
+    }
+
+    public static UploadKind fromParam(String value) {
+        for (UploadKind kind : values()) {
+            if (kind.name().equalsIgnoreCase(value)) {
+                return kind;
+            }
+        }
+        throw new InvalidRequestException("Unsupported upload kind: " + value);
+    }
+}
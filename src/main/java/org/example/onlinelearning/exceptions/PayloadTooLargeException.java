@@ -0,0 +1,7 @@
+package org.example.onlinelearning.exceptions;
+
+public class PayloadTooLargeException extends RuntimeException {
+    public PayloadTooLargeException(String message) {
+        super(message);
+    }
+}
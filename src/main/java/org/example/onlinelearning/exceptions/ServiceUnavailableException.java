@@ -0,0 +1,7 @@
+package org.example.onlinelearning.exceptions;
+
+public class ServiceUnavailableException extends RuntimeException {
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package org.example.onlinelearning.grading;
+
+/**
+ * Эталонный ответ, заранее разобранный грейдером: проверка работы
+ * не повторяет разбор (компиляцию regex, парсинг числа) на каждую сдачу.
+ */
+@FunctionalInterface
+public interface AnswerMatcher {
+    boolean matches(String submission);
+}
@@ -0,0 +1,25 @@
+package org.example.onlinelearning.grading;
+
+import java.util.List;
+
+/**
+ * Эталонные ответы задания, разобранные в матчеры. Работа получает полный балл,
+ * если совпала хотя бы с одним эталоном, иначе ноль.
+ * Пустой список матчеров — задание проверяется вручную.
+ */
+public record CompiledAssignment(List<AnswerMatcher> matchers) {
+    public static final CompiledAssignment MANUAL = new CompiledAssignment(List.of());
+
+    public boolean isAutoGraded() {
+        return !matchers.isEmpty();
+    }
+
+    public int grade(String submission, int maxGrade) {
+        for (AnswerMatcher matcher : matchers) {
+            if (matcher.matches(submission)) {
+                return maxGrade;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,19 @@
+package org.example.onlinelearning.grading;
+
+import org.example.onlinelearning.enums.GradingMode;
+import org.springframework.stereotype.Component;
+
+// Точное совпадение, без учёта пробелов по краям
+@Component
+public class ExactGrader implements Grader {
+    @Override
+    public GradingMode mode() {
+        return GradingMode.EXACT;
+    }
+
+    @Override
+    public AnswerMatcher compile(String reference) {
+        String expected = reference.strip();
+        return submission -> submission != null && submission.strip().equals(expected);
+    }
+}
@@ -0,0 +1,13 @@
+package org.example.onlinelearning.grading;
+
+import org.example.onlinelearning.enums.GradingMode;
+
+/**
+ * Способ проверки работ. Реализации — Spring-бины, новый режим подключается
+ * добавлением бина со своим {@link GradingMode}.
+ */
+public interface Grader {
+    GradingMode mode();
+
+    AnswerMatcher compile(String reference);
+}
@@ -0,0 +1,38 @@
+package org.example.onlinelearning.grading;
+
+import org.example.onlinelearning.enums.GradingMode;
+import org.springframework.stereotype.Component;
+
+// Сравнение без учёта регистра, «ё»/«е», пунктуации и лишних пробелов
+@Component
+public class NormalizedTextGrader implements Grader {
+    @Override
+    public GradingMode mode() {
+        return GradingMode.NORMALIZED;
+    }
+
+    @Override
+    public AnswerMatcher compile(String reference) {
+        String expected = normalize(reference);
+        return submission -> submission != null && normalize(submission).equals(expected);
+    }
+
+    static String normalize(String text) {
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && normalized.length() > 0) {
+                    normalized.append(' ');
+                }
+                pendingSpace = false;
+                c = Character.toLowerCase(c);
+                normalized.append(c == 'ё' ? 'е' : c);
+            } else {
+                pendingSpace = true;
+            }
+        }
+        return normalized.toString();
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.onlinelearning.grading;
+
+import org.example.onlinelearning.enums.GradingMode;
+import org.springframework.stereotype.Component;
+
+/**
+ * Числовой ответ с допуском. Эталон — «3.14» или «3.14 ± 0.01» (также «+-»);
+ * десятичная запятая допускается и в эталоне, и в работе.
+ */
+@Component
+public class NumericGrader implements Grader {
+    private static final double DEFAULT_TOLERANCE = 1e-9;
+
+    @Override
+    public GradingMode mode() {
+        return GradingMode.NUMERIC;
+    }
+
+    @Override
+    public AnswerMatcher compile(String reference) {
+        String[] parts = reference.split("±|\\+-", 2);
+        Double expected = parse(parts[0]);
+        Double tolerance = parts.length > 1 ? parse(parts[1]) : Double.valueOf(DEFAULT_TOLERANCE);
+        if (expected == null || tolerance == null) {
+            System.err.println("Invalid numeric reference answer: " + reference);
+            return submission -> false;
+        }
+        // Погрешность округления: иначе «3.15» не попадает в «3.14 ± 0.01»
+        double slack = parts.length > 1 ? Math.abs(tolerance) + DEFAULT_TOLERANCE : DEFAULT_TOLERANCE;
+        double min = expected - slack;
+        double max = expected + slack;
+        return submission -> {
+            Double value = parse(submission);
+            return value != null && value >= min && value <= max;
+        };
+    }
+
+    private static Double parse(String text) {
+        if (text == null) {
+            return null;
+        }
+        try {
+            double value = Double.parseDouble(text.strip().replace(',', '.'));
+            return Double.isFinite(value) ? value : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
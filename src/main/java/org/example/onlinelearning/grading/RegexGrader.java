@@ -0,0 +1,78 @@
+package org.example.onlinelearning.grading;
+
+import org.example.onlinelearning.enums.GradingMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Эталон — регулярное выражение, работа должна совпасть целиком (без учёта регистра).
+ * Время сопоставления ограничено: неудачный шаблон с катастрофическим
+ * перебором не займёт поток проверки надолго.
+ */
+@Component
+public class RegexGrader implements Grader {
+    @Value("${grading.regex-timeout-ms:100}")
+    private long timeoutMillis;
+
+    @Override
+    public GradingMode mode() {
+        return GradingMode.REGEX;
+    }
+
+    @Override
+    public AnswerMatcher compile(String reference) {
+        Pattern pattern;
+        try {
+            pattern = Pattern.compile(reference.strip(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+        } catch (PatternSyntaxException e) {
+            System.err.println("Invalid regex reference answer: " + e.getMessage());
+            return submission -> false;
+        }
+        return submission -> {
+            if (submission == null) {
+                return false;
+            }
+            long deadline = System.nanoTime() + timeoutMillis * 1_000_000L;
+            try {
+                return pattern.matcher(new DeadlineCharSequence(submission.strip(), deadline)).matches();
+            } catch (MatchTimeoutException e) {
+                return false;
+            }
+        };
+    }
+
+    private static final class MatchTimeoutException extends RuntimeException {
+        MatchTimeoutException() {
+            super(null, null, false, false);
+        }
+    }
+
+    // Движок regex читает текст через charAt — там и проверяем дедлайн
+    private record DeadlineCharSequence(String text, long deadline) implements CharSequence {
+        @Override
+        public char charAt(int index) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new MatchTimeoutException();
+            }
+            return text.charAt(index);
+        }
+
+        @Override
+        public int length() {
+            return text.length();
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new DeadlineCharSequence(text.substring(start, end), deadline);
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package org.example.onlinelearning.ingest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.zip.CRC32;
+
+/**
+ * Журнал предзаписи для очереди приёма работ: запись считается принятой,
+ * только когда она на диске. fsync групповой — пока один поток ждёт диск,
+ * остальные дописывают свои записи и подтверждаются тем же следующим fsync.
+ * Формат записи: длина, CRC32, тело; хвост, оборванный при падении, отбрасывается.
+ */
+public class SubmissionJournal implements Closeable {
+    private static final int HEADER_SIZE = 8;
+    // readAll считает запись длиннее этого повреждённой, поэтому append такие не пишет
+    public static final int MAX_RECORD_SIZE = 16 * 1024 * 1024;
+
+    public record Entry(String receiptId, long assignmentId, long userId, long acceptedAt, String content) {
+    }
+
+    private final FileChannel channel;
+    // Порядок захвата: syncLock, затем writeLock
+    private final Object writeLock = new Object();
+    private final Object syncLock = new Object();
+    private long written;
+    private volatile long synced;
+
+    public SubmissionJournal(Path path) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.written = channel.size();
+        this.synced = written;
+        channel.position(written);
+    }
+
+    /**
+     * Читает все целые записи с начала файла. Повреждённый хвост обрезается,
+     * чтобы новые записи не легли после мусора.
+     */
+    public List<Entry> readAll() throws IOException {
+        synchronized (syncLock) {
+            synchronized (writeLock) {
+                List<Entry> entries = new ArrayList<>();
+                long position = 0;
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                while (position + HEADER_SIZE <= written) {
+                    header.clear();
+                    readFully(header, position);
+                    int length = header.getInt(0);
+                    int crc = header.getInt(4);
+                    if (length <= 0 || length > MAX_RECORD_SIZE || position + HEADER_SIZE + length > written) {
+                        break;
+                    }
+                    ByteBuffer body = ByteBuffer.allocate(length);
+                    readFully(body, position + HEADER_SIZE);
+                    if (crc32(body.array()) != crc) {
+                        break;
+                    }
+                    entries.add(decode(body));
+                    position += HEADER_SIZE + length;
+                }
+                if (position < written) {
+                    channel.truncate(position);
+                    channel.position(position);
+                    written = position;
+                    synced = position;
+                }
+                return entries;
+            }
+        }
+    }
+
+    public void append(Entry entry) throws IOException {
+        byte[] body = encode(entry);
+        if (body.length > MAX_RECORD_SIZE) {
+            // Иначе при восстановлении эта запись обрезала бы журнал вместе со всеми следующими
+            throw new IllegalArgumentException("Journal record of " + body.length + " bytes exceeds "
+                    + MAX_RECORD_SIZE);
+        }
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + body.length);
+        record.putInt(body.length).putInt(crc32(body)).put(body).flip();
+
+        long end;
+        synchronized (writeLock) {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            written += HEADER_SIZE + body.length;
+            end = written;
+        }
+        syncTo(end);
+    }
+
+    /**
+     * Очищает журнал, если все записи уже в базе. Проверка idle выполняется под той же
+     * блокировкой, что и запись, поэтому новая запись не может потеряться между
+     * проверкой и очисткой.
+     */
+    public boolean truncateIfIdle(BooleanSupplier idle) throws IOException {
+        synchronized (syncLock) {
+            synchronized (writeLock) {
+                if (written == 0 || !idle.getAsBoolean()) {
+                    return false;
+                }
+                channel.truncate(0);
+                channel.position(0);
+                channel.force(false);
+                written = 0;
+                synced = 0;
+                return true;
+            }
+        }
+    }
+
+    public long size() {
+        synchronized (writeLock) {
+            return written;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void syncTo(long end) throws IOException {
+        if (synced >= end) {
+            return;
+        }
+        synchronized (syncLock) {
+            // Пока ждали блокировку, нашу запись мог подтвердить чужой fsync
+            if (synced >= end) {
+                return;
+            }
+            long target;
+            synchronized (writeLock) {
+                target = written;
+            }
+            channel.force(false);
+            synced = target;
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of journal");
+            }
+        }
+    }
+
+    private static byte[] encode(Entry entry) throws IOException {
+        byte[] content = entry.content().getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.length + 64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(entry.receiptId());
+            out.writeLong(entry.assignmentId());
+            out.writeLong(entry.userId());
+            out.writeLong(entry.acceptedAt());
+            out.writeInt(content.length);
+            out.write(content);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Entry decode(ByteBuffer body) {
+        body.flip();
+        int receiptLength = body.getShort() & 0xFFFF;
+        byte[] receipt = new byte[receiptLength];
+        body.get(receipt);
+        long assignmentId = body.getLong();
+        long userId = body.getLong();
+        long acceptedAt = body.getLong();
+        byte[] content = new byte[body.getInt()];
+        body.get(content);
+        // receiptId — UUID в ASCII, так что modified UTF-8 из writeUTF совпадает с обычным
+        return new Entry(new String(receipt, StandardCharsets.UTF_8), assignmentId, userId, acceptedAt,
+                new String(content, StandardCharsets.UTF_8));
+    }
+
+    private static int crc32(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+}
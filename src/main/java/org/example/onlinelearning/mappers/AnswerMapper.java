@@ -13,5 +13,6 @@ public interface AnswerMapper {
 
     @Mapping(target = "assignment.id", source = "assignmentId")
     @Mapping(target = "user.id", source = "userId")
+    @Mapping(target = "reference", ignore = true)
     Answer toAnswer(AnswerDTO answerDTO);
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package org.example.onlinelearning.mappers;
 
 import org.example.onlinelearning.dtos.AssignmentDTO;
+import org.example.onlinelearning.enums.GradingMode;
 import org.example.onlinelearning.models.Assignment;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -13,4 +14,12 @@ public interface AssignmentMapper {
 
     @Mapping(target = "lesson.id", source = "lessonId")
     Assignment toAssignment(AssignmentDTO assignmentDTO);
+
+    default GradingMode toGradingMode(String gradingMode) {
+        return GradingMode.fromParam(gradingMode);
+    }
+
+    default String fromGradingMode(GradingMode gradingMode) {
+        return gradingMode != null ? gradingMode.name().toLowerCase() : null;
+    }
 }
\ No newline at end of file
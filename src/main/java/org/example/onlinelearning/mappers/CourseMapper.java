@@ -2,15 +2,76 @@ package org.example.onlinelearning.mappers;
 
 import org.example.onlinelearning.dtos.CourseDTO;
 import org.example.onlinelearning.models.Course;
+import org.example.onlinelearning.models.CourseStats;
+import org.example.onlinelearning.repositories.projections.CourseSummary;
+import org.mapstruct.AfterMapping;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
 
 @Mapper(componentModel = "spring")
 public interface CourseMapper {
 
     @Mapping(target = "authorId", source = "author.id")
+    @Mapping(target = "reviewCount", ignore = true)
+    @Mapping(target = "averageRating", ignore = true)
+    @Mapping(target = "ratingHistogram", ignore = true)
+    @Mapping(target = "enrollmentCount", ignore = true)
+    @Mapping(target = "lessonCount", ignore = true)
     CourseDTO toCourseDTO(Course course);
 
     @Mapping(target = "author.id", source = "authorId")
+    @Mapping(target = "stats", ignore = true)
     Course toCourse(CourseDTO courseDTO);
-}
\ No newline at end of file
+
+    @Mapping(target = "description", ignore = true)
+    @Mapping(target = "averageRating", ignore = true)
+    @Mapping(target = "ratingHistogram", ignore = true)
+    CourseDTO summaryToCourseDTO(CourseSummary summary);
+
+    // Копия для выдачи из кэша: закэшированный экземпляр наружу не отдаём
+    CourseDTO copy(CourseDTO courseDTO);
+
+    @AfterMapping
+    default void fillStats(Course course, @MappingTarget CourseDTO courseDTO) {
+        CourseStats stats = course.getStats();
+        if (stats == null) {
+            applyStats(courseDTO, 0L, 0L, List.of(0L, 0L, 0L, 0L, 0L), 0L, 0L);
+            return;
+        }
+        applyStats(courseDTO, stats.getReviewCount(), stats.getRatingSum(),
+                List.of(stats.getRating1(), stats.getRating2(), stats.getRating3(),
+                        stats.getRating4(), stats.getRating5()),
+                stats.getEnrollmentCount(), stats.getLessonCount());
+    }
+
+    @AfterMapping
+    default void fillStats(CourseSummary summary, @MappingTarget CourseDTO courseDTO) {
+        applyStats(courseDTO, summary.getReviewCount(), summary.getRatingSum(),
+                List.of(summary.getRating1(), summary.getRating2(), summary.getRating3(),
+                        summary.getRating4(), summary.getRating5()),
+                summary.getEnrollmentCount(), summary.getLessonCount());
+    }
+
+    private static void applyStats(CourseDTO courseDTO, Long reviewCount, Long ratingSum,
+                                   List<Long> histogram, Long enrollmentCount, Long lessonCount) {
+        courseDTO.setReviewCount(reviewCount);
+        courseDTO.setRatingHistogram(histogram);
+        courseDTO.setEnrollmentCount(enrollmentCount);
+        courseDTO.setLessonCount(lessonCount);
+        if (reviewCount > 0) {
+            double average = BigDecimal.valueOf(ratingSum)
+                    .divide(BigDecimal.valueOf(reviewCount), 2, RoundingMode.HALF_UP)
+                    .doubleValue();
+            courseDTO.setAverageRating(average);
+            // Старое строковое поле теперь тоже отражает реальный средний балл
+            courseDTO.setRating(String.valueOf(average));
+        } else {
+            courseDTO.setAverageRating(null);
+        }
+    }
+}
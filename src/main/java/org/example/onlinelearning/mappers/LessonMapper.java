@@ -14,5 +14,6 @@ public interface LessonMapper {
     LessonDTO toLessonDTO(Lesson lesson);
 
     @Mapping(target = "course.id", source = "courseId")
+    @Mapping(target = "videoPath", ignore = true)
     Lesson toLesson(LessonDTO lessonDTO);
 }
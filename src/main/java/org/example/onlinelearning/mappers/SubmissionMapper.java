@@ -3,6 +3,7 @@ package org.example.onlinelearning.mappers;
 import org.example.onlinelearning.dtos.SubmissionDTO;
 import org.example.onlinelearning.models.Submission;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.MappingConstants;
 import org.springframework.stereotype.Service;
 
@@ -10,5 +11,7 @@ import org.springframework.stereotype.Service;
 @Mapper(componentModel = MappingConstants.ComponentModel.SPRING)
 public interface SubmissionMapper {
     SubmissionDTO toSubmissionDTO(Submission submission);
+    @Mapping(target = "manuallyGraded", ignore = true)
+    @Mapping(target = "receiptId", ignore = true)
     Submission toSubmission(SubmissionDTO submissionDTO);
 }
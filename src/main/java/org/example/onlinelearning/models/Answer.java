@@ -35,6 +35,10 @@ public class Answer {
     @Column(nullable = false)
     private LocalDateTime time;
 
+    // Эталон автопроверки; ставится только для ответов преподавателя, клиент его не задаёт
+    @Column(name = "is_reference", nullable = false, columnDefinition = "boolean not null default false")
+    private boolean reference;
+
     public Long getId() {
         return id;
     }
@@ -74,4 +78,12 @@ public class Answer {
     public void setTime(LocalDateTime time) {
         this.time = time;
     }
+
+    public boolean isReference() {
+        return reference;
+    }
+
+    public void setReference(boolean reference) {
+        this.reference = reference;
+    }
 }
@@ -2,6 +2,7 @@ package org.example.onlinelearning.models;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.example.onlinelearning.enums.GradingMode;
 
 import java.time.LocalDateTime;
 
@@ -28,6 +29,11 @@ public class Assignment {
     @Column(nullable = false)
     private LocalDateTime dueDate;
 
+    // null — работы проверяются вручную
+    @Enumerated(EnumType.STRING)
+    @Column(name = "grading_mode")
+    private GradingMode gradingMode;
+
     public Long getId() {
         return id;
     }
@@ -67,4 +73,12 @@ public class Assignment {
     public void setDueDate(LocalDateTime dueDate) {
         this.dueDate = dueDate;
     }
+
+    public GradingMode getGradingMode() {
+        return gradingMode;
+    }
+
+    public void setGradingMode(GradingMode gradingMode) {
+        this.gradingMode = gradingMode;
+    }
 }
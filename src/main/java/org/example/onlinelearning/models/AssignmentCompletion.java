@@ -0,0 +1,42 @@
+package org.example.onlinelearning.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Задание, по которому у пользователя есть хотя бы одна работа. Первичный ключ
+ * (пользователь, задание) делает засчитывание идемпотентным: из одновременных
+ * первых работ строку вставит только одна, и только она увеличит
+ * {@link CourseProgress#getCompletedCount()}.
+ */
+@Entity
+@Table(name = "assignment_completions")
+@IdClass(AssignmentCompletionId.class)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AssignmentCompletion {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "assignment_id")
+    private Long assignmentId;
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getAssignmentId() {
+        return assignmentId;
+    }
+
+    public void setAssignmentId(Long assignmentId) {
+        this.assignmentId = assignmentId;
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.onlinelearning.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+// Составной ключ {@link AssignmentCompletion}: пользователь + задание
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AssignmentCompletionId implements Serializable {
+    private Long userId;
+    private Long assignmentId;
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getAssignmentId() {
+        return assignmentId;
+    }
+
+    public void setAssignmentId(Long assignmentId) {
+        this.assignmentId = assignmentId;
+    }
+}
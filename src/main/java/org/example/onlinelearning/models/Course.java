@@ -4,7 +4,9 @@ import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
-@Table(name = "courses")
+@Table(name = "courses", indexes = {
+        @Index(name = "idx_courses_title_id", columnList = "title, id")
+})
 @ToString
 @AllArgsConstructor
 @NoArgsConstructor
@@ -29,6 +31,11 @@ public class Course {
     @Column(nullable = false)
     private String imagePath;
 
+    // Счётчики по общему первичному ключу, подтягиваются тем же запросом, что и курс
+    @OneToOne
+    @PrimaryKeyJoinColumn
+    private CourseStats stats;
+
     public Long getId() {
         return id;
     }
@@ -76,4 +83,12 @@ public class Course {
     public void setImagePath(String imagePath) {
         this.imagePath = imagePath;
     }
+
+    public CourseStats getStats() {
+        return stats;
+    }
+
+    public void setStats(CourseStats stats) {
+        this.stats = stats;
+    }
 }
@@ -0,0 +1,78 @@
+package org.example.onlinelearning.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Материализованный прогресс пользователя по курсу. Обновляется SQL-апсертом
+ * из {@code SubmissionBatchRepository} в транзакции сдачи работы, поэтому
+ * позиция для продолжения курса читается по первичному ключу без join по работам.
+ */
+@Entity
+@Table(name = "course_progress")
+@IdClass(CourseProgressId.class)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CourseProgress {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "course_id")
+    private Long courseId;
+
+    // Порядковый номер урока последней сданной работы
+    @Column(name = "last_lesson_order", nullable = false)
+    private Integer lastLessonOrder;
+
+    // Число заданий курса, по которым есть хотя бы одна работа
+    @Column(name = "completed_count", nullable = false)
+    private Long completedCount;
+
+    @Column(name = "last_activity", nullable = false)
+    private LocalDateTime lastActivity;
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(Long courseId) {
+        this.courseId = courseId;
+    }
+
+    public Integer getLastLessonOrder() {
+        return lastLessonOrder;
+    }
+
+    public void setLastLessonOrder(Integer lastLessonOrder) {
+        this.lastLessonOrder = lastLessonOrder;
+    }
+
+    public Long getCompletedCount() {
+        return completedCount;
+    }
+
+    public void setCompletedCount(Long completedCount) {
+        this.completedCount = completedCount;
+    }
+
+    public LocalDateTime getLastActivity() {
+        return lastActivity;
+    }
+
+    public void setLastActivity(LocalDateTime lastActivity) {
+        this.lastActivity = lastActivity;
+    }
+}
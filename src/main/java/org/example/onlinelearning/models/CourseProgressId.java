@@ -0,0 +1,32 @@
+package org.example.onlinelearning.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+// Составной ключ {@link CourseProgress}: пользователь + курс
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CourseProgressId implements Serializable {
+    private Long userId;
+    private Long courseId;
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(Long courseId) {
+        this.courseId = courseId;
+    }
+}
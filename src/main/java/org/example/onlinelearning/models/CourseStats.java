@@ -0,0 +1,127 @@
+package org.example.onlinelearning.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Материализованная статистика курса. Строка меняется только атомарными
+ * SQL-инкрементами из {@code CourseStatsRepository}, без чтения и записи сущности.
+ */
+@Entity
+@Table(name = "course_stats")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CourseStats {
+    @Id
+    @Column(name = "course_id")
+    private Long courseId;
+
+    @Column(nullable = false)
+    private Long reviewCount;
+
+    @Column(nullable = false)
+    private Long ratingSum;
+
+    // Гистограмма оценок 1..5
+    @Column(nullable = false)
+    private Long rating1;
+
+    @Column(nullable = false)
+    private Long rating2;
+
+    @Column(nullable = false)
+    private Long rating3;
+
+    @Column(nullable = false)
+    private Long rating4;
+
+    @Column(nullable = false)
+    private Long rating5;
+
+    @Column(nullable = false)
+    private Long enrollmentCount;
+
+    @Column(nullable = false)
+    private Long lessonCount;
+
+    public Long getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(Long courseId) {
+        this.courseId = courseId;
+    }
+
+    public Long getReviewCount() {
+        return reviewCount;
+    }
+
+    public void setReviewCount(Long reviewCount) {
+        this.reviewCount = reviewCount;
+    }
+
+    public Long getRatingSum() {
+        return ratingSum;
+    }
+
+    public void setRatingSum(Long ratingSum) {
+        this.ratingSum = ratingSum;
+    }
+
+    public Long getRating1() {
+        return rating1;
+    }
+
+    public void setRating1(Long rating1) {
+        this.rating1 = rating1;
+    }
+
+    public Long getRating2() {
+        return rating2;
+    }
+
+    public void setRating2(Long rating2) {
+        this.rating2 = rating2;
+    }
+
+    public Long getRating3() {
+        return rating3;
+    }
+
+    public void setRating3(Long rating3) {
+        this.rating3 = rating3;
+    }
+
+    public Long getRating4() {
+        return rating4;
+    }
+
+    public void setRating4(Long rating4) {
+        this.rating4 = rating4;
+    }
+
+    public Long getRating5() {
+        return rating5;
+    }
+
+    public void setRating5(Long rating5) {
+        this.rating5 = rating5;
+    }
+
+    public Long getEnrollmentCount() {
+        return enrollmentCount;
+    }
+
+    public void setEnrollmentCount(Long enrollmentCount) {
+        this.enrollmentCount = enrollmentCount;
+    }
+
+    public Long getLessonCount() {
+        return lessonCount;
+    }
+
+    public void setLessonCount(Long lessonCount) {
+        this.lessonCount = lessonCount;
+    }
+}
@@ -6,7 +6,12 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "enrollments")
+@Table(name = "enrollments", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_enrollments_user_course", columnNames = {"user_id", "course_id"})
+}, indexes = {
+        // Список записей пользователя с keyset-пагинацией по id
+        @Index(name = "idx_enrollments_user", columnList = "user_id, id")
+})
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
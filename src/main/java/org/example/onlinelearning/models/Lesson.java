@@ -31,6 +31,10 @@ public class Lesson {
     @Column(nullable = false)
     private Integer lessonOrder;
 
+    // Путь к видео в локальном хранилище; null, если videoURL ведёт на внешний ресурс
+    @Column(name = "video_path")
+    private String videoPath;
+
     public Long getId() {
         return id;
     }
@@ -78,4 +82,12 @@ public class Lesson {
     public void setLessonOrder(Integer lessonOrder) {
         this.lessonOrder = lessonOrder;
     }
+
+    public String getVideoPath() {
+        return videoPath;
+    }
+
+    public void setVideoPath(String videoPath) {
+        this.videoPath = videoPath;
+    }
 }
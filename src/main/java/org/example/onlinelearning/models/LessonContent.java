@@ -0,0 +1,74 @@
+package org.example.onlinelearning.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Готовое к отдаче содержимое урока: HTML и его gzip-версия, посчитанные один раз при записи.
+ * Хранится отдельно от {@code lessons}, чтобы чтение оглавлений и списков уроков не тянуло байты.
+ */
+@Entity
+@Table(name = "lesson_contents", indexes = {
+        @Index(name = "idx_lesson_contents_course", columnList = "course_id")
+})
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LessonContent {
+    @Id
+    @Column(name = "lesson_id")
+    private Long lessonId;
+
+    @Column(name = "course_id")
+    private Long courseId;
+
+    @Column(nullable = false, columnDefinition = "text")
+    private String html;
+
+    @Column(nullable = false)
+    private byte[] gzip;
+
+    // SHA-256 от HTML в hex, он же ETag
+    @Column(nullable = false, length = 64)
+    private String hash;
+
+    public Long getLessonId() {
+        return lessonId;
+    }
+
+    public void setLessonId(Long lessonId) {
+        this.lessonId = lessonId;
+    }
+
+    public Long getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(Long courseId) {
+        this.courseId = courseId;
+    }
+
+    public String getHtml() {
+        return html;
+    }
+
+    public void setHtml(String html) {
+        this.html = html;
+    }
+
+    public byte[] getGzip() {
+        return gzip;
+    }
+
+    public void setGzip(byte[] gzip) {
+        this.gzip = gzip;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+}
@@ -6,7 +6,9 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "reviews")
+@Table(name = "reviews", indexes = {
+        @Index(name = "idx_reviews_course_time", columnList = "course_id, reviewTime")
+})
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
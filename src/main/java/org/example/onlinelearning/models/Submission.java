@@ -6,13 +6,18 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "submissions")
+@Table(name = "submissions", indexes = {
+        @Index(name = "idx_submissions_assignment", columnList = "assignment_id, id")
+})
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class Submission {
+    // Последовательность с шагом 50 вместо IDENTITY: Hibernate берёт id пачкой
+    // и может отправлять вставки JDBC-пакетами
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "submissions_seq")
+    @SequenceGenerator(name = "submissions_seq", sequenceName = "submissions_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -32,6 +37,14 @@ public class Submission {
     @Column(nullable = false)
     private Integer grade;
 
+    // Оценку поставил преподаватель — автопроверка её больше не трогает
+    @Column(name = "manually_graded", nullable = false, columnDefinition = "boolean not null default false")
+    private Boolean manuallyGraded = false;
+
+    // Квитанция приёма через очередь; по ней повторная запись из журнала не создаёт дубль
+    @Column(name = "receipt_id", unique = true, length = 36)
+    private String receiptId;
+
     public Long getId() {
         return id;
     }
@@ -79,4 +92,20 @@ public class Submission {
     public void setGrade(Integer grade) {
         this.grade = grade;
     }
+
+    public Boolean getManuallyGraded() {
+        return manuallyGraded;
+    }
+
+    public void setManuallyGraded(Boolean manuallyGraded) {
+        this.manuallyGraded = manuallyGraded;
+    }
+
+    public String getReceiptId() {
+        return receiptId;
+    }
+
+    public void setReceiptId(String receiptId) {
+        this.receiptId = receiptId;
+    }
 }
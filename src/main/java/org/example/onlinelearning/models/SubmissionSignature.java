@@ -0,0 +1,63 @@
+package org.example.onlinelearning.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * MinHash-подпись работы для поиска почти одинаковых работ в задании.
+ * Хранится отдельно от {@code submissions}: индекс задания загружается из этой
+ * таблицы, не читая тексты работ. Подпись — 128 int в big-endian, 512 байт.
+ */
+@Entity
+@Table(name = "submission_signatures", indexes = {
+        @Index(name = "idx_submission_signatures_assignment", columnList = "assignment_id")
+})
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SubmissionSignature {
+    @Id
+    @Column(name = "submission_id")
+    private Long submissionId;
+
+    @Column(name = "assignment_id", nullable = false)
+    private Long assignmentId;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(nullable = false)
+    private byte[] signature;
+
+    public Long getSubmissionId() {
+        return submissionId;
+    }
+
+    public void setSubmissionId(Long submissionId) {
+        this.submissionId = submissionId;
+    }
+
+    public Long getAssignmentId() {
+        return assignmentId;
+    }
+
+    public void setAssignmentId(Long assignmentId) {
+        this.assignmentId = assignmentId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public byte[] getSignature() {
+        return signature;
+    }
+
+    public void setSignature(byte[] signature) {
+        this.signature = signature;
+    }
+}
@@ -11,5 +11,7 @@ import java.util.Optional;
 public interface AnswerRepository extends JpaRepository<Answer, Long> {
     List<Answer> findByAssignmentId(Long assignmentId);
 
+    List<Answer> findByAssignmentIdAndReferenceTrue(Long assignmentId);
+
     Optional<Answer> findByAssignmentIdAndUserId(Long assignmentId, Long userId);
 }
\ No newline at end of file
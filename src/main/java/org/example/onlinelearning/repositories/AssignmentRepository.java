@@ -2,6 +2,8 @@ package org.example.onlinelearning.repositories;
 
 import org.example.onlinelearning.models.Assignment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,4 +13,7 @@ import java.util.Optional;
 public interface AssignmentRepository extends JpaRepository<Assignment, Long> {
     Optional<Assignment> findByLessonId(Long lessonId);
 
+    @Query("SELECT a.lesson.id FROM Assignment a WHERE a.id = :id")
+    Optional<Long> findLessonIdById(@Param("id") Long id);
+
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package org.example.onlinelearning.repositories;
+
+import org.example.onlinelearning.models.CourseProgress;
+import org.example.onlinelearning.models.CourseProgressId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CourseProgressRepository extends JpaRepository<CourseProgress, CourseProgressId> {
+}
@@ -1,9 +1,61 @@
 package org.example.onlinelearning.repositories;
 
 import org.example.onlinelearning.models.Course;
+import org.example.onlinelearning.repositories.projections.CourseImageRef;
+import org.example.onlinelearning.repositories.projections.CourseSummary;
+import org.example.onlinelearning.repositories.projections.SearchSource;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface CourseRepository extends JpaRepository<Course, Long> {
+    String SUMMARY_SELECT = "SELECT c.id AS id, a.id AS authorId, c.title AS title, " +
+            "c.rating AS rating, c.imagePath AS imagePath, " +
+            "COALESCE(s.reviewCount, 0) AS reviewCount, COALESCE(s.ratingSum, 0) AS ratingSum, " +
+            "COALESCE(s.rating1, 0) AS rating1, COALESCE(s.rating2, 0) AS rating2, " +
+            "COALESCE(s.rating3, 0) AS rating3, COALESCE(s.rating4, 0) AS rating4, " +
+            "COALESCE(s.rating5, 0) AS rating5, " +
+            "COALESCE(s.enrollmentCount, 0) AS enrollmentCount, COALESCE(s.lessonCount, 0) AS lessonCount " +
+            "FROM Course c LEFT JOIN c.author a LEFT JOIN c.stats s ";
+
+    @Query(SUMMARY_SELECT + "WHERE c.id > :afterId ORDER BY c.id")
+    List<CourseSummary> findSummariesAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "ORDER BY c.title, c.id")
+    List<CourseSummary> findSummariesOrderByTitle(Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE c.title > :title OR (c.title = :title AND c.id > :afterId) ORDER BY c.title, c.id")
+    List<CourseSummary> findSummariesAfterTitle(
+            @Param("title") String title,
+            @Param("afterId") Long afterId,
+            Pageable pageable
+    );
+
+    @Query("SELECT c.id AS id, c.imagePath AS imagePath FROM Course c WHERE c.id > :afterId ORDER BY c.id")
+    List<CourseImageRef> findImageRefsAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT c.id AS id, c.imagePath AS imagePath FROM Course c WHERE c.id IN :ids ORDER BY c.id")
+    List<CourseImageRef> findImageRefsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Course c SET c.imagePath = :newPath WHERE c.id = :id AND c.imagePath = :oldPath")
+    int updateImagePath(@Param("id") Long id, @Param("oldPath") String oldPath, @Param("newPath") String newPath);
+
+    @Query("SELECT c.id AS id, c.id AS courseId, c.title AS title, c.description AS body " +
+            "FROM Course c WHERE c.id > :afterId ORDER BY c.id")
+    List<SearchSource> findSearchSourcesAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Курс вместе с автором и счётчиками одним запросом
+    @Query("SELECT c FROM Course c LEFT JOIN FETCH c.author LEFT JOIN FETCH c.stats WHERE c.id = :id")
+    Optional<Course> findWithAuthorAndStatsById(@Param("id") Long id);
 }
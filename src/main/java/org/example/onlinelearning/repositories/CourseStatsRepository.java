@@ -0,0 +1,66 @@
+package org.example.onlinelearning.repositories;
+
+import org.example.onlinelearning.models.CourseStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface CourseStatsRepository extends JpaRepository<CourseStats, Long> {
+    /**
+     * Прибавляет дельты к счётчикам курса одним UPSERT: строка блокируется
+     * только на время инкремента, параллельные отзывы и записи не теряются.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO course_stats (course_id, review_count, rating_sum, " +
+            "rating1, rating2, rating3, rating4, rating5, enrollment_count, lesson_count) " +
+            "VALUES (:courseId, :reviews, :ratingSum, :r1, :r2, :r3, :r4, :r5, :enrollments, :lessons) " +
+            "ON CONFLICT (course_id) DO UPDATE SET " +
+            "review_count = course_stats.review_count + EXCLUDED.review_count, " +
+            "rating_sum = course_stats.rating_sum + EXCLUDED.rating_sum, " +
+            "rating1 = course_stats.rating1 + EXCLUDED.rating1, " +
+            "rating2 = course_stats.rating2 + EXCLUDED.rating2, " +
+            "rating3 = course_stats.rating3 + EXCLUDED.rating3, " +
+            "rating4 = course_stats.rating4 + EXCLUDED.rating4, " +
+            "rating5 = course_stats.rating5 + EXCLUDED.rating5, " +
+            "enrollment_count = course_stats.enrollment_count + EXCLUDED.enrollment_count, " +
+            "lesson_count = course_stats.lesson_count + EXCLUDED.lesson_count",
+            nativeQuery = true)
+    int increment(
+            @Param("courseId") Long courseId,
+            @Param("reviews") long reviews,
+            @Param("ratingSum") long ratingSum,
+            @Param("r1") long r1,
+            @Param("r2") long r2,
+            @Param("r3") long r3,
+            @Param("r4") long r4,
+            @Param("r5") long r5,
+            @Param("enrollments") long enrollments,
+            @Param("lessons") long lessons
+    );
+
+    // Пересчёт с нуля для курсов, у которых ещё нет строки статистики
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO course_stats (course_id, review_count, rating_sum, " +
+            "rating1, rating2, rating3, rating4, rating5, enrollment_count, lesson_count) " +
+            "SELECT c.id, " +
+            "COALESCE(r.cnt, 0), COALESCE(r.total, 0), " +
+            "COALESCE(r.r1, 0), COALESCE(r.r2, 0), COALESCE(r.r3, 0), COALESCE(r.r4, 0), COALESCE(r.r5, 0), " +
+            "(SELECT count(*) FROM enrollments e WHERE e.course_id = c.id), " +
+            "(SELECT count(*) FROM lessons l WHERE l.course_id = c.id) " +
+            "FROM courses c " +
+            "LEFT JOIN (SELECT course_id, count(*) AS cnt, sum(rating) AS total, " +
+            "count(*) FILTER (WHERE rating = 1) AS r1, count(*) FILTER (WHERE rating = 2) AS r2, " +
+            "count(*) FILTER (WHERE rating = 3) AS r3, count(*) FILTER (WHERE rating = 4) AS r4, " +
+            "count(*) FILTER (WHERE rating = 5) AS r5 " +
+            "FROM reviews GROUP BY course_id) r ON r.course_id = c.id " +
+            "WHERE NOT EXISTS (SELECT 1 FROM course_stats s WHERE s.course_id = c.id) " +
+            "ON CONFLICT (course_id) DO NOTHING",
+            nativeQuery = true)
+    int backfillMissing();
+}
@@ -0,0 +1,52 @@
+package org.example.onlinelearning.repositories;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Пакетные операции над enrollments через JDBC, без загрузки сущностей.
+ */
+@Repository
+public class EnrollmentBatchRepository {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Записывает пользователей на курс одним многострочным INSERT (массив id разворачивается
+     * через unnest). Возвращает id реально записанных: уже записанные пропускаются ON CONFLICT.
+     */
+    public List<Long> insertEnrollments(Long courseId, List<Long> userIds, LocalDateTime enrollmentTime) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                    "INSERT INTO enrollments (user_id, course_id, enrollment_time) " +
+                            "SELECT u.id, ?, ? FROM unnest(?) AS u(id) " +
+                            "ON CONFLICT (user_id, course_id) DO NOTHING RETURNING user_id");
+            ps.setLong(1, courseId);
+            ps.setTimestamp(2, Timestamp.valueOf(enrollmentTime));
+            ps.setArray(3, connection.createArrayOf("bigint", userIds.toArray()));
+            return ps;
+        }, (rs, rowNum) -> rs.getLong(1));
+    }
+
+    /**
+     * Проходит все пары (курс, пользователь) одним forward-only курсором. Postgres
+     * читает по fetchSize строк только при выключенном autocommit — вызывать в транзакции.
+     */
+    public void scanMemberships(int fetchSize, RowCallbackHandler handler) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                    "SELECT course_id, user_id FROM enrollments WHERE course_id IS NOT NULL AND user_id IS NOT NULL",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            return ps;
+        }, handler);
+    }
+}
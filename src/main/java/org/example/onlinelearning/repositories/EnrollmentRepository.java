@@ -1,9 +1,18 @@
 package org.example.onlinelearning.repositories;
 
 import org.example.onlinelearning.models.Enrollment;
+import org.example.onlinelearning.repositories.projections.UserEnrollmentRow;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -11,4 +20,54 @@ public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
     Optional<Enrollment> findByUserIdAndCourseId(Long userId, Long courseId);
 
     boolean existsByUserIdAndCourseId(Long userId, Long courseId);
+
+    @Query("SELECT e.user.id FROM Enrollment e WHERE e.course.id = :courseId AND e.user.id IN :userIds")
+    List<Long> findEnrolledUserIds(@Param("courseId") Long courseId, @Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Записывает пользователя на курс одной вставкой. Возвращает id новой записи
+     * или пустой Optional, если запись уже была.
+     */
+    @Transactional
+    @Query(value = "INSERT INTO enrollments (user_id, course_id, enrollment_time) " +
+            "VALUES (:userId, :courseId, :enrollmentTime) " +
+            "ON CONFLICT (user_id, course_id) DO NOTHING RETURNING id",
+            nativeQuery = true)
+    Optional<Long> insertIfAbsent(@Param("userId") Long userId,
+                                  @Param("courseId") Long courseId,
+                                  @Param("enrollmentTime") LocalDateTime enrollmentTime);
+
+    // Оставляет самую раннюю запись каждой пары и вычитает удалённые из счётчиков курсов
+    @Transactional
+    @Modifying
+    @Query(value = "WITH removed AS (" +
+            "DELETE FROM enrollments e USING enrollments d " +
+            "WHERE e.user_id = d.user_id AND e.course_id = d.course_id AND e.id > d.id " +
+            "RETURNING e.id, e.course_id) " +
+            "UPDATE course_stats s SET enrollment_count = GREATEST(s.enrollment_count - r.removed, 0) " +
+            "FROM (SELECT course_id, COUNT(DISTINCT id) AS removed FROM removed GROUP BY course_id) r " +
+            "WHERE s.course_id = r.course_id",
+            nativeQuery = true)
+    int deleteDuplicates();
+
+    @Transactional
+    @Modifying
+    @Query(value = "CREATE UNIQUE INDEX IF NOT EXISTS uk_enrollments_user_course ON enrollments (user_id, course_id)",
+            nativeQuery = true)
+    void createUniqueIndex();
+
+    /**
+     * Записи пользователя от новых к старым (keyset по id записи) с прогрессом по курсу.
+     * Число заданий считается подзапросом только для курсов страницы.
+     */
+    @Query("SELECT e.id AS enrollmentId, c.id AS courseId, c.title AS title, c.imagePath AS imagePath, " +
+            "e.enrollmentTime AS enrollmentTime, p.lastLessonOrder AS lastLessonOrder, " +
+            "COALESCE(p.completedCount, 0) AS completedCount, p.lastActivity AS lastActivity, " +
+            "(SELECT COUNT(a) FROM Assignment a WHERE a.lesson.course.id = c.id) AS assignmentCount " +
+            "FROM Enrollment e JOIN e.course c " +
+            "LEFT JOIN CourseProgress p ON p.userId = e.user.id AND p.courseId = c.id " +
+            "WHERE e.user.id = :userId AND e.id < :beforeId ORDER BY e.id DESC")
+    List<UserEnrollmentRow> findUserEnrollmentsBefore(@Param("userId") Long userId,
+                                                      @Param("beforeId") Long beforeId,
+                                                      Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,56 @@
+package org.example.onlinelearning.repositories;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+
+/**
+ * Чтение ведомости курса через JDBC: оценки идут одним курсором
+ * без загрузки сущностей.
+ */
+@Repository
+public class GradebookRepository {
+    private static final String CELLS_SQL = "SELECT s.user_id, u.username, u.fullname, s.assignment_id, s.grade " +
+            "FROM submissions s " +
+            "JOIN assignments a ON a.id = s.assignment_id " +
+            "JOIN lessons l ON l.id = a.lesson_id " +
+            "JOIN users u ON u.id = s.user_id " +
+            "WHERE l.course_id = ? " +
+            // По студенту подряд — строку студента можно отдать, как только пошёл следующий
+            "ORDER BY s.user_id, s.id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public record Column(long assignmentId, String title) {
+    }
+
+    // Столбцы ведомости в порядке уроков
+    public List<Column> findColumns(Long courseId) {
+        return jdbcTemplate.query("SELECT a.id, a.title FROM assignments a " +
+                        "JOIN lessons l ON l.id = a.lesson_id " +
+                        "WHERE l.course_id = ? ORDER BY l.lesson_order, a.id",
+                (rs, rowNum) -> new Column(rs.getLong("id"), rs.getString("title")),
+                courseId);
+    }
+
+    /**
+     * Проходит оценки курса одним forward-only курсором. Драйвер Postgres читает
+     * по fetchSize строк только внутри транзакции (autocommit выключен) —
+     * вызывать из транзакционного метода, иначе результат загрузится целиком.
+     */
+    public void streamCells(Long courseId, int fetchSize, RowCallbackHandler handler) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(CELLS_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            ps.setLong(1, courseId);
+            return ps;
+        }, handler);
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.onlinelearning.repositories;
+
+import org.example.onlinelearning.models.LessonContent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Repository
+public interface LessonContentRepository extends JpaRepository<LessonContent, Long> {
+    // Для ответа 304 достаточно хэша — байты не читаем
+    @Query("SELECT c.hash FROM LessonContent c WHERE c.lessonId = :lessonId")
+    Optional<String> findHashByLessonId(@Param("lessonId") Long lessonId);
+
+    /**
+     * Записывает отрендеренное содержимое; строка не переписывается,
+     * если HTML и курс не изменились (правка одного заголовка, повторный рендер).
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO lesson_contents (lesson_id, course_id, html, gzip, hash) " +
+            "VALUES (:lessonId, :courseId, :html, :gzip, :hash) " +
+            "ON CONFLICT (lesson_id) DO UPDATE SET course_id = EXCLUDED.course_id, " +
+            "html = EXCLUDED.html, gzip = EXCLUDED.gzip, hash = EXCLUDED.hash " +
+            "WHERE lesson_contents.hash <> EXCLUDED.hash " +
+            "OR lesson_contents.course_id IS DISTINCT FROM EXCLUDED.course_id",
+            nativeQuery = true)
+    int upsert(@Param("lessonId") Long lessonId,
+               @Param("courseId") Long courseId,
+               @Param("html") String html,
+               @Param("gzip") byte[] gzip,
+               @Param("hash") String hash);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM LessonContent c WHERE c.courseId = :courseId")
+    int deleteByCourseId(@Param("courseId") Long courseId);
+}
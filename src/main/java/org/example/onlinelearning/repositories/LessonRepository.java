@@ -1,8 +1,15 @@
 package org.example.onlinelearning.repositories;
 
 import org.example.onlinelearning.models.Lesson;
+import org.example.onlinelearning.repositories.projections.LessonSummary;
+import org.example.onlinelearning.repositories.projections.SearchSource;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -11,4 +18,26 @@ import java.util.Optional;
 public interface LessonRepository extends JpaRepository<Lesson, Long> {
     Optional<Lesson> findByCourseIdAndLessonOrder(Long courseId, Integer lessonOrder);
     Optional<List<Lesson>> findAllByCourseId(Long courseId);
+
+    @Query("SELECT l.id AS id, l.course.id AS courseId, l.title AS title, l.content AS body " +
+            "FROM Lesson l WHERE l.id > :afterId ORDER BY l.id")
+    List<SearchSource> findSearchSourcesAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT l.id AS id, l.course.id AS courseId, l.title AS title, l.videoURL AS videoURL, " +
+            "l.lessonOrder AS lessonOrder FROM Lesson l WHERE l.course.id = :courseId ORDER BY l.lessonOrder")
+    List<LessonSummary> findSummariesByCourseId(@Param("courseId") Long courseId);
+
+    @Query("SELECT l.course.id FROM Lesson l WHERE l.id = :id")
+    Optional<Long> findCourseIdById(@Param("id") Long id);
+
+    @Query("SELECT l.videoPath FROM Lesson l WHERE l.id = :id")
+    Optional<String> findVideoPathById(@Param("id") Long id);
+
+    // Сравнение со старым путём защищает от двух одновременных загрузок видео в один урок
+    @Transactional
+    @Modifying
+    @Query("UPDATE Lesson l SET l.videoPath = :newPath, l.videoURL = :videoURL WHERE l.id = :id " +
+            "AND (l.videoPath = :oldPath OR (:oldPath IS NULL AND l.videoPath IS NULL))")
+    int updateVideo(@Param("id") Long id, @Param("oldPath") String oldPath,
+                    @Param("newPath") String newPath, @Param("videoURL") String videoURL);
 }
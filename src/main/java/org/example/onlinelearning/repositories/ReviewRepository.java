@@ -1,8 +1,11 @@
 package org.example.onlinelearning.repositories;
 
-import org.example.onlinelearning.models.Lesson;
+import org.example.onlinelearning.dtos.ReviewDTO;
 import org.example.onlinelearning.models.Review;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,4 +14,9 @@ import java.util.Optional;
 @Repository
 public interface ReviewRepository extends JpaRepository<Review, Long> {
     Optional<List<Review>> findAllByCourseId(Long courseId);
-}
\ No newline at end of file
+
+    // Сразу DTO: без загрузки сущностей курса и пользователя
+    @Query("SELECT new org.example.onlinelearning.dtos.ReviewDTO(r.id, r.course.id, u.id, r.rating, r.comment, r.reviewTime) " +
+            "FROM Review r LEFT JOIN r.user u WHERE r.course.id = :courseId ORDER BY r.reviewTime DESC, r.id DESC")
+    List<ReviewDTO> findLatestByCourseId(@Param("courseId") Long courseId, Pageable pageable);
+}
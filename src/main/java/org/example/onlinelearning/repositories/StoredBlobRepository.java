@@ -0,0 +1,39 @@
+package org.example.onlinelearning.repositories;
+
+import org.example.onlinelearning.models.StoredBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface StoredBlobRepository extends JpaRepository<StoredBlob, String> {
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO stored_blobs (hash, path, size, ref_count, created_at) " +
+            "VALUES (:hash, :path, :size, 1, now()) " +
+            "ON CONFLICT (hash) DO UPDATE SET ref_count = stored_blobs.ref_count + 1",
+            nativeQuery = true)
+    int acquire(@Param("hash") String hash, @Param("path") String path, @Param("size") long size);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE StoredBlob b SET b.refCount = b.refCount - 1 WHERE b.hash = :hash")
+    int release(@Param("hash") String hash);
+
+    // Строку, которую держит незакоммиченный acquire или release, пропускаем, а не ждём:
+    // ожидание под блокировкой хэша в FileStorageService могло бы сцепиться с этой транзакцией
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM stored_blobs WHERE hash = (" +
+            "SELECT hash FROM stored_blobs WHERE hash = :hash AND ref_count <= 0 FOR UPDATE SKIP LOCKED)",
+            nativeQuery = true)
+    int deleteIfUnreferenced(@Param("hash") String hash);
+
+    // Кандидаты на удаление файла; окончательно решает deleteIfUnreferenced
+    List<StoredBlob> findTop500ByRefCountLessThanEqual(Long refCount);
+}
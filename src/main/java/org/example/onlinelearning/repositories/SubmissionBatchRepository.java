@@ -0,0 +1,219 @@
+package org.example.onlinelearning.repositories;
+
+import org.example.onlinelearning.models.SubmissionSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Пакетные операции над submissions через JDBC: одна отправка пакета
+ * вместо findById + save на каждую работу.
+ */
+@Repository
+public class SubmissionBatchRepository {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Выставляет оценки одним JDBC-пакетом. Возвращает число обновлённых строк
+     * по каждому элементу: 0 — работы с таким id нет.
+     */
+    public int[] updateGrades(List<Long> submissionIds, List<Integer> grades) {
+        return jdbcTemplate.batchUpdate("UPDATE submissions SET grade = ?, manually_graded = true WHERE id = ?",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ps.setInt(1, grades.get(i));
+                        ps.setLong(2, submissionIds.get(i));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return submissionIds.size();
+                    }
+                });
+    }
+
+    /**
+     * Записывает оценки автопроверки; работы, оценённые вручную, пропускаются.
+     * Оценка пишется, только если текст работы всё ещё тот, по которому она посчитана:
+     * проверки старого и нового текста завершаются в любом порядке.
+     */
+    @Transactional
+    public void updateAutoGrades(List<SubmissionContent> submissions, int[] grades) {
+        jdbcTemplate.batchUpdate("UPDATE submissions SET grade = ? " +
+                        "WHERE id = ? AND content IS NOT DISTINCT FROM ? AND NOT manually_graded",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ps.setInt(1, grades[i]);
+                        ps.setLong(2, submissions.get(i).id());
+                        ps.setString(3, submissions.get(i).content());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return submissions.size();
+                    }
+                });
+    }
+
+    // Страница работ задания для перепроверки (keyset по id)
+    public List<SubmissionContent> findAutoGradedAfterId(Long assignmentId, long afterId, int limit) {
+        return jdbcTemplate.query("SELECT id, content FROM submissions " +
+                        "WHERE assignment_id = ? AND id > ? AND NOT manually_graded ORDER BY id LIMIT ?",
+                (rs, rowNum) -> new SubmissionContent(rs.getLong("id"), rs.getString("content")),
+                assignmentId, afterId, limit);
+    }
+
+    public record SubmissionContent(long id, String content) {
+    }
+
+    /**
+     * Записывает MinHash-подписи одним JDBC-пакетом; подпись изменённой работы заменяется.
+     */
+    public void upsertSignatures(List<SubmissionSignature> signatures) {
+        jdbcTemplate.batchUpdate("INSERT INTO submission_signatures (submission_id, assignment_id, user_id, signature) " +
+                        "VALUES (?, ?, ?, ?) ON CONFLICT (submission_id) DO UPDATE SET " +
+                        "assignment_id = EXCLUDED.assignment_id, user_id = EXCLUDED.user_id, " +
+                        "signature = EXCLUDED.signature",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        SubmissionSignature signature = signatures.get(i);
+                        ps.setLong(1, signature.getSubmissionId());
+                        ps.setLong(2, signature.getAssignmentId());
+                        ps.setObject(3, signature.getUserId());
+                        ps.setBytes(4, signature.getSignature());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return signatures.size();
+                    }
+                });
+    }
+
+    // Работы задания, для которых подпись ещё не посчитана (созданные до появления подписей)
+    public List<UnsignedSubmission> findUnsigned(Long assignmentId) {
+        return jdbcTemplate.query("SELECT s.id, s.user_id, s.content FROM submissions s " +
+                        "LEFT JOIN submission_signatures g ON g.submission_id = s.id " +
+                        "WHERE s.assignment_id = ? AND g.submission_id IS NULL",
+                (rs, rowNum) -> new UnsignedSubmission(rs.getLong("id"),
+                        rs.getObject("user_id", Long.class), rs.getString("content")),
+                assignmentId);
+    }
+
+    public record UnsignedSubmission(long id, Long userId, String content) {
+    }
+
+    /**
+     * Учитывает новые работы в прогрессе по курсу одним JDBC-пакетом. Курс и номер урока
+     * берутся join-ом по первичным ключам задания и урока. Задание засчитывается, только
+     * если вставилась строка assignment_completions: одновременные первые работы
+     * (двойной клик, два пакета приёма) ждут друг друга на её ключе, и счётчик растёт один раз.
+     */
+    public void upsertProgress(List<ProgressUpdate> updates) {
+        jdbcTemplate.batchUpdate("WITH done AS (INSERT INTO assignment_completions (user_id, assignment_id) " +
+                        "VALUES (?, ?) ON CONFLICT DO NOTHING RETURNING 1) " +
+                        "INSERT INTO course_progress " +
+                        "(user_id, course_id, last_lesson_order, completed_count, last_activity) " +
+                        "SELECT ?, l.course_id, l.lesson_order, (SELECT COUNT(*) FROM done), ? " +
+                        "FROM assignments a JOIN lessons l ON l.id = a.lesson_id " +
+                        "WHERE a.id = ? AND l.course_id IS NOT NULL " +
+                        "ON CONFLICT (user_id, course_id) DO UPDATE SET " +
+                        "completed_count = course_progress.completed_count + EXCLUDED.completed_count, " +
+                        // Порядок коммитов не совпадает с порядком сдачи — позицию двигает только более поздняя работа
+                        "last_lesson_order = CASE WHEN EXCLUDED.last_activity >= course_progress.last_activity " +
+                        "THEN EXCLUDED.last_lesson_order ELSE course_progress.last_lesson_order END, " +
+                        "last_activity = GREATEST(course_progress.last_activity, EXCLUDED.last_activity)",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ProgressUpdate update = updates.get(i);
+                        ps.setLong(1, update.userId());
+                        ps.setLong(2, update.assignmentId());
+                        ps.setLong(3, update.userId());
+                        ps.setTimestamp(4, Timestamp.valueOf(update.submittedAt()));
+                        ps.setLong(5, update.assignmentId());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return updates.size();
+                    }
+                });
+    }
+
+    // Удалена последняя работа пользователя по заданию — задание больше не засчитано
+    public void removeFromProgress(long submissionId, long assignmentId, long userId) {
+        jdbcTemplate.update("WITH gone AS (DELETE FROM assignment_completions c " +
+                        "WHERE c.user_id = ? AND c.assignment_id = ? AND NOT EXISTS (SELECT 1 FROM submissions o " +
+                        "WHERE o.assignment_id = c.assignment_id AND o.user_id = c.user_id AND o.id <> ?) " +
+                        "RETURNING c.assignment_id) " +
+                        "UPDATE course_progress p SET completed_count = GREATEST(p.completed_count - 1, 0) " +
+                        "FROM gone JOIN assignments a ON a.id = gone.assignment_id JOIN lessons l ON l.id = a.lesson_id " +
+                        "WHERE p.user_id = ? AND p.course_id = l.course_id",
+                userId, assignmentId, submissionId, userId);
+    }
+
+    /**
+     * Заполняет assignment_completions по уже сданным работам, если таблица пуста
+     * (первый запуск после её появления).
+     */
+    public int backfillCompletionsIfEmpty() {
+        return jdbcTemplate.update("INSERT INTO assignment_completions (user_id, assignment_id) " +
+                "SELECT DISTINCT s.user_id, s.assignment_id FROM submissions s " +
+                "WHERE s.user_id IS NOT NULL AND s.assignment_id IS NOT NULL " +
+                "AND NOT EXISTS (SELECT 1 FROM assignment_completions) " +
+                "ON CONFLICT DO NOTHING");
+    }
+
+    // Пересчитывает completed_count по assignment_completions; возвращает число исправленных строк
+    public int reconcileCompletedCounts() {
+        return jdbcTemplate.update("UPDATE course_progress p SET completed_count = c.completed " +
+                "FROM (SELECT c.user_id, l.course_id, COUNT(*) AS completed FROM assignment_completions c " +
+                "JOIN assignments a ON a.id = c.assignment_id JOIN lessons l ON l.id = a.lesson_id " +
+                "GROUP BY c.user_id, l.course_id) c " +
+                "WHERE p.user_id = c.user_id AND p.course_id = c.course_id AND p.completed_count <> c.completed");
+    }
+
+    /**
+     * Заполняет прогресс по уже сданным работам, если таблица пуста (первый запуск
+     * после её появления). Один проход агрегатом вместо запроса на пользователя.
+     */
+    public int backfillProgressIfEmpty() {
+        return jdbcTemplate.update("INSERT INTO course_progress " +
+                "(user_id, course_id, last_lesson_order, completed_count, last_activity) " +
+                "SELECT s.user_id, l.course_id, " +
+                "(ARRAY_AGG(l.lesson_order ORDER BY s.submission_date DESC, s.id DESC))[1], " +
+                "COUNT(DISTINCT s.assignment_id), MAX(s.submission_date) " +
+                "FROM submissions s JOIN assignments a ON a.id = s.assignment_id " +
+                "JOIN lessons l ON l.id = a.lesson_id " +
+                "WHERE l.course_id IS NOT NULL AND s.user_id IS NOT NULL " +
+                "AND NOT EXISTS (SELECT 1 FROM course_progress) " +
+                "GROUP BY s.user_id, l.course_id " +
+                "ON CONFLICT (user_id, course_id) DO NOTHING");
+    }
+
+    public record ProgressUpdate(long assignmentId, long userId, LocalDateTime submittedAt) {
+    }
+
+    /**
+     * Поднимает последовательность id выше уже существующих строк: раньше id
+     * выдавал IDENTITY, и новая последовательность начинается с единицы.
+     */
+    public void alignIdSequence() {
+        jdbcTemplate.queryForList("SELECT setval('submissions_seq', m.max_id) " +
+                "FROM (SELECT MAX(id) AS max_id FROM submissions) m " +
+                "WHERE m.max_id >= (SELECT last_value FROM submissions_seq)");
+    }
+}
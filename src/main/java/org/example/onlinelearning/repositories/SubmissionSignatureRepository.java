@@ -0,0 +1,26 @@
+package org.example.onlinelearning.repositories;
+
+import org.example.onlinelearning.models.SubmissionSignature;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface SubmissionSignatureRepository extends JpaRepository<SubmissionSignature, Long> {
+    List<SubmissionSignature> findByAssignmentId(Long assignmentId);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM SubmissionSignature s WHERE s.submissionId = :submissionId")
+    int deleteBySubmissionId(@Param("submissionId") Long submissionId);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM SubmissionSignature s WHERE s.assignmentId = :assignmentId")
+    int deleteByAssignmentId(@Param("assignmentId") Long assignmentId);
+}
@@ -0,0 +1,7 @@
+package org.example.onlinelearning.repositories.projections;
+
+public interface CourseImageRef {
+    Long getId();
+
+    String getImagePath();
+}
@@ -0,0 +1,35 @@
+package org.example.onlinelearning.repositories.projections;
+
+/**
+ * Облегчённое представление курса для каталога: без колонки {@code description},
+ * но со счётчиками из {@code course_stats}, чтобы страница собиралась одним запросом.
+ */
+public interface CourseSummary {
+    Long getId();
+
+    Long getAuthorId();
+
+    String getTitle();
+
+    String getRating();
+
+    String getImagePath();
+
+    Long getReviewCount();
+
+    Long getRatingSum();
+
+    Long getRating1();
+
+    Long getRating2();
+
+    Long getRating3();
+
+    Long getRating4();
+
+    Long getRating5();
+
+    Long getEnrollmentCount();
+
+    Long getLessonCount();
+}
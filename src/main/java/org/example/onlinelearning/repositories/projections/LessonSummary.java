@@ -0,0 +1,16 @@
+package org.example.onlinelearning.repositories.projections;
+
+/**
+ * Урок без колонки {@code content} — для оглавления курса.
+ */
+public interface LessonSummary {
+    Long getId();
+
+    Long getCourseId();
+
+    String getTitle();
+
+    String getVideoURL();
+
+    Integer getLessonOrder();
+}
@@ -0,0 +1,14 @@
+package org.example.onlinelearning.repositories.projections;
+
+/**
+ * Поля курса или урока, которые попадают в поисковый индекс.
+ */
+public interface SearchSource {
+    Long getId();
+
+    Long getCourseId();
+
+    String getTitle();
+
+    String getBody();
+}
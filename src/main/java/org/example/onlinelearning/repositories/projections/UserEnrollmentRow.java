@@ -0,0 +1,27 @@
+package org.example.onlinelearning.repositories.projections;
+
+import java.time.LocalDateTime;
+
+/**
+ * Строка «Моего обучения»: запись на курс вместе с прогрессом из {@code course_progress}
+ * и числом заданий курса — страница собирается одним запросом.
+ */
+public interface UserEnrollmentRow {
+    Long getEnrollmentId();
+
+    Long getCourseId();
+
+    String getTitle();
+
+    String getImagePath();
+
+    LocalDateTime getEnrollmentTime();
+
+    Integer getLastLessonOrder();
+
+    Long getCompletedCount();
+
+    LocalDateTime getLastActivity();
+
+    Long getAssignmentCount();
+}
@@ -0,0 +1,296 @@
+package org.example.onlinelearning.search;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Инвертированный индекс в памяти с ранжированием BM25.
+ * Документы нумеруются внутренними int-id, списки вхождений хранятся в примитивных
+ * массивах; запросы идут под read-lock и не аллоцируют ничего размером с индекс.
+ */
+public class SearchIndex {
+    public enum DocType {
+        COURSE, LESSON
+    }
+
+    public record DocKey(DocType type, long id) {
+    }
+
+    public record Document(DocKey key, Long courseId, String title, String body) {
+    }
+
+    public record Hit(DocKey key, Long courseId, String title, double score) {
+    }
+
+    // Совпадение в заголовке весит как три совпадения в тексте
+    private static final int TITLE_WEIGHT = 3;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<DocKey, Integer> docIds = new HashMap<>();
+    private final List<DocInfo> docs = new ArrayList<>();
+    private final ArrayDeque<Integer> freeIds = new ArrayDeque<>();
+    private long totalLength;
+    private int liveDocs;
+
+    // Буферы очков не привязаны к потокам Tomcat: в пуле не больше одного на ядро
+    private final ArrayBlockingQueue<Scratch> scratchPool =
+            new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors());
+
+    public void upsert(Document document) {
+        Map<String, Integer> frequencies = termFrequencies(document);
+        lock.writeLock().lock();
+        try {
+            removeLocked(document.key());
+            addLocked(document, frequencies);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Добавляет документ, только если его ещё нет. Используется начальной загрузкой,
+     * чтобы не затереть более свежую версию, пришедшую из пути записи.
+     */
+    public void addIfAbsent(Document document) {
+        Map<String, Integer> frequencies = termFrequencies(document);
+        lock.writeLock().lock();
+        try {
+            if (!docIds.containsKey(document.key())) {
+                addLocked(document, frequencies);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(DocKey key) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveDocs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Hit> search(String query, DocType type, int limit) {
+        Set<String> terms = new LinkedHashSet<>(Tokenizer.tokenize(query));
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            if (liveDocs == 0) {
+                return List.of();
+            }
+            Scratch s = scratchPool.poll();
+            if (s == null) {
+                s = new Scratch();
+            }
+            s.ensureCapacity(docs.size());
+            try {
+                return rank(s, terms, type, limit);
+            } finally {
+                s.reset();
+                scratchPool.offer(s);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Hit> rank(Scratch s, Set<String> terms, DocType type, int limit) {
+        double averageLength = (double) totalLength / liveDocs;
+
+        for (String term : terms) {
+            Postings list = postings.get(term);
+            if (list == null) {
+                continue;
+            }
+            double idf = Math.log(1 + (liveDocs - list.size + 0.5) / (list.size + 0.5));
+            for (int i = 0; i < list.size; i++) {
+                int doc = list.docs[i];
+                int tf = list.freqs[i];
+                double norm = K1 * (1 - B + B * docs.get(doc).length / averageLength);
+                s.add(doc, (float) (idf * tf * (K1 + 1) / (tf + norm)));
+            }
+        }
+
+        // Min-heap на limit элементов: top-k без сортировки всех кандидатов
+        PriorityQueue<int[]> heap = new PriorityQueue<>(limit + 1,
+                Comparator.comparingDouble(entry -> s.scores[entry[0]]));
+        for (int i = 0; i < s.touchedCount; i++) {
+            int doc = s.touched[i];
+            if (type != null && docs.get(doc).key.type() != type) {
+                continue;
+            }
+            if (heap.size() < limit) {
+                heap.add(new int[]{doc});
+            } else if (s.scores[doc] > s.scores[heap.peek()[0]]) {
+                heap.poll();
+                heap.add(new int[]{doc});
+            }
+        }
+
+        Hit[] hits = new Hit[heap.size()];
+        for (int i = hits.length - 1; i >= 0; i--) {
+            int doc = heap.poll()[0];
+            DocInfo info = docs.get(doc);
+            hits[i] = new Hit(info.key, info.courseId, info.title, s.scores[doc]);
+        }
+        return Arrays.asList(hits);
+    }
+
+    private Map<String, Integer> termFrequencies(Document document) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : Tokenizer.tokenize(document.title())) {
+            frequencies.merge(term, TITLE_WEIGHT, Integer::sum);
+        }
+        for (String term : Tokenizer.tokenize(document.body())) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+        return frequencies;
+    }
+
+    private void addLocked(Document document, Map<String, Integer> frequencies) {
+        int doc = freeIds.isEmpty() ? docs.size() : freeIds.pop();
+        int length = 0;
+        for (int frequency : frequencies.values()) {
+            length += frequency;
+        }
+
+        DocInfo info = new DocInfo(document.key(), document.courseId(), document.title(),
+                length, frequencies.keySet().toArray(new String[0]));
+        if (doc == docs.size()) {
+            docs.add(info);
+        } else {
+            docs.set(doc, info);
+        }
+        docIds.put(document.key(), doc);
+
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), term -> new Postings()).add(doc, entry.getValue());
+        }
+        totalLength += length;
+        liveDocs++;
+    }
+
+    private void removeLocked(DocKey key) {
+        Integer doc = docIds.remove(key);
+        if (doc == null) {
+            return;
+        }
+        DocInfo info = docs.get(doc);
+        for (String term : info.terms) {
+            Postings list = postings.get(term);
+            if (list != null && list.remove(doc) && list.size == 0) {
+                postings.remove(term);
+            }
+        }
+        totalLength -= info.length;
+        liveDocs--;
+        docs.set(doc, null);
+        freeIds.push(doc);
+    }
+
+    private record DocInfo(DocKey key, Long courseId, String title, int length, String[] terms) {
+    }
+
+    /**
+     * Вхождения отсортированы по внутреннему id: поиск места — двоичный, сдвиг хвоста —
+     * один System.arraycopy. Новые id обычно больше всех, и вставка сводится к дописыванию.
+     */
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private int[] freqs = new int[4];
+        private int size;
+
+        void add(int doc, int freq) {
+            int index = Arrays.binarySearch(docs, 0, size, doc);
+            if (index >= 0) {
+                freqs[index] = freq;
+                return;
+            }
+            index = -index - 1;
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            System.arraycopy(docs, index, docs, index + 1, size - index);
+            System.arraycopy(freqs, index, freqs, index + 1, size - index);
+            docs[index] = doc;
+            freqs[index] = freq;
+            size++;
+        }
+
+        boolean remove(int doc) {
+            int index = Arrays.binarySearch(docs, 0, size, doc);
+            if (index < 0) {
+                return false;
+            }
+            size--;
+            System.arraycopy(docs, index + 1, docs, index, size - index);
+            System.arraycopy(freqs, index + 1, freqs, index, size - index);
+            // Список сильно опустел — возвращаем память
+            if (docs.length > 16 && size < docs.length / 4) {
+                docs = Arrays.copyOf(docs, docs.length / 2);
+                freqs = Arrays.copyOf(freqs, freqs.length / 2);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Буфер очков одного запроса: массив по внутренним id плюс список затронутых документов,
+     * чтобы обнулять только их, а не весь массив.
+     */
+    private static final class Scratch {
+        private float[] scores = new float[0];
+        private int[] touched = new int[0];
+        private int touchedCount;
+
+        void ensureCapacity(int capacity) {
+            // Индекс мог сильно уменьшиться — не держим буфер под прежний размер
+            if (scores.length < capacity || scores.length > 2 * capacity + 1024) {
+                scores = new float[capacity];
+                touched = new int[capacity];
+            }
+        }
+
+        void add(int doc, float score) {
+            if (scores[doc] == 0f) {
+                touched[touchedCount++] = doc;
+            }
+            scores[doc] += score;
+        }
+
+        void reset() {
+            for (int i = 0; i < touchedCount; i++) {
+                scores[touched[i]] = 0f;
+            }
+            touchedCount = 0;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.example.onlinelearning.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Разбивает текст на термы для поиска: нижний регистр, «ё» -> «е», стоп-слова
+ * и лёгкий стемминг (отсечение типичных окончаний) для русского и английского.
+ * Одна и та же функция используется при индексации и при разборе запроса.
+ */
+public final class Tokenizer {
+    private static final int MIN_STEM_LENGTH = 3;
+    private static final int MAX_TOKEN_LENGTH = 40;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "и", "в", "во", "не", "на", "с", "со", "что", "как", "а", "то", "по", "но", "из", "к", "у",
+            "за", "от", "о", "об", "для", "до", "же", "ли", "бы", "это", "или", "при", "так",
+            "the", "a", "an", "and", "or", "of", "to", "in", "on", "for", "is", "are", "with",
+            "by", "at", "as", "be", "it", "this", "that", "from"
+    );
+
+    // Отсортированы от длинных к коротким: отсекаем самое длинное подходящее окончание
+    private static final String[] RU_ENDINGS = {
+            "ованиями", "ованиях", "ования", "ование", "ировать",
+            "ениями", "ениях", "ения", "ение", "ости", "ость",
+            "ами", "ями", "ого", "его", "ому", "ему", "ыми", "ими", "ова", "ева",
+            "ать", "ять", "ить", "еть",
+            "ах", "ях", "ов", "ев", "ей", "ий", "ый", "ой", "ая", "яя", "ое", "ее", "ые", "ие",
+            "ам", "ям", "ом", "ем", "ую", "юю", "ым", "им", "ых", "их",
+            "а", "я", "о", "е", "ы", "и", "у", "ю", "ь", "й"
+    };
+
+    private static final String[] EN_ENDINGS = {
+            "ations", "ation", "ings", "ing", "ness", "ment", "ies", "ied", "ed", "es", "ly", "s"
+    };
+
+    private Tokenizer() {
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                c = Character.toLowerCase(c);
+                current.append(c == 'ё' ? 'е' : c);
+            } else if (current.length() > 0) {
+                addToken(tokens, current);
+            }
+        }
+        if (current.length() > 0) {
+            addToken(tokens, current);
+        }
+        return tokens;
+    }
+
+    private static void addToken(List<String> tokens, StringBuilder current) {
+        String word = current.toString();
+        current.setLength(0);
+        if (word.length() > MAX_TOKEN_LENGTH || STOP_WORDS.contains(word)) {
+            return;
+        }
+        tokens.add(stem(word));
+    }
+
+    static String stem(String word) {
+        String[] endings = isCyrillic(word.charAt(0)) ? RU_ENDINGS : EN_ENDINGS;
+        for (String ending : endings) {
+            if (word.length() - ending.length() >= MIN_STEM_LENGTH && word.endsWith(ending)) {
+                return word.substring(0, word.length() - ending.length());
+            }
+        }
+        return word;
+    }
+
+    private static boolean isCyrillic(char c) {
+        return Character.UnicodeBlock.of(c) == Character.UnicodeBlock.CYRILLIC;
+    }
+}
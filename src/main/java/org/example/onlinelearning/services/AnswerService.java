@@ -3,6 +3,7 @@ package org.example.onlinelearning.services;
 import lombok.RequiredArgsConstructor;
 import org.example.onlinelearning.dtos.AnswerDTO;
 import org.example.onlinelearning.exceptions.NotFoundException;
+import org.example.onlinelearning.exceptions.SecurityException;
 import org.example.onlinelearning.mappers.AnswerMapper;
 import org.example.onlinelearning.models.Answer;
 import org.example.onlinelearning.models.Assignment;
@@ -11,6 +12,7 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
@@ -18,6 +20,8 @@ public class AnswerService {
     private final AnswerRepository answerRepository;
     private final AnswerMapper answerMapper;
     private final AssignmentService assignmentService;
+    private final LessonPrefetcher lessonPrefetcher;
+    private final AutoGradingService autoGradingService;
 
     public AnswerDTO getAnswerById(Long id) {
         Answer answer = answerRepository.findById(id)
@@ -25,31 +29,39 @@ public class AnswerService {
         return answerMapper.toAnswerDTO(answer);
     }
 
-    public AnswerDTO createAnswer(Long assignmentId, AnswerDTO answerDTO) {
+    /**
+     * Ответ преподавателя или администратора ({@code staff}) становится эталоном автопроверки.
+     */
+    public AnswerDTO createAnswer(Long assignmentId, AnswerDTO answerDTO, boolean staff) {
         Assignment assignment = assignmentService.getAssignmentEntityById(assignmentId);
 
         Answer answer = answerMapper.toAnswer(answerDTO);
         answer.setAssignment(assignment);
         answer.setTime(LocalDateTime.now());
+        answer.setReference(staff);
 
         Answer savedAnswer = answerRepository.save(answer);
+        answerChanged(savedAnswer);
         return answerMapper.toAnswerDTO(savedAnswer);
     }
 
-    public AnswerDTO updateAnswer(Long id, AnswerDTO answerDTO) {
+    public AnswerDTO updateAnswer(Long id, AnswerDTO answerDTO, boolean staff) {
         Answer existingAnswer = answerRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Answer not found with id: " + id));
+        requireStaffForReference(existingAnswer, staff);
 
         existingAnswer.setContent(answerDTO.getContent());
         Answer updatedAnswer = answerRepository.save(existingAnswer);
+        answerChanged(updatedAnswer);
         return answerMapper.toAnswerDTO(updatedAnswer);
     }
 
-    public void deleteAnswer(Long id) {
-        if (!answerRepository.existsById(id)) {
-            throw new NotFoundException("Answer not found with id: " + id);
-        }
-        answerRepository.deleteById(id);
+    public void deleteAnswer(Long id, boolean staff) {
+        Answer existingAnswer = answerRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Answer not found with id: " + id));
+        requireStaffForReference(existingAnswer, staff);
+        answerRepository.delete(existingAnswer);
+        answerChanged(existingAnswer);
     }
 
     public List<AnswerDTO> getAllAnswersByAssignmentId(Long assignmentId) {
@@ -63,8 +75,32 @@ public class AnswerService {
     }
 
     public AnswerDTO getUserAnswerForAssignment(Long assignmentId, Long userId) {
+        Optional<AnswerDTO> prefetched = lessonPrefetcher.answer(assignmentId, userId);
+        if (prefetched != null) {
+            return prefetched.orElseThrow(() -> new NotFoundException("Answer not found for assignment and user"));
+        }
         return answerRepository.findByAssignmentIdAndUserId(assignmentId, userId)
                 .map(answerMapper::toAnswerDTO)
                 .orElseThrow(() -> new NotFoundException("Answer not found for assignment and user"));
     }
-}
\ No newline at end of file
+
+    // Эталон меняет оценки всех работ задания — править его может только преподаватель
+    private void requireStaffForReference(Answer answer, boolean staff) {
+        if (answer.isReference() && !staff) {
+            throw new SecurityException("Only teachers can change reference answers");
+        }
+    }
+
+    private void answerChanged(Answer answer) {
+        if (answer.getAssignment() == null) {
+            return;
+        }
+        if (answer.getUser() != null) {
+            lessonPrefetcher.answerChanged(answer.getAssignment().getId(), answer.getUser().getId());
+        }
+        // Ответ студента не эталон: перепроверять задание незачем
+        if (answer.isReference()) {
+            autoGradingService.referenceChanged(answer.getAssignment().getId());
+        }
+    }
+}
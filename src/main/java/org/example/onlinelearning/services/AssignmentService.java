@@ -2,6 +2,7 @@ package org.example.onlinelearning.services;
 
 import lombok.RequiredArgsConstructor;
 import org.example.onlinelearning.dtos.AssignmentDTO;
+import org.example.onlinelearning.enums.GradingMode;
 import org.example.onlinelearning.exceptions.NotFoundException;
 import org.example.onlinelearning.mappers.AssignmentMapper;
 import org.example.onlinelearning.mappers.LessonMapper;
@@ -11,6 +12,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Optional;
 
 @Service
 public class AssignmentService {
@@ -18,18 +20,30 @@ public class AssignmentService {
     private final AssignmentMapper assignmentMapper;
     private final LessonService lessonService;
     private final LessonMapper lessonMapper;
+    private final LessonPrefetcher lessonPrefetcher;
+    private final AutoGradingService autoGradingService;
+    private final SimilarityService similarityService;
+    private final EnrollmentGuard enrollmentGuard;
 
     @Autowired
     public AssignmentService(
             AssignmentRepository assignmentRepository,
             AssignmentMapper assignmentMapper,
             LessonService lessonService,
-            LessonMapper lessonMapper
+            LessonMapper lessonMapper,
+            LessonPrefetcher lessonPrefetcher,
+            AutoGradingService autoGradingService,
+            SimilarityService similarityService,
+            EnrollmentGuard enrollmentGuard
     ) {
         this.assignmentRepository = assignmentRepository;
         this.assignmentMapper = assignmentMapper;
         this.lessonService = lessonService;
         this.lessonMapper = lessonMapper;
+        this.lessonPrefetcher = lessonPrefetcher;
+        this.autoGradingService = autoGradingService;
+        this.similarityService = similarityService;
+        this.enrollmentGuard = enrollmentGuard;
 
     }
 
@@ -43,6 +57,8 @@ public class AssignmentService {
         Assignment assignment = assignmentMapper.toAssignment(assignmentDTO);
         assignment.setLesson(lessonMapper.toLesson(lessonService.getLessonById(lessonId)));
         Assignment savedAssignment = assignmentRepository.save(assignment);
+        lessonPrefetcher.assignmentChanged(lessonId);
+        enrollmentGuard.assignmentChanged(savedAssignment.getId());
         return assignmentMapper.toAssignmentDTO(savedAssignment);
     }
 
@@ -53,20 +69,39 @@ public class AssignmentService {
         existingAssignment.setTitle(assignmentDTO.getTitle());
         existingAssignment.setDescription(assignmentDTO.getDescription());
         existingAssignment.setDueDate(assignmentDTO.getDueDate());
+        // Поле не передано — режим проверки не меняем; пустая строка — ручная проверка
+        GradingMode previousMode = existingAssignment.getGradingMode();
+        if (assignmentDTO.getGradingMode() != null) {
+            existingAssignment.setGradingMode(GradingMode.fromParam(assignmentDTO.getGradingMode()));
+        }
 
         Assignment updatedAssignment = assignmentRepository.save(existingAssignment);
+        lessonPrefetcher.assignmentChanged(lessonIdOf(updatedAssignment));
+        if (updatedAssignment.getGradingMode() != previousMode) {
+            autoGradingService.referenceChanged(id);
+        }
         return assignmentMapper.toAssignmentDTO(updatedAssignment);
     }
 
     public void deleteAssignment(Long id) {
-        if (!assignmentRepository.existsById(id)) {
-            throw new NotFoundException("Assignment not found with id: " + id);
-        }
-        assignmentRepository.deleteById(id);
+        Assignment existingAssignment = assignmentRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Assignment not found with id: " + id));
+        assignmentRepository.delete(existingAssignment);
+        lessonPrefetcher.assignmentChanged(lessonIdOf(existingAssignment));
+        autoGradingService.assignmentDeleted(id);
+        similarityService.assignmentDeleted(id);
+        enrollmentGuard.assignmentChanged(id);
     }
 
 
     public AssignmentDTO getAssignmentByLessonId(Long lessonId) {
+        // Задание открывают сразу после урока — обычно оно уже предзагружено
+        Optional<AssignmentDTO> prefetched = lessonPrefetcher.assignmentForLesson(lessonId);
+        if (prefetched != null) {
+            return prefetched.orElseThrow(() ->
+                    new NotFoundException("Assignment not found for lesson id: " + lessonId));
+        }
+
         // Получаем Optional<Assignment> из репозитория
         Assignment assignment = assignmentRepository.findByLessonId(lessonId)
                 .orElseThrow(() -> new NotFoundException("Assignment not found for lesson id: " + lessonId));
@@ -78,4 +113,8 @@ public class AssignmentService {
         return assignmentRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Assignment not found"));
     }
-}
\ No newline at end of file
+
+    private Long lessonIdOf(Assignment assignment) {
+        return assignment.getLesson() != null ? assignment.getLesson().getId() : null;
+    }
+}
@@ -0,0 +1,206 @@
+package org.example.onlinelearning.services;
+
+import jakarta.annotation.PreDestroy;
+import org.example.onlinelearning.enums.GradingMode;
+import org.example.onlinelearning.grading.AnswerMatcher;
+import org.example.onlinelearning.grading.CompiledAssignment;
+import org.example.onlinelearning.grading.Grader;
+import org.example.onlinelearning.models.Answer;
+import org.example.onlinelearning.models.Assignment;
+import org.example.onlinelearning.repositories.AnswerRepository;
+import org.example.onlinelearning.repositories.AssignmentRepository;
+import org.example.onlinelearning.repositories.SubmissionBatchRepository;
+import org.example.onlinelearning.repositories.SubmissionBatchRepository.SubmissionContent;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Автопроверка работ по эталонным ответам задания ({@code Answer} с флагом reference).
+ * Новые работы проверяются на ограниченном пуле после коммита; при изменении
+ * эталонов или режима всё задание перепроверяется страницами, внутри страницы —
+ * параллельно через fork/join. Оценки, поставленные вручную, не перезаписываются.
+ */
+@Service
+public class AutoGradingService {
+    private static final int REGRADE_PAGE_SIZE = 5000;
+    // Меньше этого проверяем в одном потоке: разбиение дороже самой проверки
+    private static final int FORK_THRESHOLD = 256;
+
+    private final AssignmentRepository assignmentRepository;
+    private final AnswerRepository answerRepository;
+    private final SubmissionBatchRepository submissionBatchRepository;
+    private final TaskExecutor executor;
+    private final Map<GradingMode, Grader> graders = new EnumMap<>(GradingMode.class);
+    private final ForkJoinPool regradePool;
+
+    private final Map<Long, CompiledAssignment> compiled = new ConcurrentHashMap<>();
+    // Задания, перепроверка которых уже стоит в очереди
+    private final Set<Long> pendingRegrades = ConcurrentHashMap.newKeySet();
+
+    @Value("${grading.max-grade:100}")
+    private int maxGrade;
+
+    public AutoGradingService(
+            AssignmentRepository assignmentRepository,
+            AnswerRepository answerRepository,
+            SubmissionBatchRepository submissionBatchRepository,
+            @Qualifier("gradingExecutor") TaskExecutor executor,
+            List<Grader> graders,
+            @Value("${grading.regrade-parallelism:0}") int parallelism
+    ) {
+        this.assignmentRepository = assignmentRepository;
+        this.answerRepository = answerRepository;
+        this.submissionBatchRepository = submissionBatchRepository;
+        this.executor = executor;
+        for (Grader grader : graders) {
+            this.graders.put(grader.mode(), grader);
+        }
+        this.regradePool = new ForkJoinPool(parallelism > 0
+                ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        regradePool.shutdownNow();
+    }
+
+    public void submissionCreated(Long submissionId, Long assignmentId, String content) {
+        TransactionHooks.afterCommit(() -> executor.execute(() -> gradeOne(submissionId, assignmentId, content)));
+    }
+
+    // Текст работы изменился: оценка по старому тексту больше не верна
+    public void submissionChanged(Long submissionId, Long assignmentId, String content) {
+        submissionCreated(submissionId, assignmentId, content);
+    }
+
+    // Эталоны или режим задания изменились: матчеры пересобираются, работы перепроверяются
+    public void referenceChanged(Long assignmentId) {
+        TransactionHooks.afterCommit(() -> {
+            compiled.remove(assignmentId);
+            if (pendingRegrades.add(assignmentId)) {
+                executor.execute(() -> {
+                    // Снимаем отметку до начала: изменение во время прогона поставит новый
+                    pendingRegrades.remove(assignmentId);
+                    regrade(assignmentId);
+                });
+            }
+        });
+    }
+
+    public void assignmentDeleted(Long assignmentId) {
+        compiled.remove(assignmentId);
+    }
+
+    public int regrade(Long assignmentId) {
+        // Собираем заново, а не из кэша: туда могла успеть попасть сборка до изменения
+        CompiledAssignment assignment = compile(assignmentId);
+        compiled.put(assignmentId, assignment);
+        if (!assignment.isAutoGraded()) {
+            return 0;
+        }
+
+        int graded = 0;
+        long afterId = 0;
+        List<SubmissionContent> page;
+        do {
+            page = submissionBatchRepository.findAutoGradedAfterId(assignmentId, afterId, REGRADE_PAGE_SIZE);
+            if (page.isEmpty()) {
+                break;
+            }
+            int[] grades = new int[page.size()];
+            regradePool.invoke(new GradeRange(assignment, page, grades, 0, page.size()));
+
+            submissionBatchRepository.updateAutoGrades(page, grades);
+            graded += page.size();
+            afterId = page.get(page.size() - 1).id();
+        } while (page.size() == REGRADE_PAGE_SIZE);
+        return graded;
+    }
+
+    private void gradeOne(Long submissionId, Long assignmentId, String content) {
+        try {
+            CompiledAssignment assignment = compiledFor(assignmentId);
+            if (assignment.isAutoGraded()) {
+                int grade = assignment.grade(content, maxGrade);
+                // Если текст успели изменить, строка не обновится: её оценит проверка нового текста
+                submissionBatchRepository.updateAutoGrades(
+                        List.of(new SubmissionContent(submissionId, content)), new int[]{grade});
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Auto-grading failed for submission " + submissionId + ": " + e.getMessage());
+        }
+    }
+
+    private CompiledAssignment compiledFor(Long assignmentId) {
+        CompiledAssignment assignment = compiled.get(assignmentId);
+        if (assignment == null) {
+            // Чтение из базы — вне computeIfAbsent, чтобы не держать блокировку карты
+            assignment = compile(assignmentId);
+            CompiledAssignment existing = compiled.putIfAbsent(assignmentId, assignment);
+            if (existing != null) {
+                assignment = existing;
+            }
+        }
+        return assignment;
+    }
+
+    private CompiledAssignment compile(Long assignmentId) {
+        GradingMode mode = assignmentRepository.findById(assignmentId)
+                .map(Assignment::getGradingMode)
+                .orElse(null);
+        Grader grader = mode != null ? graders.get(mode) : null;
+        if (grader == null) {
+            return CompiledAssignment.MANUAL;
+        }
+
+        List<AnswerMatcher> matchers = new ArrayList<>();
+        // Только эталоны преподавателя: ответы студентов ключом проверки не являются
+        for (Answer answer : answerRepository.findByAssignmentIdAndReferenceTrue(assignmentId)) {
+            if (answer.getContent() != null && !answer.getContent().isBlank()) {
+                matchers.add(grader.compile(answer.getContent()));
+            }
+        }
+        return matchers.isEmpty() ? CompiledAssignment.MANUAL : new CompiledAssignment(List.copyOf(matchers));
+    }
+
+    private final class GradeRange extends RecursiveAction {
+        private final CompiledAssignment assignment;
+        private final List<SubmissionContent> submissions;
+        private final int[] grades;
+        private final int from;
+        private final int to;
+
+        GradeRange(CompiledAssignment assignment, List<SubmissionContent> submissions,
+                   int[] grades, int from, int to) {
+            this.assignment = assignment;
+            this.submissions = submissions;
+            this.grades = grades;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= FORK_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    grades[i] = assignment.grade(submissions.get(i).content(), maxGrade);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new GradeRange(assignment, submissions, grades, from, middle),
+                    new GradeRange(assignment, submissions, grades, middle, to));
+        }
+    }
+}
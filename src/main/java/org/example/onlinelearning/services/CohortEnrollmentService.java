@@ -0,0 +1,233 @@
+package org.example.onlinelearning.services;
+
+import org.example.onlinelearning.dtos.BulkEnrollmentResultDTO;
+import org.example.onlinelearning.exceptions.InvalidRequestException;
+import org.example.onlinelearning.exceptions.NotFoundException;
+import org.example.onlinelearning.repositories.CourseRepository;
+import org.example.onlinelearning.repositories.EnrollmentBatchRepository;
+import org.example.onlinelearning.repositories.EnrollmentRepository;
+import org.example.onlinelearning.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Запись группы пользователей на курс. Id проверяются и вставляются пакетами по chunkSize:
+ * на пакет — два запроса IN (существующие пользователи и уже записанные) и один
+ * многострочный INSERT, каждый пакет в своей транзакции. Ошибка базы в пакете
+ * не откатывает уже записанные пакеты.
+ */
+@Service
+public class CohortEnrollmentService {
+    private final CourseRepository courseRepository;
+    private final UserRepository userRepository;
+    private final EnrollmentRepository enrollmentRepository;
+    private final EnrollmentBatchRepository enrollmentBatchRepository;
+    private final CourseStatsService courseStatsService;
+    private final EnrollmentIndexService enrollmentIndexService;
+    private final TransactionTemplate transaction;
+
+    @Value("${enrollments.bulk.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${enrollments.bulk.max-users:50000}")
+    private int maxUsers;
+
+    public CohortEnrollmentService(
+            CourseRepository courseRepository,
+            UserRepository userRepository,
+            EnrollmentRepository enrollmentRepository,
+            EnrollmentBatchRepository enrollmentBatchRepository,
+            CourseStatsService courseStatsService,
+            EnrollmentIndexService enrollmentIndexService,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.courseRepository = courseRepository;
+        this.userRepository = userRepository;
+        this.enrollmentRepository = enrollmentRepository;
+        this.enrollmentBatchRepository = enrollmentBatchRepository;
+        this.courseStatsService = courseStatsService;
+        this.enrollmentIndexService = enrollmentIndexService;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    public BulkEnrollmentResultDTO enroll(Long courseId, List<Long> userIds) {
+        if (userIds == null) {
+            throw new InvalidRequestException("User ids are required");
+        }
+        return enroll(courseId, userIds.iterator());
+    }
+
+    // CSV читается потоком: в памяти только уникальные id, а не всё тело запроса
+    public BulkEnrollmentResultDTO enrollCsv(Long courseId, Reader csv) {
+        return enroll(courseId, new CsvIds(csv));
+    }
+
+    private BulkEnrollmentResultDTO enroll(Long courseId, Iterator<Long> ids) {
+        if (!courseRepository.existsById(courseId)) {
+            throw new NotFoundException("Course not found with id: " + courseId);
+        }
+
+        // Сначала весь список: превышение лимита не должно оставить курс записанным наполовину
+        Set<Long> unique = new LinkedHashSet<>();
+        int invalid = 0;
+        while (ids.hasNext()) {
+            Long id = ids.next();
+            if (id == null || id <= 0) {
+                invalid++;
+            } else if (unique.add(id) && unique.size() > maxUsers) {
+                throw new InvalidRequestException("Too many users, at most " + maxUsers + " per request");
+            }
+        }
+
+        BulkEnrollmentResultDTO result = new BulkEnrollmentResultDTO();
+        result.setCourseId(courseId);
+        result.setRequested(unique.size());
+        result.setInvalid(invalid);
+
+        LocalDateTime enrollmentTime = LocalDateTime.now();
+        List<Long> chunk = new ArrayList<>(Math.min(chunkSize, unique.size()));
+        for (Long id : unique) {
+            chunk.add(id);
+            if (chunk.size() == chunkSize) {
+                enrollChunk(courseId, chunk, enrollmentTime, result);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            enrollChunk(courseId, chunk, enrollmentTime, result);
+        }
+        return result;
+    }
+
+    private void enrollChunk(Long courseId, List<Long> chunk, LocalDateTime enrollmentTime,
+                             BulkEnrollmentResultDTO result) {
+        ChunkCounts counts;
+        try {
+            counts = transaction.execute(status -> {
+                Set<Long> existing = new HashSet<>(userRepository.findExistingIds(chunk));
+                Set<Long> enrolled = new HashSet<>(enrollmentRepository.findEnrolledUserIds(courseId, chunk));
+
+                List<Long> missing = new ArrayList<>(chunk.size());
+                for (Long id : chunk) {
+                    if (existing.contains(id) && !enrolled.contains(id)) {
+                        missing.add(id);
+                    }
+                }
+
+                // Параллельная запись могла успеть раньше — ON CONFLICT её пропустит
+                List<Long> inserted = missing.isEmpty()
+                        ? List.of()
+                        : enrollmentBatchRepository.insertEnrollments(courseId, missing, enrollmentTime);
+                courseStatsService.enrollmentsAdded(courseId, inserted.size());
+                enrollmentIndexService.enrolledAll(courseId, inserted);
+                return new ChunkCounts(chunk.size() - existing.size(), existing.size() - inserted.size(),
+                        inserted.size());
+            });
+        } catch (DataAccessException | TransactionException e) {
+            System.err.println("Bulk enrollment chunk failed for course " + courseId + ": " + e.getMessage());
+            result.setFailed(result.getFailed() + chunk.size());
+            return;
+        }
+        // Счётчики — только после коммита, чтобы откат пакета не попал в итог
+        result.setUnknownUsers(result.getUnknownUsers() + counts.unknown());
+        result.setAlreadyEnrolled(result.getAlreadyEnrolled() + counts.alreadyEnrolled());
+        result.setEnrolled(result.getEnrolled() + counts.enrolled());
+    }
+
+    private record ChunkCounts(int unknown, int alreadyEnrolled, int enrolled) {
+    }
+
+    /**
+     * Id из CSV: разделители — запятая, точка с запятой и пробельные символы.
+     * Нечисловой первый токен считается заголовком; остальные нечисловые дают null.
+     */
+    private static final class CsvIds implements Iterator<Long> {
+        private final Reader reader;
+        private final StringBuilder token = new StringBuilder();
+        private boolean first = true;
+        private boolean ready;
+        private boolean eof;
+        private Long next;
+
+        CsvIds(Reader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!ready && !eof) {
+                String raw = readToken();
+                if (raw == null) {
+                    eof = true;
+                    break;
+                }
+                Long id = parse(raw);
+                boolean header = first && id == null;
+                first = false;
+                if (!header) {
+                    next = id;
+                    ready = true;
+                }
+            }
+            return ready;
+        }
+
+        @Override
+        public Long next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ready = false;
+            return next;
+        }
+
+        private String readToken() {
+            token.setLength(0);
+            try {
+                int c;
+                while ((c = reader.read()) != -1) {
+                    if (c == ',' || c == ';' || Character.isWhitespace(c)) {
+                        if (!token.isEmpty()) {
+                            return token.toString();
+                        }
+                    } else if (token.length() < 32) {
+                        token.append((char) c);
+                    } else {
+                        // Заведомо не id — дальше не копим
+                        token.setCharAt(0, '?');
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return token.isEmpty() ? null : token.toString();
+        }
+
+        private static Long parse(String raw) {
+            String value = raw.startsWith("\"") && raw.endsWith("\"") && raw.length() > 1
+                    ? raw.substring(1, raw.length() - 1)
+                    : raw;
+            try {
+                return Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+}
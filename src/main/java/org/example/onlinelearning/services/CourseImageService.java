@@ -0,0 +1,178 @@
+package org.example.onlinelearning.services;
+
+import org.example.onlinelearning.enums.ImageSize;
+import org.example.onlinelearning.exceptions.InvalidRequestException;
+import org.example.onlinelearning.repositories.CourseRepository;
+import org.example.onlinelearning.repositories.projections.CourseImageRef;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+
+@Service
+public class CourseImageService {
+    public static final int MAX_IDS_PER_REQUEST = 500;
+    private static final int SCAN_BATCH_SIZE = 100;
+
+    private final CourseRepository courseRepository;
+    private final ImageDerivativeService imageDerivativeService;
+    private final Executor imageExecutor;
+    private final int readParallelism;
+
+    @Autowired
+    public CourseImageService(
+            CourseRepository courseRepository,
+            ImageDerivativeService imageDerivativeService,
+            @Qualifier("courseImageExecutor") Executor imageExecutor,
+            @Value("${courses.images.read-threads:4}") int readParallelism
+    ) {
+        this.courseRepository = courseRepository;
+        this.imageDerivativeService = imageDerivativeService;
+        this.imageExecutor = imageExecutor;
+        this.readParallelism = readParallelism;
+    }
+
+    /**
+     * Пишет изображения курсов в формате NDJSON: одна строка
+     * {@code {"id":"1","contentType":"image/jpeg","data":"<base64>"}} на курс.
+     * Файлы читаются параллельно, но в полёте не больше {@code readParallelism} штук,
+     * и каждая строка уходит клиенту сразу, как только её файл прочитан.
+     * Если указан {@code size}, отдаются готовые превью этого размера.
+     */
+    public void streamImages(List<Long> ids, ImageSize size, OutputStream out) throws IOException {
+        if (ids != null && ids.size() > MAX_IDS_PER_REQUEST) {
+            throw new InvalidRequestException("Too many ids, max is " + MAX_IDS_PER_REQUEST);
+        }
+
+        Iterator<CourseImageRef> refs = ids == null || ids.isEmpty()
+                ? new CatalogScan()
+                : courseRepository.findImageRefsByIdIn(ids).iterator();
+
+        CompletionService<LoadedImage> completion = new ExecutorCompletionService<>(imageExecutor);
+        int inFlight = 0;
+
+        while (refs.hasNext()) {
+            if (inFlight == readParallelism) {
+                writeLine(out, takeNext(completion));
+                inFlight--;
+            }
+            CourseImageRef ref = refs.next();
+            completion.submit(() -> load(ref, size));
+            inFlight++;
+        }
+
+        while (inFlight > 0) {
+            writeLine(out, takeNext(completion));
+            inFlight--;
+        }
+        out.flush();
+    }
+
+    private LoadedImage load(CourseImageRef ref, ImageSize size) {
+        if (ref.getImagePath() == null) {
+            return new LoadedImage(ref.getId(), null, null);
+        }
+        Path path = imageDerivativeService.resolve(Paths.get(ref.getImagePath()), size);
+        try {
+            byte[] bytes = Files.readAllBytes(path);
+            String contentType = MediaTypeFactory.getMediaType(path.getFileName().toString())
+                    .orElse(MediaType.APPLICATION_OCTET_STREAM)
+                    .toString();
+            return new LoadedImage(ref.getId(), contentType, bytes);
+        } catch (NoSuchFileException e) {
+            return new LoadedImage(ref.getId(), null, null);
+        } catch (IOException e) {
+            System.err.println("Error reading image for course " + ref.getId() + ": " + e.getMessage());
+            return new LoadedImage(ref.getId(), null, null);
+        }
+    }
+
+    private LoadedImage takeNext(CompletionService<LoadedImage> completion) throws IOException {
+        try {
+            return completion.take().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Image streaming interrupted");
+        } catch (ExecutionException e) {
+            throw new IOException("Image read failed", e.getCause());
+        }
+    }
+
+    private void writeLine(OutputStream out, LoadedImage image) throws IOException {
+        if (image.bytes() == null) {
+            out.write(("{\"id\":\"" + image.courseId() + "\",\"error\":\"not_found\"}\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+        } else {
+            out.write(("{\"id\":\"" + image.courseId() + "\",\"contentType\":\"" + image.contentType()
+                    + "\",\"data\":\"").getBytes(StandardCharsets.US_ASCII));
+            // Кодируем прямо в ответ, без промежуточной base64-строки
+            OutputStream encoder = Base64.getEncoder().wrap(StreamUtils.nonClosing(out));
+            encoder.write(image.bytes());
+            encoder.close();
+            out.write("\"}\n".getBytes(StandardCharsets.US_ASCII));
+        }
+        out.flush();
+    }
+
+    private record LoadedImage(Long courseId, String contentType, byte[] bytes) {
+    }
+
+    /**
+     * Обходит весь каталог порциями по id, не загружая его в память целиком.
+     */
+    private class CatalogScan implements Iterator<CourseImageRef> {
+        private Iterator<CourseImageRef> batch = List.<CourseImageRef>of().iterator();
+        private Long lastId = 0L;
+        private boolean exhausted = false;
+
+        @Override
+        public boolean hasNext() {
+            if (batch.hasNext()) {
+                return true;
+            }
+            if (exhausted) {
+                return false;
+            }
+            List<CourseImageRef> next = courseRepository.findImageRefsAfterId(
+                    lastId, PageRequest.of(0, SCAN_BATCH_SIZE));
+            if (next.size() < SCAN_BATCH_SIZE) {
+                exhausted = true;
+            }
+            if (next.isEmpty()) {
+                return false;
+            }
+            lastId = next.get(next.size() - 1).getId();
+            batch = next.iterator();
+            return true;
+        }
+
+        @Override
+        public CourseImageRef next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return batch.next();
+        }
+    }
+}
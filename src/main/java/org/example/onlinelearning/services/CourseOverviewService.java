@@ -0,0 +1,112 @@
+package org.example.onlinelearning.services;
+
+import org.example.onlinelearning.dtos.CourseDTO;
+import org.example.onlinelearning.dtos.CourseOverviewDTO;
+import org.example.onlinelearning.dtos.LessonDTO;
+import org.example.onlinelearning.dtos.ReviewDTO;
+import org.example.onlinelearning.exceptions.NotFoundException;
+import org.example.onlinelearning.mappers.CourseMapper;
+import org.example.onlinelearning.models.Course;
+import org.example.onlinelearning.repositories.CourseRepository;
+import org.example.onlinelearning.repositories.EnrollmentRepository;
+import org.example.onlinelearning.repositories.LessonRepository;
+import org.example.onlinelearning.repositories.ReviewRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Сводка для страницы курса. Независимые части (курс с автором и статистикой,
+ * оглавление, отзывы, запись пользователя) читаются параллельно — по одному
+ * SQL-запросу на часть, без повторной загрузки курса в каждой из них.
+ */
+@Service
+public class CourseOverviewService {
+    public static final int DEFAULT_REVIEWS = 10;
+    public static final int MAX_REVIEWS = 50;
+
+    private final CourseRepository courseRepository;
+    private final LessonRepository lessonRepository;
+    private final ReviewRepository reviewRepository;
+    private final EnrollmentRepository enrollmentRepository;
+    private final CourseMapper courseMapper;
+    private final Executor taskExecutor;
+
+    @Autowired
+    public CourseOverviewService(
+            CourseRepository courseRepository,
+            LessonRepository lessonRepository,
+            ReviewRepository reviewRepository,
+            EnrollmentRepository enrollmentRepository,
+            CourseMapper courseMapper,
+            @Qualifier("courseOverviewExecutor") Executor taskExecutor
+    ) {
+        this.courseRepository = courseRepository;
+        this.lessonRepository = lessonRepository;
+        this.reviewRepository = reviewRepository;
+        this.enrollmentRepository = enrollmentRepository;
+        this.courseMapper = courseMapper;
+        this.taskExecutor = taskExecutor;
+    }
+
+    public CourseOverviewDTO getOverview(Long courseId, Long userId, Integer reviewLimit) {
+        int reviews = reviewLimit == null ? DEFAULT_REVIEWS : Math.max(0, Math.min(reviewLimit, MAX_REVIEWS));
+
+        CompletableFuture<Course> courseFuture = CompletableFuture.supplyAsync(
+                () -> courseRepository.findWithAuthorAndStatsById(courseId).orElse(null), taskExecutor);
+        CompletableFuture<List<LessonDTO>> lessonsFuture = CompletableFuture.supplyAsync(
+                () -> loadLessons(courseId), taskExecutor);
+        CompletableFuture<List<ReviewDTO>> reviewsFuture = reviews == 0
+                ? CompletableFuture.completedFuture(List.of())
+                : CompletableFuture.supplyAsync(
+                        () -> reviewRepository.findLatestByCourseId(courseId, PageRequest.of(0, reviews)), taskExecutor);
+        CompletableFuture<Boolean> enrolledFuture = userId == null
+                ? CompletableFuture.completedFuture(null)
+                : CompletableFuture.supplyAsync(
+                        () -> enrollmentRepository.existsByUserIdAndCourseId(userId, courseId), taskExecutor);
+
+        Course course = join(courseFuture);
+        if (course == null) {
+            throw new NotFoundException("Course not found");
+        }
+        CourseDTO courseDTO = courseMapper.toCourseDTO(course);
+
+        CourseOverviewDTO overview = new CourseOverviewDTO();
+        overview.setCourse(courseDTO);
+        overview.setAuthorName(course.getAuthor() != null ? course.getAuthor().getFullname() : null);
+        overview.setImageUrl("/api/courses/" + courseId + "/image");
+        overview.setLessons(join(lessonsFuture));
+        overview.setReviews(join(reviewsFuture));
+        overview.setEnrolled(join(enrolledFuture));
+        return overview;
+    }
+
+    private List<LessonDTO> loadLessons(Long courseId) {
+        return lessonRepository.findSummariesByCourseId(courseId).stream()
+                .map(lesson -> new LessonDTO(
+                        lesson.getId(),
+                        lesson.getCourseId(),
+                        lesson.getTitle(),
+                        null,
+                        lesson.getVideoURL(),
+                        lesson.getLessonOrder()))
+                .toList();
+    }
+
+    private <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.example.onlinelearning.services;
+
+import jakarta.annotation.PostConstruct;
+import org.example.onlinelearning.dtos.CourseProgressDTO;
+import org.example.onlinelearning.models.CourseProgress;
+import org.example.onlinelearning.models.CourseProgressId;
+import org.example.onlinelearning.models.Submission;
+import org.example.onlinelearning.repositories.CourseProgressRepository;
+import org.example.onlinelearning.repositories.SubmissionBatchRepository;
+import org.example.onlinelearning.repositories.SubmissionBatchRepository.ProgressUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Прогресс пользователя по курсу: последний урок, число сданных заданий и время
+ * последней активности. Пишется в транзакции сдачи работы, читается по ключу
+ * (пользователь, курс) — без join по работам, заданиям и урокам.
+ */
+@Service
+public class CourseProgressService {
+    @Autowired
+    private CourseProgressRepository courseProgressRepository;
+    @Autowired
+    private SubmissionBatchRepository submissionBatchRepository;
+
+    // До первой сдачи: схема к этому моменту уже обновлена Hibernate
+    @PostConstruct
+    void backfill() {
+        if (submissionBatchRepository.backfillCompletionsIfEmpty() > 0) {
+            // Счётчики, накопленные до assignment_completions, могли учесть одно задание дважды
+            int fixed = submissionBatchRepository.reconcileCompletedCounts();
+            if (fixed > 0) {
+                System.out.println("Course progress completed counts corrected for " + fixed + " user-course pairs");
+            }
+        }
+        int rows = submissionBatchRepository.backfillProgressIfEmpty();
+        if (rows > 0) {
+            System.out.println("Course progress backfilled for " + rows + " user-course pairs");
+        }
+    }
+
+    // Вызывается в транзакции, сохранившей работы; для пакета — после flush
+    public void submissionsCreated(List<Submission> submissions) {
+        List<ProgressUpdate> updates = new ArrayList<>(submissions.size());
+        for (Submission submission : submissions) {
+            if (submission.getUser() == null || submission.getAssignment() == null) {
+                continue;
+            }
+            updates.add(new ProgressUpdate(submission.getAssignment().getId(),
+                    submission.getUser().getId(), submission.getSubmissionDate()));
+        }
+        if (!updates.isEmpty()) {
+            submissionBatchRepository.upsertProgress(updates);
+        }
+    }
+
+    public void submissionDeleted(Submission submission) {
+        if (submission.getUser() == null || submission.getAssignment() == null) {
+            return;
+        }
+        submissionBatchRepository.removeFromProgress(submission.getId(),
+                submission.getAssignment().getId(), submission.getUser().getId());
+    }
+
+    public CourseProgressDTO getProgress(Long userId, Long courseId) {
+        return courseProgressRepository.findById(new CourseProgressId(userId, courseId))
+                .map(progress -> new CourseProgressDTO(userId, courseId, progress.getLastLessonOrder(),
+                        progress.getLastLessonOrder() + 1, progress.getCompletedCount(), progress.getLastActivity()))
+                .orElseGet(() -> new CourseProgressDTO(userId, courseId, null, 1, 0L, null));
+    }
+
+    // Урок, с которого пользователь продолжает курс: следующий за последним сданным
+    public int nextLessonOrder(Long userId, Long courseId) {
+        return courseProgressRepository.findById(new CourseProgressId(userId, courseId))
+                .map(CourseProgress::getLastLessonOrder)
+                .map(order -> order + 1)
+                .orElse(1);
+    }
+}
@@ -1,58 +1,178 @@
 package org.example.onlinelearning.services;
 
+import org.example.onlinelearning.cache.BoundedCache;
 import org.example.onlinelearning.dtos.CourseDTO;
+import org.example.onlinelearning.dtos.CoursePageDTO;
+import org.example.onlinelearning.exceptions.InvalidRequestException;
 import org.example.onlinelearning.exceptions.NotFoundException;
+import org.example.onlinelearning.exceptions.PayloadTooLargeException;
 import org.example.onlinelearning.mappers.CourseMapper;
 import org.example.onlinelearning.models.Course;
 import org.example.onlinelearning.repositories.CourseRepository;
+import org.example.onlinelearning.repositories.projections.CourseSummary;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
 public class CourseService {
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
     @Autowired
     private CourseRepository courseRepository;
     @Autowired
     private FileStorageService fileStorageService;
     @Autowired
     private CourseMapper courseMapper;
+    @Autowired
+    private ImageDerivativeService imageDerivativeService;
+    @Autowired
+    private CourseStatsService courseStatsService;
+    @Autowired
+    private SearchService searchService;
+    @Autowired
+    private PendingUploadService pendingUploadService;
+    @Autowired
+    private LessonIndexService lessonIndexService;
+    @Autowired
+    private LessonContentService lessonContentService;
+    @Autowired
+    private EnrollmentIndexService enrollmentIndexService;
+
+    @Value("${file.upload.max-image-bytes:10485760}")
+    private long maxImageBytes;
+    @Autowired
+    @Qualifier("courseCache")
+    private BoundedCache<Long, CourseDTO> courseCache;
+    @Autowired
+    @Qualifier("catalogCache")
+    private BoundedCache<String, CoursePageDTO> catalogCache;
 
     public List<CourseDTO> getAllCourses() {
-        return courseRepository.findAll()
-                .stream()
-                .map(courseMapper::toCourseDTO)
+        // Полный список хранится в кэше каталога как страница без продолжения
+        CoursePageDTO all = catalogCache.get("all", key -> new CoursePageDTO(
+                courseRepository.findAll()
+                        .stream()
+                        .map(courseMapper::toCourseDTO)
+                        .collect(Collectors.toList()),
+                null));
+        return all.getItems().stream()
+                .map(courseMapper::copy)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Keyset-пагинация каталога: курсор хранит ключ сортировки и id последнего элемента,
+     * поэтому стоимость страницы не зависит от её номера.
+     */
+    public CoursePageDTO getCoursePage(String cursor, Integer limit, String sort) {
+        String cacheKey = sort + "|" + limit + "|" + cursor;
+        // Поколение фиксируется до загрузки: страница, прочитанная до инвалидации, в кэш не попадёт
+        CoursePageDTO page = catalogCache.get(cacheKey, key -> loadCoursePage(cursor, limit, sort));
+        return copyPage(page);
+    }
+
+    private CoursePageDTO loadCoursePage(String cursor, Integer limit, String sort) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // Берём на одну запись больше, чтобы понять, есть ли следующая страница
+        PageRequest window = PageRequest.of(0, pageSize + 1);
+
+        List<CourseSummary> rows;
+        if ("title".equals(sort)) {
+            if (cursor == null) {
+                rows = courseRepository.findSummariesOrderByTitle(window);
+            } else {
+                String[] key = decodeCursor(cursor, true);
+                rows = courseRepository.findSummariesAfterTitle(key[1], parseCursorId(key[0]), window);
+            }
+        } else if (sort == null || "id".equals(sort)) {
+            Long afterId = cursor == null ? 0L : parseCursorId(decodeCursor(cursor, false)[0]);
+            rows = courseRepository.findSummariesAfterId(afterId, window);
+        } else {
+            throw new InvalidRequestException("Unsupported sort: " + sort);
+        }
+
+        boolean hasNext = rows.size() > pageSize;
+        List<CourseSummary> page = hasNext ? rows.subList(0, pageSize) : rows;
+
+        String next = null;
+        if (hasNext) {
+            CourseSummary last = page.get(page.size() - 1);
+            next = "title".equals(sort)
+                    ? encodeCursor(last.getId() + ":" + last.getTitle())
+                    : encodeCursor(String.valueOf(last.getId()));
+        }
+
+        List<CourseDTO> items = page.stream()
+                .map(courseMapper::summaryToCourseDTO)
+                .toList();
+        return new CoursePageDTO(items, next);
+    }
+
     public CourseDTO getCourseById(Long id) {
-        return courseRepository.findById(id)
+        CourseDTO course = courseCache.get(id, key -> courseRepository.findById(key)
                 .map(courseMapper::toCourseDTO)
-                .orElseThrow(() -> new NotFoundException("Course not found"));
+                .orElse(null));
+        if (course == null) {
+            throw new NotFoundException("Course not found");
+        }
+        return courseMapper.copy(course);
     }
 
     public CourseDTO saveCourse(CourseDTO courseDTO) {
         Course course = courseMapper.toCourse(courseDTO);
-        return courseMapper.toCourseDTO(courseRepository.save(course));
+        CourseDTO saved = courseMapper.toCourseDTO(courseRepository.save(course));
+        invalidateCache(saved.getId());
+        searchService.courseSaved(saved.getId(), saved.getTitle(), saved.getDescription());
+        return saved;
     }
 
     public Boolean deleteCourse(Long id) {
         Optional<Course> course = courseRepository.findById(id);
         if (course.isPresent()) {
             courseRepository.deleteById(id);
+            courseStatsService.courseDeleted(id);
+            invalidateCache(id);
+            searchService.courseDeleted(id);
+            lessonIndexService.courseDeleted(id);
+            lessonContentService.courseDeleted(id);
+            enrollmentIndexService.courseDeleted(id);
+            // Блоб удалится с диска, только если на него больше никто не ссылается
+            fileStorageService.release(course.get().getImagePath());
             return true;
         }
         return false;
     }
 
+    /**
+     * Сущность нужна вызывающим только как ссылка для связи (отзыв, запись на курс),
+     * поэтому для курса из кэша возвращаем прокси без обращения к базе.
+     */
     public Course getCourseEntityById(Long id) {
-        return courseRepository.findById(id)
-                .orElseThrow(() -> new NotFoundException("Course not found"));
+        // Загрузка через get(key, loader) — как и страницы каталога, не перекрывает инвалидацию
+        Course[] loaded = new Course[1];
+        courseCache.get(id, key -> {
+            loaded[0] = courseRepository.findById(key)
+                    .orElseThrow(() -> new NotFoundException("Course not found"));
+            return courseMapper.toCourseDTO(loaded[0]);
+        });
+        return loaded[0] != null ? loaded[0] : courseRepository.getReferenceById(id);
     }
 
     @Transactional
@@ -63,6 +183,7 @@ public class CourseService {
 
         // Первое сохранение для получения ID
         Course savedCourse = courseRepository.save(newCourse);
+        courseStatsService.courseCreated(savedCourse.getId());
 
         // Сохранение изображения
         String imagePath = fileStorageService.storeFile(image, savedCourse.getId());
@@ -70,6 +191,133 @@ public class CourseService {
 
         // Обновление и возврат DTO
         Course updatedCourse = courseRepository.save(savedCourse);
+        invalidateCache(updatedCourse.getId());
+        searchService.courseSaved(updatedCourse.getId(), updatedCourse.getTitle(), updatedCourse.getDescription());
+
+        // Превью генерируем в фоне и только если курс действительно сохранился
+        generateDerivativesAfterCommit(Paths.get(imagePath));
+
         return courseMapper.toCourseDTO(updatedCourse);
     }
+
+    /**
+     * Сбрасывает курс и все страницы каталога. Внутри транзакции сброс повторяется
+     * после коммита: иначе параллельное чтение успело бы закэшировать старые данные.
+     */
+    private void invalidateCache(Long id) {
+        courseCache.invalidate(id);
+        catalogCache.invalidateAll();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    courseCache.invalidate(id);
+                    catalogCache.invalidateAll();
+                }
+            });
+        }
+    }
+
+    private CoursePageDTO copyPage(CoursePageDTO page) {
+        List<CourseDTO> items = page.getItems().stream()
+                .map(courseMapper::copy)
+                .toList();
+        return new CoursePageDTO(items, page.getNext());
+    }
+
+    /**
+     * Принимает изображение потоком до создания курса и возвращает токен загрузки.
+     * Транзакция здесь не открывается вовсе — соединение с базой не держится на время передачи.
+     */
+    public String uploadImage(InputStream body, long contentLength) {
+        checkImageLength(contentLength);
+        Path stored = fileStorageService.storeStream(body, maxImageBytes, MediaSniffer::isImage);
+        return pendingUploadService.register(stored);
+    }
+
+    /**
+     * Создаёт курс по заранее загруженному изображению: в базу идёт одна вставка
+     * с уже известным {@code imagePath}, без второго {@code save()}.
+     */
+    public CourseDTO createCourseFromUpload(CourseDTO courseDTO, String imageToken) {
+        Path imagePath = pendingUploadService.claim(imageToken);
+
+        Course newCourse = courseMapper.toCourse(courseDTO);
+        newCourse.setId(null);
+        newCourse.setRating(String.valueOf(-1));
+        newCourse.setImagePath(imagePath.toString());
+
+        Course savedCourse;
+        try {
+            savedCourse = courseRepository.save(newCourse);
+        } catch (RuntimeException e) {
+            fileStorageService.discard(imagePath.toString());
+            throw e;
+        }
+        courseStatsService.courseCreated(savedCourse.getId());
+
+        invalidateCache(savedCourse.getId());
+        searchService.courseSaved(savedCourse.getId(), savedCourse.getTitle(), savedCourse.getDescription());
+        imageDerivativeService.generateAsync(imagePath);
+        return courseMapper.toCourseDTO(savedCourse);
+    }
+
+    /**
+     * Заменяет изображение курса телом запроса. Файл пишется вне транзакции,
+     * затем путь меняется одним UPDATE с проверкой старого значения.
+     */
+    public CourseDTO replaceImage(Long id, InputStream body, long contentLength) {
+        CourseDTO existing = getCourseById(id);
+        checkImageLength(contentLength);
+        Path stored = fileStorageService.storeStream(body, maxImageBytes, MediaSniffer::isImage);
+
+        if (courseRepository.updateImagePath(id, existing.getImagePath(), stored.toString()) == 0) {
+            fileStorageService.discard(stored.toString());
+            throw new InvalidRequestException("Course image was changed concurrently, retry the upload");
+        }
+        invalidateCache(id);
+        fileStorageService.discard(existing.getImagePath());
+        imageDerivativeService.generateAsync(stored);
+        return getCourseById(id);
+    }
+
+    private void checkImageLength(long contentLength) {
+        // Если клиент заранее сообщил размер, отказываем до чтения тела
+        if (contentLength > maxImageBytes) {
+            throw new PayloadTooLargeException("Image exceeds " + maxImageBytes + " bytes");
+        }
+    }
+
+    private void generateDerivativesAfterCommit(Path imagePath) {
+        TransactionHooks.afterCommit(() -> imageDerivativeService.generateAsync(imagePath));
+    }
+
+    private String encodeCursor(String value) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor, boolean withTitle) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!withTitle) {
+                return new String[]{value};
+            }
+            int separator = value.indexOf(':');
+            if (separator < 0) {
+                throw new InvalidRequestException("Invalid cursor");
+            }
+            return new String[]{value.substring(0, separator), value.substring(separator + 1)};
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Invalid cursor");
+        }
+    }
+
+    private Long parseCursorId(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidRequestException("Invalid cursor");
+        }
+    }
 }
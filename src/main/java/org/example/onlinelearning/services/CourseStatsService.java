@@ -0,0 +1,107 @@
+package org.example.onlinelearning.services;
+
+import org.example.onlinelearning.cache.BoundedCache;
+import org.example.onlinelearning.dtos.CourseDTO;
+import org.example.onlinelearning.repositories.CourseStatsRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Инкрементальное обновление статистики курсов. Методы вызываются из той же
+ * транзакции, что и изменение отзыва, записи или урока, поэтому счётчики
+ * фиксируются или откатываются вместе с ним.
+ */
+@Service
+public class CourseStatsService {
+    private final CourseStatsRepository courseStatsRepository;
+    private final BoundedCache<Long, CourseDTO> courseCache;
+
+    @Autowired
+    public CourseStatsService(
+            CourseStatsRepository courseStatsRepository,
+            @Qualifier("courseCache") BoundedCache<Long, CourseDTO> courseCache
+    ) {
+        this.courseStatsRepository = courseStatsRepository;
+        this.courseCache = courseCache;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillMissing() {
+        int created = courseStatsRepository.backfillMissing();
+        if (created > 0) {
+            System.out.println("Initialized stats for " + created + " courses");
+        }
+    }
+
+    public void courseCreated(Long courseId) {
+        increment(courseId, 0, 0, 0, 0, 0);
+    }
+
+    public void reviewAdded(Long courseId, Integer rating) {
+        applyRating(courseId, rating, 1);
+    }
+
+    public void reviewRemoved(Long courseId, Integer rating) {
+        applyRating(courseId, rating, -1);
+    }
+
+    public void reviewChanged(Long courseId, Integer oldRating, Integer newRating) {
+        if (oldRating != null && oldRating.equals(newRating)) {
+            return;
+        }
+        applyRating(courseId, oldRating, -1);
+        applyRating(courseId, newRating, 1);
+    }
+
+    public void enrollmentAdded(Long courseId) {
+        increment(courseId, 0, 0, 0, 1, 0);
+    }
+
+    public void enrollmentsAdded(Long courseId, int count) {
+        if (count > 0) {
+            increment(courseId, 0, 0, 0, count, 0);
+        }
+    }
+
+    public void enrollmentRemoved(Long courseId) {
+        increment(courseId, 0, 0, 0, -1, 0);
+    }
+
+    public void lessonAdded(Long courseId) {
+        increment(courseId, 0, 0, 0, 0, 1);
+    }
+
+    public void lessonRemoved(Long courseId) {
+        increment(courseId, 0, 0, 0, 0, -1);
+    }
+
+    public void courseDeleted(Long courseId) {
+        courseStatsRepository.deleteById(courseId);
+    }
+
+    private void applyRating(Long courseId, Integer rating, int sign) {
+        if (rating == null) {
+            return;
+        }
+        increment(courseId, sign, (long) sign * rating, rating, 0, 0);
+    }
+
+    private void increment(Long courseId, int reviews, long ratingSum, int rating, int enrollments, int lessons) {
+        if (courseId == null) {
+            return;
+        }
+        long[] histogram = new long[5];
+        if (rating >= 1 && rating <= 5) {
+            histogram[rating - 1] = reviews;
+        }
+        courseStatsRepository.increment(courseId, reviews, ratingSum,
+                histogram[0], histogram[1], histogram[2], histogram[3], histogram[4],
+                enrollments, lessons);
+        // Карточка курса показывает счётчики — сбрасываем её после коммита, иначе параллельное
+        // чтение успело бы закэшировать счётчики до коммита; страницы каталога догонят по TTL
+        TransactionHooks.afterCommit(() -> courseCache.invalidate(courseId));
+    }
+}
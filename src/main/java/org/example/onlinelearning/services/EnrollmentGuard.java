@@ -0,0 +1,166 @@
+package org.example.onlinelearning.services;
+
+import org.example.onlinelearning.cache.BoundedCache;
+import org.example.onlinelearning.config.JwtTokenProvider;
+import org.example.onlinelearning.exceptions.SecurityException;
+import org.example.onlinelearning.repositories.AssignmentRepository;
+import org.example.onlinelearning.repositories.LessonRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Доступ к материалам курса только для записанных на него. Членство проверяется
+ * по {@link EnrollmentIndexService} без запроса к базе; преподаватели и администраторы
+ * проходят без проверки. Курс урока и урок задания кэшируются: путь запроса, где
+ * известен только id урока или задания, тоже обходится без базы.
+ * Видео отдаётся и по короткоживущей подписанной ссылке: тег {@code <video>}
+ * не умеет передавать заголовок Authorization.
+ */
+@Service
+public class EnrollmentGuard {
+    private static final long MISSING = -1L;
+
+    private final JwtTokenProvider jwtTokenProvider;
+    private final EnrollmentIndexService enrollmentIndexService;
+    private final LessonRepository lessonRepository;
+    private final AssignmentRepository assignmentRepository;
+    private final BoundedCache<Long, Long> lessonCourses;
+    private final BoundedCache<Long, Long> assignmentLessons;
+    private final boolean required;
+    private final byte[] videoTokenKey;
+    private final long videoTokenTtlSeconds;
+
+    public EnrollmentGuard(
+            JwtTokenProvider jwtTokenProvider,
+            EnrollmentIndexService enrollmentIndexService,
+            LessonRepository lessonRepository,
+            AssignmentRepository assignmentRepository,
+            @Value("${enrollments.guard.enabled:true}") boolean required,
+            @Value("${enrollments.guard.cache-max-size:100000}") int maxSize,
+            @Value("${enrollments.guard.ttl-seconds:600}") long ttlSeconds,
+            @Value("${enrollments.guard.video-token-ttl-seconds:7200}") long videoTokenTtlSeconds
+    ) {
+        this.jwtTokenProvider = jwtTokenProvider;
+        this.enrollmentIndexService = enrollmentIndexService;
+        this.lessonRepository = lessonRepository;
+        this.assignmentRepository = assignmentRepository;
+        this.required = required;
+        this.lessonCourses = new BoundedCache<>(maxSize, ttlSeconds * 1000);
+        this.assignmentLessons = new BoundedCache<>(maxSize, ttlSeconds * 1000);
+        // Отдельный ключ от секрета JWT: подпись ссылки не годится как токен входа и наоборот
+        this.videoTokenKey = ("lesson-video:" + jwtTokenProvider.getJwtConfig().getSecret())
+                .getBytes(StandardCharsets.UTF_8);
+        this.videoTokenTtlSeconds = videoTokenTtlSeconds;
+    }
+
+    public void checkCourse(String authHeader, Long courseId) {
+        if (!required || courseId == null) {
+            return;
+        }
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            throw new SecurityException("Authorization required");
+        }
+        String token = authHeader.substring(7);
+        // Просроченный или поддельный токен — 403, а не 500 из парсера JWT
+        if (!jwtTokenProvider.validateToken(token)) {
+            throw new SecurityException("Invalid or expired token");
+        }
+        String role = jwtTokenProvider.getRole(token);
+        if ("TEACHER".equalsIgnoreCase(role) || "ADMIN".equalsIgnoreCase(role)) {
+            return;
+        }
+        if (!enrollmentIndexService.isEnrolled(jwtTokenProvider.getUserId(token), courseId)) {
+            throw new SecurityException("Not enrolled in course " + courseId);
+        }
+    }
+
+    // Урока или задания нет — пропускаем: обработчик сам ответит 404
+    public void checkLesson(String authHeader, Long lessonId) {
+        if (!required || lessonId == null) {
+            return;
+        }
+        Long courseId = lessonCourses.get(lessonId, id -> lessonRepository.findCourseIdById(id).orElse(MISSING));
+        if (courseId != MISSING) {
+            checkCourse(authHeader, courseId);
+        }
+    }
+
+    public void checkAssignment(String authHeader, Long assignmentId) {
+        if (!required || assignmentId == null) {
+            return;
+        }
+        Long lessonId = assignmentLessons.get(assignmentId, id -> assignmentRepository.findLessonIdById(id).orElse(MISSING));
+        if (lessonId != MISSING) {
+            checkLesson(authHeader, lessonId);
+        }
+    }
+
+    /**
+     * Подписанный токен для ссылки на видео урока: {@code <срок>.<HMAC(урок, срок)>}.
+     * Выдаётся только тому, кто сейчас проходит {@link #checkLesson}.
+     */
+    public String lessonVideoToken(String authHeader, Long lessonId) {
+        checkLesson(authHeader, lessonId);
+        long expiresAt = Instant.now().getEpochSecond() + videoTokenTtlSeconds;
+        return expiresAt + "." + sign(lessonId, expiresAt);
+    }
+
+    public long getVideoTokenTtlSeconds() {
+        return videoTokenTtlSeconds;
+    }
+
+    // Видео: либо подписанная ссылка, либо обычная проверка по заголовку
+    public void checkLessonVideo(String authHeader, String videoToken, Long lessonId) {
+        if (!required || lessonId == null) {
+            return;
+        }
+        if (videoToken == null) {
+            checkLesson(authHeader, lessonId);
+            return;
+        }
+        int dot = videoToken.indexOf('.');
+        long expiresAt;
+        try {
+            expiresAt = Long.parseLong(videoToken.substring(0, dot));
+        } catch (RuntimeException e) {
+            throw new SecurityException("Invalid video token");
+        }
+        byte[] expected = sign(lessonId, expiresAt).getBytes(StandardCharsets.US_ASCII);
+        byte[] actual = videoToken.substring(dot + 1).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(expected, actual)) {
+            throw new SecurityException("Invalid video token");
+        }
+        if (expiresAt < Instant.now().getEpochSecond()) {
+            throw new SecurityException("Video token expired");
+        }
+    }
+
+    private String sign(Long lessonId, long expiresAt) {
+        try {
+            // Mac не потокобезопасен, а создание дешевле запроса к базе
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(videoTokenKey, "HmacSHA256"));
+            byte[] signature = mac.doFinal((lessonId + ":" + expiresAt).getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    // Урок перенесли в другой курс или удалили
+    public void lessonChanged(Long lessonId) {
+        TransactionHooks.afterCommit(() -> lessonCourses.invalidate(lessonId));
+    }
+
+    public void assignmentChanged(Long assignmentId) {
+        TransactionHooks.afterCommit(() -> assignmentLessons.invalidate(assignmentId));
+    }
+}
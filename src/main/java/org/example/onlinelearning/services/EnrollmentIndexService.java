@@ -0,0 +1,128 @@
+package org.example.onlinelearning.services;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.example.onlinelearning.repositories.EnrollmentBatchRepository;
+import org.example.onlinelearning.repositories.EnrollmentRepository;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Кто на какой курс записан — по одной сжатой битовой карте id пользователей на курс.
+ * Загружается при старте одним потоковым проходом по enrollments и дальше обновляется
+ * после коммитов записи и отписки. Карты не меняются после публикации: запись подменяет
+ * карту курса копией, поэтому проверка членства идёт без блокировок и без базы.
+ */
+@Service
+public class EnrollmentIndexService {
+    private final EnrollmentRepository enrollmentRepository;
+    private final EnrollmentBatchRepository enrollmentBatchRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Map<Long, RoaringBitmap> members = new ConcurrentHashMap<>();
+
+    @Value("${enrollments.index.fetch-size:5000}")
+    private int fetchSize;
+
+    public EnrollmentIndexService(
+            EnrollmentRepository enrollmentRepository,
+            EnrollmentBatchRepository enrollmentBatchRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry registry
+    ) {
+        this.enrollmentRepository = enrollmentRepository;
+        this.enrollmentBatchRepository = enrollmentBatchRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        Gauge.builder("enrollments.index.courses", members, Map::size).register(registry);
+        // Считается только при съёме метрик
+        Gauge.builder("enrollments.index.bytes", members, map -> map.values().stream()
+                .mapToLong(RoaringBitmap::getLongSizeInBytes).sum()).register(registry);
+    }
+
+    // До приёма запросов: пока индекс не загружен, ответы были бы неверными
+    @PostConstruct
+    void load() {
+        long started = System.nanoTime();
+        Map<Long, RoaringBitmap> loaded = new HashMap<>();
+        readOnlyTransaction.executeWithoutResult(status ->
+                enrollmentBatchRepository.scanMemberships(fetchSize, rs -> {
+                    long userId = rs.getLong("user_id");
+                    if (fitsInIndex(userId)) {
+                        loaded.computeIfAbsent(rs.getLong("course_id"), id -> new RoaringBitmap())
+                                .add((int) userId);
+                    }
+                }));
+        loaded.values().forEach(RoaringBitmap::runOptimize);
+        members.putAll(loaded);
+        System.out.println("Enrollment index loaded for " + loaded.size() + " courses in "
+                + (System.nanoTime() - started) / 1_000_000 + " ms");
+    }
+
+    public boolean isEnrolled(Long userId, Long courseId) {
+        if (userId == null || courseId == null) {
+            return false;
+        }
+        if (!fitsInIndex(userId)) {
+            return enrollmentRepository.existsByUserIdAndCourseId(userId, courseId);
+        }
+        RoaringBitmap course = members.get(courseId);
+        return course != null && course.contains((int) (long) userId);
+    }
+
+    public void enrolled(Long userId, Long courseId) {
+        if (userId == null || courseId == null || !fitsInIndex(userId)) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> members.compute(courseId, (id, current) -> {
+            RoaringBitmap updated = current == null ? new RoaringBitmap() : current.clone();
+            updated.add((int) (long) userId);
+            return updated;
+        }));
+    }
+
+    // Пакетная запись: одна копия карты курса на весь пакет
+    public void enrolledAll(Long courseId, Collection<Long> userIds) {
+        if (courseId == null || userIds.isEmpty()) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> members.compute(courseId, (id, current) -> {
+            RoaringBitmap updated = current == null ? new RoaringBitmap() : current.clone();
+            for (Long userId : userIds) {
+                if (userId != null && fitsInIndex(userId)) {
+                    updated.add((int) (long) userId);
+                }
+            }
+            updated.runOptimize();
+            return updated;
+        }));
+    }
+
+    public void unenrolled(Long userId, Long courseId) {
+        if (userId == null || courseId == null || !fitsInIndex(userId)) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> members.computeIfPresent(courseId, (id, current) -> {
+            RoaringBitmap updated = current.clone();
+            updated.remove((int) (long) userId);
+            return updated.isEmpty() ? null : updated;
+        }));
+    }
+
+    public void courseDeleted(Long courseId) {
+        TransactionHooks.afterCommit(() -> members.remove(courseId));
+    }
+
+    // id пользователей выдаёт последовательность и пока укладываются в int; большие проверяются по базе
+    private static boolean fitsInIndex(long userId) {
+        return userId >= 0 && userId <= Integer.MAX_VALUE;
+    }
+}
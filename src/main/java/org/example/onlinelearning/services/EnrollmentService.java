@@ -1,40 +1,52 @@
 package org.example.onlinelearning.services;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.example.onlinelearning.dtos.EnrollmentDTO;
+import org.example.onlinelearning.dtos.UserEnrollmentDTO;
+import org.example.onlinelearning.dtos.UserEnrollmentPageDTO;
+import org.example.onlinelearning.exceptions.InvalidRequestException;
 import org.example.onlinelearning.exceptions.NotFoundException;
 import org.example.onlinelearning.mappers.EnrollmentMapper;
 import org.example.onlinelearning.models.Enrollment;
-import org.example.onlinelearning.models.Lesson;
-import org.example.onlinelearning.models.Submission;
 import org.example.onlinelearning.repositories.EnrollmentRepository;
+import org.example.onlinelearning.repositories.projections.UserEnrollmentRow;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
 import java.util.Optional;
 
 @Service
 public class EnrollmentService {
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
     private final EnrollmentRepository enrollmentRepository;
     private final EnrollmentMapper enrollmentMapper;
-    private final UserService userService;
-    private final CourseService courseService;
-    private final SubmissionService submissionService;
+    private final CourseProgressService courseProgressService;
+    private final CourseStatsService courseStatsService;
+    private final EnrollmentIndexService enrollmentIndexService;
 
     @Autowired
     public EnrollmentService(
             EnrollmentRepository enrollmentRepository,
             EnrollmentMapper enrollmentMapper,
-            UserService userService,
-            CourseService courseService,
-            SubmissionService submissionService
+            CourseProgressService courseProgressService,
+            CourseStatsService courseStatsService,
+            EnrollmentIndexService enrollmentIndexService
             ) {
         this.enrollmentRepository = enrollmentRepository;
         this.enrollmentMapper = enrollmentMapper;
-        this.userService = userService;
-        this.courseService = courseService;
-        this.submissionService = submissionService;
+        this.courseProgressService = courseProgressService;
+        this.courseStatsService = courseStatsService;
+        this.enrollmentIndexService = enrollmentIndexService;
     }
 
     public EnrollmentDTO getEnrollmentById(Long id) {
@@ -43,50 +55,101 @@ public class EnrollmentService {
         return enrollmentMapper.toEnrollmentDTO(enrollment);
     }
 
-    public EnrollmentDTO createEnrollment(Long courseId, EnrollmentDTO enrollmentDTO) {
-        Enrollment enrollment = enrollmentMapper.toEnrollment(enrollmentDTO);
-
-        enrollment.setUser(
-                userService.getUserEntityById(enrollmentDTO.getUserId())
-        );
-
-        enrollment.setCourse(
-                courseService.getCourseEntityById(courseId)
-        );
-
-        enrollment.setEnrollmentTime(LocalDateTime.now());
+    @Transactional
+    public void deleteEnrollment(Long id) {
+        Enrollment enrollment = enrollmentRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Enrollment not found with id: " + id));
+        enrollmentRepository.delete(enrollment);
+        if (enrollment.getCourse() != null) {
+            courseStatsService.enrollmentRemoved(enrollment.getCourse().getId());
+            if (enrollment.getUser() != null) {
+                enrollmentIndexService.unenrolled(enrollment.getUser().getId(), enrollment.getCourse().getId());
+            }
+        }
+    }
 
-        Enrollment savedEnrollment = enrollmentRepository.save(enrollment);
-        return enrollmentMapper.toEnrollmentDTO(savedEnrollment);
+    public record EnrollmentResult(boolean created, int lessonOrder) {
     }
 
-    public void deleteEnrollment(Long id) {
-        if (!enrollmentRepository.existsById(id)) {
-            throw new NotFoundException("Enrollment not found with id: " + id);
+    @PostConstruct
+    void ensureUniqueEnrollments() {
+        // Дубли, успевшие появиться до ограничения, мешают создать уникальный индекс
+        int courses = enrollmentRepository.deleteDuplicates();
+        if (courses > 0) {
+            System.out.println("Removed duplicate enrollments in " + courses + " courses");
         }
-        enrollmentRepository.deleteById(id);
+        enrollmentRepository.createUniqueIndex();
     }
 
-    public int processEnrollment(Long courseId, EnrollmentDTO enrollmentDTO) {
+    /**
+     * Записывает на курс или, если запись уже есть, возвращает урок для продолжения.
+     * Запись — одна вставка ON CONFLICT DO NOTHING: одновременные клики не создают дублей,
+     * а пользователь и курс не читаются — их проверяют внешние ключи.
+     */
+    @Transactional
+    public EnrollmentResult processEnrollment(Long courseId, EnrollmentDTO enrollmentDTO) {
         Long userId = enrollmentDTO.getUserId();
+        if (userId == null) {
+            throw new InvalidRequestException("userId is required");
+        }
 
-        // Проверяем существующую запись
-        boolean isEnrolled = enrollmentRepository.existsByUserIdAndCourseId(userId, courseId);
-
-        if (!isEnrolled) {
-            createEnrollment(courseId, enrollmentDTO);
-            return 1;
+        Optional<Long> created;
+        try {
+            created = enrollmentRepository.insertIfAbsent(userId, courseId, LocalDateTime.now());
+        } catch (DataIntegrityViolationException e) {
+            throw new NotFoundException("User or course not found");
+        }
+        if (created.isPresent()) {
+            courseStatsService.enrollmentAdded(courseId);
+            enrollmentIndexService.enrolled(userId, courseId);
+            return new EnrollmentResult(true, 1);
         }
 
-        // Получаем последний пройденный урок
-        Submission latestSubmission = submissionService.findLatestSubmission(userId, courseId);
+        // Следующий урок после последнего сданного — одно чтение по ключу
+        return new EnrollmentResult(false, courseProgressService.nextLessonOrder(userId, courseId));
+    }
 
-        if (latestSubmission == null) {
-            return 1;
-        }
+    /**
+     * «Моё обучение»: курсы пользователя с прогрессом, от последних записей к первым.
+     * Страница — один запрос; курсор — id последней записи страницы.
+     */
+    public UserEnrollmentPageDTO getUserEnrollments(Long userId, String cursor, Integer limit) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        long beforeId = cursor == null ? Long.MAX_VALUE : decodeCursor(cursor);
+        // Берём на одну запись больше, чтобы понять, есть ли следующая страница
+        List<UserEnrollmentRow> rows = enrollmentRepository.findUserEnrollmentsBefore(
+                userId, beforeId, PageRequest.of(0, pageSize + 1));
+
+        boolean hasNext = rows.size() > pageSize;
+        List<UserEnrollmentRow> page = hasNext ? rows.subList(0, pageSize) : rows;
+        String next = hasNext ? encodeCursor(page.get(page.size() - 1).getEnrollmentId()) : null;
+
+        List<UserEnrollmentDTO> items = page.stream()
+                .map(EnrollmentService::toUserEnrollmentDTO)
+                .toList();
+        return new UserEnrollmentPageDTO(items, next);
+    }
 
-        // Получаем следующий порядковый номер урока
-        Lesson lesson = latestSubmission.getAssignment().getLesson();
-        return lesson.getLessonOrder() + 1;
+    private static UserEnrollmentDTO toUserEnrollmentDTO(UserEnrollmentRow row) {
+        long total = row.getAssignmentCount() == null ? 0 : row.getAssignmentCount();
+        long completed = row.getCompletedCount() == null ? 0 : row.getCompletedCount();
+        int percent = total == 0 ? 0 : (int) Math.min(100, completed * 100 / total);
+        int resume = row.getLastLessonOrder() == null ? 1 : row.getLastLessonOrder() + 1;
+        return new UserEnrollmentDTO(row.getEnrollmentId(), row.getCourseId(), row.getTitle(), row.getImagePath(),
+                row.getEnrollmentTime(), percent, completed, total, resume, row.getLastActivity());
+    }
+
+    private static String encodeCursor(Long enrollmentId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.valueOf(enrollmentId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long decodeCursor(String cursor) {
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException — тоже IllegalArgumentException
+            throw new InvalidRequestException("Invalid cursor");
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,240 @@
+package org.example.onlinelearning.services;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.onlinelearning.exceptions.NotFoundException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Отдача файлов из хранилища: валидаторы кэша, условные запросы, Range и sendfile.
+ * Метаданные файлов держатся в памяти, так что ответ 304 не трогает диск.
+ */
+@Service
+public class FileDeliveryService {
+    // Атрибуты, через которые Tomcat принимает sendfile от приложения
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    // Мелкие файлы дешевле отдать обычной записью, как делает DefaultServlet
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+    private static final int MAX_CACHED_ENTRIES = 100_000;
+    private static final Pattern BLOB_NAME = Pattern.compile("^([0-9a-f]{64})\\.[a-z0-9]+$");
+
+    private static final Map<String, MediaType> EXTRA_TYPES = Map.of(
+            "avif", MediaType.parseMediaType("image/avif"),
+            "webp", MediaType.parseMediaType("image/webp"),
+            "mp4", MediaType.parseMediaType("video/mp4"),
+            "webm", MediaType.parseMediaType("video/webm")
+    );
+
+    private final Map<Path, FileMetadata> metadataCache = new ConcurrentHashMap<>();
+
+    public record FileMetadata(long size, long lastModified, String etag, MediaType contentType) {
+    }
+
+    public FileMetadata getMetadata(Path path) {
+        Path key = path.toAbsolutePath().normalize();
+        FileMetadata cached = metadataCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+            long lastModified = attributes.lastModifiedTime().toMillis();
+            String etag = etagFor(key, attributes.size(), lastModified);
+            FileMetadata metadata = new FileMetadata(attributes.size(), lastModified, etag, detectContentType(key));
+
+            if (metadataCache.size() >= MAX_CACHED_ENTRIES) {
+                metadataCache.clear();
+            }
+            metadataCache.put(key, metadata);
+            return metadata;
+        } catch (NoSuchFileException e) {
+            throw new NotFoundException("File not found: " + path.getFileName());
+        } catch (IOException e) {
+            throw new NotFoundException("File is not readable: " + path.getFileName());
+        }
+    }
+
+    public void evict(Path path) {
+        metadataCache.remove(path.toAbsolutePath().normalize());
+    }
+
+    public void serve(HttpServletRequest request, HttpServletResponse response,
+                      Path path, CacheControl cacheControl) throws IOException {
+        serve(request, response, path, cacheControl, Long.MAX_VALUE, true);
+    }
+
+    /**
+     * То же, но диапазон длиннее {@code maxRangeLength} обрезается: на «bytes=0-» плеер
+     * получает 206 с первым куском и сам запрашивает следующий. Так один запрос
+     * не держит поток и диск на время всего просмотра. Без {@code sendfile} тело
+     * пишется до возврата из метода — вызывающий знает, когда отдача закончилась.
+     */
+    public void serve(HttpServletRequest request, HttpServletResponse response,
+                      Path path, CacheControl cacheControl, long maxRangeLength, boolean sendfile) throws IOException {
+        FileMetadata metadata = getMetadata(path);
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        // Сам выставляет ETag/Last-Modified и отвечает 304 или 412
+        ServletWebRequest webRequest = new ServletWebRequest(request, response);
+        if (webRequest.checkNotModified(metadata.etag(), metadata.lastModified())) {
+            return;
+        }
+
+        long size = metadata.size();
+        long start = 0;
+        long end = size - 1;
+        boolean partial = false;
+
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && isIfRangeSatisfied(request, metadata)) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException e) {
+                // Некорректный Range игнорируем и отдаём файл целиком
+                ranges = List.of();
+            }
+            // Несколько диапазонов сразу не поддерживаем: RFC 9110 разрешает ответить 200
+            if (ranges.size() == 1) {
+                try {
+                    start = ranges.get(0).getRangeStart(size);
+                    end = ranges.get(0).getRangeEnd(size);
+                    if (end - start + 1 > maxRangeLength) {
+                        end = start + maxRangeLength - 1;
+                    }
+                } catch (IllegalArgumentException e) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                    response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                    return;
+                }
+                partial = true;
+            }
+        }
+
+        long length = end - start + 1;
+        response.setContentType(metadata.contentType().toString());
+        response.setContentLengthLong(length);
+        if (partial) {
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        }
+
+        if ("HEAD".equalsIgnoreCase(request.getMethod()) || length == 0) {
+            return;
+        }
+
+        if (sendfile && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT)) && length >= SENDFILE_MIN_SIZE) {
+            // Tomcat отправит файл через sendfile после выхода из контроллера
+            request.setAttribute(SENDFILE_FILENAME, path.toAbsolutePath().normalize().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        transfer(path, start, length, response);
+    }
+
+    private void transfer(Path path, long start, long length, HttpServletResponse response) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            evict(path);
+            response.reset();
+            throw new NotFoundException("File not found: " + path.getFileName());
+        }
+
+        try (channel) {
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, target);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    private String etagFor(Path path, long size, long lastModified) {
+        // Блобы из хранилища по содержимому неизменяемы: хэш в имени — готовый сильный ETag
+        Matcher blobName = BLOB_NAME.matcher(path.getFileName().toString());
+        if (blobName.matches()) {
+            return "\"" + blobName.group(1) + "\"";
+        }
+        return "\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModified) + "\"";
+    }
+
+    private boolean isIfRangeSatisfied(HttpServletRequest request, FileMetadata metadata) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(metadata.etag());
+        }
+        try {
+            long ifRangeDate = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return ifRangeDate != -1 && metadata.lastModified() / 1000 <= ifRangeDate / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private MediaType detectContentType(Path path) {
+        String fileName = path.getFileName().toString();
+        MediaType byName = MediaTypeFactory.getMediaType(fileName).orElse(null);
+        if (byName != null) {
+            return byName;
+        }
+
+        int dot = fileName.lastIndexOf('.');
+        if (dot >= 0) {
+            MediaType extra = EXTRA_TYPES.get(fileName.substring(dot + 1).toLowerCase());
+            if (extra != null) {
+                return extra;
+            }
+        }
+
+        try {
+            String probed = Files.probeContentType(path);
+            if (probed != null) {
+                return MediaType.parseMediaType(probed);
+            }
+        } catch (IOException ignored) {
+            // Тип не определился — отдаём как бинарный поток
+        }
+        return MediaType.APPLICATION_OCTET_STREAM;
+    }
+}
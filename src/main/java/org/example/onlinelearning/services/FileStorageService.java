@@ -1,30 +1,87 @@
 package org.example.onlinelearning.services;
 
 import org.example.onlinelearning.exceptions.FileStorageException;
+import org.example.onlinelearning.exceptions.InvalidRequestException;
+import org.example.onlinelearning.exceptions.PayloadTooLargeException;
+import org.example.onlinelearning.models.StoredBlob;
+import org.example.onlinelearning.repositories.StoredBlobRepository;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
 
 @Service
 public class FileStorageService {
+    public static final String MODE_FLAT = "flat";
+    public static final String MODE_CONTENT_ADDRESSED = "content-addressed";
+
+    private static final String BLOBS_DIR = "blobs";
+    private static final Pattern BLOB_NAME = Pattern.compile("^([0-9a-f]{64})(\\.[a-z0-9]+)?$");
+    private static final int LOCK_STRIPES = 64;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
 
     @Value("${file.upload-dir:uploads}")
     private String uploadDir;
 
+    @Value("${file.storage-mode:flat}")
+    private String storageMode;
+
+    @Autowired
+    private FileDeliveryService fileDeliveryService;
+
+    @Autowired
+    private ImageDerivativeService imageDerivativeService;
+
+    @Autowired
+    private StoredBlobRepository storedBlobRepository;
+
+    // Операции над одним блобом (дедупликация, удаление) сериализуем по хэшу
+    private final Object[] blobLocks = new Object[LOCK_STRIPES];
+
+    {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            blobLocks[i] = new Object();
+        }
+    }
+
+    public boolean isContentAddressed() {
+        return MODE_CONTENT_ADDRESSED.equals(storageMode);
+    }
+
     public String storeFile(MultipartFile file, Long courseId) {
         try {
+            if (isContentAddressed()) {
+                try (InputStream in = file.getInputStream()) {
+                    return storeBlob(in).toString();
+                }
+            }
+
             String fileName = generateFileName(courseId, Objects.requireNonNull(file.getOriginalFilename()));
             Path targetLocation = Paths.get(uploadDir).resolve("courses").resolve(fileName);
 
             Files.createDirectories(targetLocation.getParent());
             Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+            // Файл мог замениться на месте — сбрасываем закэшированные ETag и размер,
+            // а заодно устаревшие превью
+            fileDeliveryService.evict(targetLocation);
+            imageDerivativeService.deleteDerivatives(targetLocation);
 
             return targetLocation.toString();
         } catch (IOException ex) {
@@ -32,8 +89,293 @@ public class FileStorageService {
         }
     }
 
+    /**
+     * Сохраняет поток в хранилище по содержимому за один проход: SHA-256 считается
+     * во время копирования во временный файл, затем файл атомарно переносится
+     * в {@code blobs/ab/cd/<hash>.<ext>}. Одинаковое содержимое хранится один раз,
+     * ссылки на него считаются в {@code stored_blobs}.
+     */
+    public Path storeBlob(InputStream in) throws IOException {
+        Path temp = createTempFile();
+        try {
+            Received received = receive(in, temp, Long.MAX_VALUE, extension -> true);
+            return commitBlob(temp, received.hash(), blobExtension(received.extension()), received.size());
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Принимает тело запроса прямо в хранилище, без multipart-буферизации.
+     * Тип проверяется по первым байтам ещё до записи остального файла,
+     * размер — по мере чтения, так что лишнее не пишется на диск.
+     * В плоском режиме файл получает случайное имя: id курса на этот момент может быть неизвестен.
+     */
+    public Path storeStream(InputStream in, long maxBytes, Predicate<String> acceptType) {
+        return storeStream(in, maxBytes, acceptType, "courses");
+    }
+
+    // flatDirectory — подкаталог uploads для плоского режима (courses, lessons)
+    public Path storeStream(InputStream in, long maxBytes, Predicate<String> acceptType, String flatDirectory) {
+        try {
+            Path temp = createTempFile();
+            try {
+                Received received = receive(in, temp, maxBytes, acceptType);
+                if (isContentAddressed()) {
+                    return commitBlob(temp, received.hash(), blobExtension(received.extension()), received.size());
+                }
+                Path target = Paths.get(uploadDir).resolve(flatDirectory)
+                        .resolve("upload-" + UUID.randomUUID() + blobExtension(received.extension()));
+                Files.createDirectories(target.getParent());
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                return target;
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not store uploaded file", ex);
+        }
+    }
+
+    /**
+     * Переносит в хранилище файл, собранный на диске (например, из чанков возобновляемой загрузки).
+     * Сам файл перемещается, а не копируется; хэш для режима по содержимому
+     * считается отдельным чтением, потому что чанки приходили не по порядку.
+     * flatDirectory — как в {@link #storeStream(InputStream, long, Predicate, String)}.
+     */
+    public Path importFile(Path assembled, Predicate<String> acceptType, String flatDirectory) {
+        try {
+            try {
+                Received received = digestFile(assembled);
+                if (!acceptType.test(received.extension())) {
+                    throw new InvalidRequestException("Unsupported file type");
+                }
+                if (isContentAddressed()) {
+                    return commitBlob(assembled, received.hash(), blobExtension(received.extension()), received.size());
+                }
+                Path target = Paths.get(uploadDir).resolve(flatDirectory)
+                        .resolve("upload-" + UUID.randomUUID() + blobExtension(received.extension()));
+                Files.createDirectories(target.getParent());
+                Files.move(assembled, target, StandardCopyOption.ATOMIC_MOVE);
+                return target;
+            } finally {
+                // Если такой блоб уже был, собранная копия не нужна
+                Files.deleteIfExists(assembled);
+            }
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not store assembled file", ex);
+        }
+    }
+
+    /**
+     * Убирает файл, на который больше не ссылается ни один курс:
+     * блоб теряет одну ссылку, файл плоского формата удаляется вместе с превью.
+     */
+    public void discard(String storedPath) {
+        if (storedPath == null) {
+            return;
+        }
+        if (isBlobPath(storedPath)) {
+            release(storedPath);
+            return;
+        }
+        Path path = Paths.get(storedPath);
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            System.err.println("Could not delete file " + path + ": " + e.getMessage());
+        }
+        fileDeliveryService.evict(path);
+        imageDerivativeService.deleteDerivatives(path);
+    }
+
+    /**
+     * Переносит уже лежащий на диске файл (старый плоский формат) в хранилище по содержимому.
+     * Оригинал не удаляется: на блоб ставится жёсткая ссылка, чтобы до обновления
+     * {@code imagePath} в базе оба пути оставались рабочими.
+     */
+    public Path adoptFile(Path existing) throws IOException {
+        Received received = digestFile(existing);
+        String hash = received.hash();
+        long size = received.size();
+        Path target = blobPath(hash, blobExtension(received.extension()));
+
+        synchronized (lockFor(hash)) {
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.createLink(target, existing);
+                } catch (UnsupportedOperationException | IOException e) {
+                    // Файловая система без жёстких ссылок — копируем через временный файл
+                    Path temp = Files.createTempFile(target.getParent(), ".adopt-", ".tmp");
+                    try {
+                        Files.copy(existing, temp, StandardCopyOption.REPLACE_EXISTING);
+                        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                    } finally {
+                        Files.deleteIfExists(temp);
+                    }
+                }
+            }
+            storedBlobRepository.acquire(hash, target.toString(), size);
+        }
+        return target;
+    }
+
+    /**
+     * Снимает одну ссылку с блоба. Строка с нулём ссылок остаётся, файл и превью
+     * удаляет {@link #sweepUnreferenced()}. Пути старого плоского формата не трогаются.
+     */
+    public void release(String storedPath) {
+        if (storedPath == null) {
+            return;
+        }
+        Path path = Paths.get(storedPath);
+        String hash = blobHash(path);
+        if (hash == null) {
+            return;
+        }
+
+        // Удалять файл здесь нельзя: транзакция ещё может откатиться, а параллельная
+        // загрузка того же содержимого — снова сослаться на этот файл до нашего коммита
+        storedBlobRepository.release(hash);
+    }
+
+    /**
+     * Удаляет файлы блобов без ссылок. Строка удаляется отдельной закоммиченной транзакцией
+     * по закоммиченному счётчику; строку под незакоммиченным acquire пропускаем до следующего
+     * прохода. Файл удаляется под той же блокировкой хэша, что и commitBlob, так что новая
+     * загрузка либо уже увеличила счётчик, либо запишет файл заново.
+     */
+    @Scheduled(fixedDelayString = "${file.blobs.sweep-ms:60000}")
+    public void sweepUnreferenced() {
+        for (StoredBlob blob : storedBlobRepository.findTop500ByRefCountLessThanEqual(0L)) {
+            Path path = Paths.get(blob.getPath());
+            synchronized (lockFor(blob.getHash())) {
+                if (storedBlobRepository.deleteIfUnreferenced(blob.getHash()) == 0) {
+                    continue;
+                }
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    System.err.println("Could not delete blob " + path + ": " + e.getMessage());
+                }
+                fileDeliveryService.evict(path);
+                imageDerivativeService.deleteDerivatives(path);
+            }
+        }
+    }
+
+    public boolean isBlobPath(String storedPath) {
+        return storedPath != null && blobHash(Paths.get(storedPath)) != null;
+    }
+
+    private Path commitBlob(Path temp, String hash, String extension, long size) throws IOException {
+        Path target = blobPath(hash, extension);
+        synchronized (lockFor(hash)) {
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+            // Если такой блоб уже был, временный файл удалится в вызывающем методе
+            storedBlobRepository.acquire(hash, target.toString(), size);
+        }
+        return target;
+    }
+
+    private Received receive(InputStream in, Path temp, long maxBytes, Predicate<String> acceptType)
+            throws IOException {
+        MessageDigest digest = sha256();
+        byte[] header = new byte[MediaSniffer.HEADER_SIZE];
+        try (DigestInputStream source = new DigestInputStream(in, digest);
+             OutputStream out = Files.newOutputStream(temp)) {
+            int headerLength = source.readNBytes(header, 0, header.length);
+            String extension = MediaSniffer.detectExtension(header, headerLength);
+            if (!acceptType.test(extension)) {
+                throw new InvalidRequestException("Unsupported file type");
+            }
+            out.write(header, 0, headerLength);
+
+            long size = headerLength;
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            int read;
+            while ((read = source.read(buffer)) != -1) {
+                size += read;
+                if (size > maxBytes) {
+                    throw new PayloadTooLargeException("File exceeds " + maxBytes + " bytes");
+                }
+                out.write(buffer, 0, read);
+            }
+            return new Received(HexFormat.of().formatHex(digest.digest()), extension, size);
+        }
+    }
+
+    private Received digestFile(Path file) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] header = new byte[MediaSniffer.HEADER_SIZE];
+        try (DigestInputStream source = new DigestInputStream(Files.newInputStream(file), digest)) {
+            int headerLength = source.readNBytes(header, 0, header.length);
+            long size = headerLength + source.transferTo(OutputStream.nullOutputStream());
+            return new Received(HexFormat.of().formatHex(digest.digest()),
+                    MediaSniffer.detectExtension(header, headerLength), size);
+        }
+    }
+
+    // Незавершённые файлы лежат на той же файловой системе, что и хранилище, — перенос атомарный
+    public Path tempDirectory() throws IOException {
+        Path tempDir = Paths.get(uploadDir).resolve("tmp");
+        Files.createDirectories(tempDir);
+        return tempDir;
+    }
+
+    private Path createTempFile() throws IOException {
+        return Files.createTempFile(tempDirectory(), "upload-", ".tmp");
+    }
+
+    private record Received(String hash, String extension, long size) {
+    }
+
+    private Path blobRoot() {
+        return Paths.get(uploadDir).resolve(BLOBS_DIR);
+    }
+
+    // Двухуровневое шардирование по префиксу хэша: не больше 256 записей на каталог
+    private Path blobPath(String hash, String extension) {
+        return blobRoot()
+                .resolve(hash.substring(0, 2))
+                .resolve(hash.substring(2, 4))
+                .resolve(hash + extension);
+    }
+
+    private String blobHash(Path path) {
+        Path parent = path.getParent();
+        if (parent == null || parent.getParent() == null || parent.getParent().getParent() == null) {
+            return null;
+        }
+        if (!BLOBS_DIR.equals(parent.getParent().getParent().getFileName().toString())) {
+            return null;
+        }
+        var matcher = BLOB_NAME.matcher(path.getFileName().toString());
+        return matcher.matches() ? matcher.group(1) : null;
+    }
+
+    private String blobExtension(String extension) {
+        return extension != null ? extension : ".bin";
+    }
+
+    private Object lockFor(String hash) {
+        return blobLocks[Math.floorMod(hash.hashCode(), LOCK_STRIPES)];
+    }
+
+    private MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
     private String generateFileName(Long courseId, String originalFileName) {
         String extension = originalFileName.substring(originalFileName.lastIndexOf("."));
         return "course-" + courseId + extension;
     }
-}
\ No newline at end of file
+}
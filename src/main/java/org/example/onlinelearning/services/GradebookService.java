@@ -0,0 +1,217 @@
+package org.example.onlinelearning.services;
+
+import org.example.onlinelearning.exceptions.InvalidRequestException;
+import org.example.onlinelearning.exceptions.NotFoundException;
+import org.example.onlinelearning.repositories.CourseRepository;
+import org.example.onlinelearning.repositories.GradebookRepository;
+import org.example.onlinelearning.repositories.GradebookRepository.Column;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ведомость курса: студент × задание. Строки курсора (одна на работу) сворачиваются
+ * в строку студента на лету — в памяти только текущий студент, так что ведомость
+ * любого размера отдаётся за один проход и при постоянной памяти.
+ */
+@Service
+public class GradebookService {
+    public static final String CSV = "csv";
+    public static final String NDJSON = "ndjson";
+
+    @Autowired
+    private GradebookRepository gradebookRepository;
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Value("${gradebook.fetch-size:1000}")
+    private int fetchSize;
+
+    public static String formatOf(String param) {
+        if (param == null || param.isBlank()) {
+            return CSV;
+        }
+        String format = param.trim().toLowerCase();
+        if (!CSV.equals(format) && !NDJSON.equals(format)) {
+            throw new InvalidRequestException("Unsupported gradebook format: " + param);
+        }
+        return format;
+    }
+
+    // Вызывается до начала ответа: 404 нужно вернуть раньше, чем уйдут первые байты
+    public List<Column> columns(Long courseId) {
+        if (!courseRepository.existsById(courseId)) {
+            throw new NotFoundException("Course not found with id: " + courseId);
+        }
+        return gradebookRepository.findColumns(courseId);
+    }
+
+    @Transactional(readOnly = true)
+    public void export(Long courseId, List<Column> columns, String format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        Map<Long, Integer> positions = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            positions.put(columns.get(i).assignmentId(), i);
+        }
+        boolean csv = CSV.equals(format);
+        if (csv) {
+            writeCsvHeader(writer, columns);
+        }
+
+        StudentRow row = new StudentRow(columns.size());
+        try {
+            gradebookRepository.streamCells(courseId, fetchSize, rs -> {
+                long userId = rs.getLong("user_id");
+                if (row.userId != userId) {
+                    flush(writer, row, columns, csv);
+                    row.start(userId, rs.getString("username"), rs.getString("fullname"));
+                }
+                Integer position = positions.get(rs.getLong("assignment_id"));
+                if (position != null) {
+                    // Работы идут по возрастанию id — в ячейке остаётся последняя
+                    row.grades[position] = rs.getObject("grade", Integer.class);
+                }
+            });
+            flush(writer, row, columns, csv);
+        } catch (UncheckedIOException e) {
+            // Клиент оборвал загрузку — курсор уже закрыт JdbcTemplate
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private static void flush(Writer writer, StudentRow row, List<Column> columns, boolean csv) {
+        if (row.userId < 0) {
+            return;
+        }
+        try {
+            if (csv) {
+                writeCsvRow(writer, row);
+            } else {
+                writeJsonRow(writer, row, columns);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeCsvHeader(Writer writer, List<Column> columns) throws IOException {
+        writer.write("user_id,username,fullname");
+        for (Column column : columns) {
+            writer.write(',');
+            writer.write(csvField(column.title()));
+        }
+        writer.write("\r\n");
+    }
+
+    private static void writeCsvRow(Writer writer, StudentRow row) throws IOException {
+        writer.write(Long.toString(row.userId));
+        writer.write(',');
+        writer.write(csvField(row.username));
+        writer.write(',');
+        writer.write(csvField(row.fullname));
+        for (Integer grade : row.grades) {
+            writer.write(',');
+            if (grade != null) {
+                writer.write(grade.toString());
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    // Только сданные задания: {"userId":1,...,"grades":{"12":90}}
+    private static void writeJsonRow(Writer writer, StudentRow row, List<Column> columns) throws IOException {
+        writer.write("{\"userId\":");
+        writer.write(Long.toString(row.userId));
+        writer.write(",\"username\":");
+        writer.write(jsonString(row.username));
+        writer.write(",\"fullname\":");
+        writer.write(jsonString(row.fullname));
+        writer.write(",\"grades\":{");
+        boolean first = true;
+        for (int i = 0; i < row.grades.length; i++) {
+            if (row.grades[i] == null) {
+                continue;
+            }
+            if (!first) {
+                writer.write(',');
+            }
+            writer.write('"');
+            writer.write(Long.toString(columns.get(i).assignmentId()));
+            writer.write("\":");
+            writer.write(row.grades[i].toString());
+            first = false;
+        }
+        writer.write("}}\n");
+    }
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        // Значения, начинающиеся с =+-@, Excel выполняет как формулу
+        if (!value.isEmpty() && "=+-@".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String jsonString(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder json = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        return json.append('"').toString();
+    }
+
+    private static final class StudentRow {
+        private final Integer[] grades;
+        private long userId = -1;
+        private String username;
+        private String fullname;
+
+        StudentRow(int columns) {
+            this.grades = new Integer[columns];
+        }
+
+        void start(long userId, String username, String fullname) {
+            this.userId = userId;
+            this.username = username;
+            this.fullname = fullname;
+            Arrays.fill(grades, null);
+        }
+    }
+}
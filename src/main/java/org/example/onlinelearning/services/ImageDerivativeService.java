@@ -0,0 +1,234 @@
+package org.example.onlinelearning.services;
+
+import org.example.onlinelearning.cache.BoundedCache;
+import org.example.onlinelearning.enums.ImageSize;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Генерация уменьшенных копий изображений курсов (thumbnail, card, full).
+ * Копии лежат рядом с оригиналом: {@code course-1.png -> course-1-thumbnail.jpg}.
+ */
+@Service
+public class ImageDerivativeService {
+    // Защита от «бомб»: огромные изображения не декодируем
+    private static final long MAX_SOURCE_PIXELS = 40_000_000L;
+    private static final float JPEG_QUALITY = 0.85f;
+    // Неудачная генерация не повторяется на каждом запросе, а только после истечения отметки
+    private static final int MAX_FAILED_ENTRIES = 10_000;
+    private static final long FAILED_TTL_MILLIS = 60 * 60 * 1000L;
+
+    private final Executor derivativeExecutor;
+    private final FileDeliveryService fileDeliveryService;
+    private final Set<Path> inProgress = ConcurrentHashMap.newKeySet();
+    private final BoundedCache<Path, Boolean> failed = new BoundedCache<>(MAX_FAILED_ENTRIES, FAILED_TTL_MILLIS);
+
+    @Autowired
+    public ImageDerivativeService(
+            @Qualifier("imageDerivativeExecutor") Executor derivativeExecutor,
+            FileDeliveryService fileDeliveryService
+    ) {
+        this.derivativeExecutor = derivativeExecutor;
+        this.fileDeliveryService = fileDeliveryService;
+    }
+
+    public Path derivativePath(Path original, ImageSize size) {
+        String fileName = original.getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        String baseName = dot > 0 ? fileName.substring(0, dot) : fileName;
+        return original.resolveSibling(baseName + "-" + size.suffix() + ".jpg");
+    }
+
+    /**
+     * Возвращает путь к копии нужного размера, а если её ещё нет —
+     * оригинал, попутно ставя генерацию в очередь. Изображение, которое недавно
+     * не удалось обработать (avif, слишком большое), в очередь не ставится.
+     */
+    public Path resolve(Path original, ImageSize size) {
+        if (size == null) {
+            return original;
+        }
+        Path derivative = derivativePath(original, size);
+        if (Files.exists(derivative)) {
+            return derivative;
+        }
+        Path key = keyOf(original);
+        if (failed.peek(key) == null) {
+            queue(original, key);
+        }
+        return original;
+    }
+
+    // Явный запрос после загрузки: файл мог смениться, прежняя неудача не в счёт
+    public void generateAsync(Path original) {
+        Path key = keyOf(original);
+        failed.invalidate(key);
+        queue(original, key);
+    }
+
+    private void queue(Path original, Path key) {
+        if (!inProgress.add(key)) {
+            return;
+        }
+        try {
+            derivativeExecutor.execute(() -> {
+                try {
+                    if (!generate(original)) {
+                        failed.put(key, Boolean.TRUE);
+                    }
+                } finally {
+                    inProgress.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Очередь заполнена — сгенерируем при следующем обращении
+            inProgress.remove(key);
+        }
+    }
+
+    public void deleteDerivatives(Path original) {
+        failed.invalidate(keyOf(original));
+        for (ImageSize size : ImageSize.values()) {
+            Path derivative = derivativePath(original, size);
+            try {
+                Files.deleteIfExists(derivative);
+            } catch (IOException e) {
+                System.err.println("Could not delete image derivative " + derivative + ": " + e.getMessage());
+            }
+            fileDeliveryService.evict(derivative);
+        }
+    }
+
+    private Path keyOf(Path original) {
+        return original.toAbsolutePath().normalize();
+    }
+
+    // false, если хотя бы одну копию получить не удалось
+    private boolean generate(Path original) {
+        BufferedImage source;
+        try {
+            source = readBounded(original);
+        } catch (IOException e) {
+            System.err.println("Error decoding image " + original + ": " + e.getMessage());
+            return false;
+        }
+        if (source == null) {
+            // Формат не поддерживается ImageIO (например, avif) — отдаём оригинал
+            return false;
+        }
+
+        boolean complete = true;
+        for (ImageSize size : ImageSize.values()) {
+            Path target = derivativePath(original, size);
+            try {
+                writeJpeg(scaleToWidth(source, size.getMaxWidth()), target);
+                fileDeliveryService.evict(target);
+            } catch (IOException e) {
+                System.err.println("Error writing image derivative " + target + ": " + e.getMessage());
+                complete = false;
+            }
+        }
+        return complete;
+    }
+
+    private BufferedImage readBounded(Path original) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(original.toFile())) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > MAX_SOURCE_PIXELS) {
+                    System.err.println("Image too large for derivatives: " + original);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage scaleToWidth(BufferedImage source, int maxWidth) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        int targetWidth = Math.min(width, maxWidth);
+        int targetHeight = Math.max(1, (int) Math.round((double) height * targetWidth / width));
+
+        BufferedImage current = source;
+        int currentWidth = width;
+        int currentHeight = height;
+        // Уменьшаем ступенями не больше чем вдвое — билинейная интерполяция
+        // за один большой шаг даёт заметную «лесенку»
+        do {
+            currentWidth = Math.max(targetWidth, currentWidth / 2);
+            currentHeight = Math.max(targetHeight, currentHeight / 2);
+            current = draw(current, currentWidth, currentHeight);
+        } while (currentWidth != targetWidth || currentHeight != targetHeight);
+        return current;
+    }
+
+    private BufferedImage draw(BufferedImage source, int width, int height) {
+        // JPEG без альфа-канала: прозрачность заливаем белым
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = result.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return result;
+    }
+
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        Path temp = Files.createTempFile(target.getParent(), ".derivative-", ".tmp");
+        try {
+            try (ImageOutputStream output = ImageIO.createImageOutputStream(temp.toFile())) {
+                writer.setOutput(output);
+                ImageWriteParam params = writer.getDefaultWriteParam();
+                params.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                params.setCompressionQuality(JPEG_QUALITY);
+                writer.write(null, new IIOImage(image, null, null), params);
+            } finally {
+                writer.dispose();
+            }
+            // Читатели никогда не видят наполовину записанный файл
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
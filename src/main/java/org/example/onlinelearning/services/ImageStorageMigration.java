@@ -0,0 +1,91 @@
+package org.example.onlinelearning.services;
+
+import org.example.onlinelearning.repositories.CourseRepository;
+import org.example.onlinelearning.repositories.projections.CourseImageRef;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Переносит изображения курсов из плоского {@code uploads/courses} в хранилище по содержимому.
+ * Порядок шагов безопасен при падении: сначала блоб, затем {@code imagePath}, и только потом
+ * удаляется старый файл. Повторный запуск пропускает уже перенесённые курсы.
+ */
+@Service
+public class ImageStorageMigration {
+    private static final int BATCH_SIZE = 100;
+
+    @Autowired
+    private CourseRepository courseRepository;
+    @Autowired
+    private FileStorageService fileStorageService;
+    @Autowired
+    private ImageDerivativeService imageDerivativeService;
+    @Autowired
+    private FileDeliveryService fileDeliveryService;
+
+    @Value("${file.migrate-flat-on-startup:false}")
+    private boolean migrateOnStartup;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (migrateOnStartup && fileStorageService.isContentAddressed()) {
+            migrateFlatImages();
+        }
+    }
+
+    public int migrateFlatImages() {
+        int migrated = 0;
+        Long lastId = 0L;
+        List<CourseImageRef> batch;
+        do {
+            batch = courseRepository.findImageRefsAfterId(lastId, PageRequest.of(0, BATCH_SIZE));
+            for (CourseImageRef ref : batch) {
+                lastId = ref.getId();
+                if (migrate(ref)) {
+                    migrated++;
+                }
+            }
+        } while (batch.size() == BATCH_SIZE);
+
+        System.out.println("Migrated " + migrated + " course images to content-addressed storage");
+        return migrated;
+    }
+
+    private boolean migrate(CourseImageRef ref) {
+        String oldPath = ref.getImagePath();
+        if (oldPath == null || fileStorageService.isBlobPath(oldPath)) {
+            return false;
+        }
+        Path original = Paths.get(oldPath);
+        if (!Files.exists(original)) {
+            return false;
+        }
+
+        try {
+            Path blob = fileStorageService.adoptFile(original);
+            if (courseRepository.updateImagePath(ref.getId(), oldPath, blob.toString()) == 0) {
+                // Курс успели изменить или удалить — ссылку отдаём обратно
+                fileStorageService.release(blob.toString());
+                return false;
+            }
+            imageDerivativeService.deleteDerivatives(original);
+            Files.deleteIfExists(original);
+            fileDeliveryService.evict(original);
+            imageDerivativeService.generateAsync(blob);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Could not migrate image of course " + ref.getId() + ": " + e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package org.example.onlinelearning.services;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.onlinelearning.exceptions.NotFoundException;
+import org.example.onlinelearning.models.Lesson;
+import org.example.onlinelearning.models.LessonContent;
+import org.example.onlinelearning.repositories.LessonContentRepository;
+import org.example.onlinelearning.repositories.LessonRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Рендерит содержимое урока в HTML при записи и хранит рядом gzip-версию с хэшем.
+ * Просмотр урока отдаёт готовые байты: без рендера и сжатия на каждый запрос,
+ * а повторный просмотр с тем же ETag получает 304 по одному хэшу из базы.
+ */
+@Service
+public class LessonContentService {
+    private static final String CONTENT_TYPE = "text/html;charset=UTF-8";
+
+    @Autowired
+    private LessonContentRepository lessonContentRepository;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    public record Rendered(String html, byte[] gzip, String hash) {
+    }
+
+    /**
+     * Вызывается в транзакции создания/изменения урока, так что содержимое
+     * откатывается вместе с уроком.
+     */
+    public LessonContent store(Lesson lesson) {
+        Rendered rendered = render(lesson.getContent());
+        Long courseId = lesson.getCourse() != null ? lesson.getCourse().getId() : null;
+        lessonContentRepository.upsert(lesson.getId(), courseId,
+                rendered.html(), rendered.gzip(), rendered.hash());
+        return new LessonContent(lesson.getId(), courseId, rendered.html(), rendered.gzip(), rendered.hash());
+    }
+
+    public void lessonDeleted(Long lessonId) {
+        lessonContentRepository.deleteById(lessonId);
+    }
+
+    public void courseDeleted(Long courseId) {
+        lessonContentRepository.deleteByCourseId(courseId);
+    }
+
+    public void serve(HttpServletRequest request, HttpServletResponse response, Long lessonId) throws IOException {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        // Сначала только хэш: на совпавший If-None-Match отвечаем 304, не читая байты
+        LessonContent content = null;
+        String hash = lessonContentRepository.findHashByLessonId(lessonId).orElse(null);
+        if (hash == null) {
+            // Уроки, созданные до появления таблицы, рендерим при первом просмотре
+            content = store(lessonRepository.findById(lessonId)
+                    .orElseThrow(() -> new NotFoundException("Lesson not found")));
+            hash = content.getHash();
+        }
+        // У gzip и несжатого варианта разные байты, значит и сильные ETag должны различаться
+        boolean gzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        String etag = "\"" + hash + (gzip ? "-gz" : "") + "\"";
+        if (new ServletWebRequest(request, response).checkNotModified(etag)) {
+            return;
+        }
+        if (content == null) {
+            content = lessonContentRepository.findById(lessonId)
+                    .orElseThrow(() -> new NotFoundException("Lesson not found"));
+        }
+
+        byte[] body;
+        if (gzip) {
+            body = content.getGzip();
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        } else {
+            body = content.getHtml().getBytes(StandardCharsets.UTF_8);
+        }
+        response.setContentType(CONTENT_TYPE);
+        response.setContentLength(body.length);
+        if (!"HEAD".equalsIgnoreCase(request.getMethod())) {
+            response.getOutputStream().write(body);
+        }
+    }
+
+    public Rendered render(String source) {
+        String html = toHtml(source != null ? source : "");
+        byte[] bytes = html.getBytes(StandardCharsets.UTF_8);
+        return new Rendered(html, gzip(bytes), sha256(bytes));
+    }
+
+    /**
+     * Простая разметка уроков: абзацы через пустую строку, «#»-заголовки,
+     * списки из строк с «- ». Весь текст экранируется, сырой HTML не пропускаем.
+     */
+    static String toHtml(String source) {
+        StringBuilder html = new StringBuilder(source.length() + source.length() / 8);
+        boolean inParagraph = false;
+        boolean inList = false;
+
+        for (String rawLine : source.replace("\r\n", "\n").split("\n", -1)) {
+            String line = rawLine.strip();
+            int headingLevel = headingLevel(line);
+            boolean listItem = line.startsWith("- ") || line.startsWith("* ");
+
+            if (line.isEmpty() || headingLevel > 0 || listItem) {
+                if (inParagraph) {
+                    html.append("</p>\n");
+                    inParagraph = false;
+                }
+            }
+            if (!listItem && inList) {
+                html.append("</ul>\n");
+                inList = false;
+            }
+
+            if (line.isEmpty()) {
+                continue;
+            }
+            if (headingLevel > 0) {
+                html.append("<h").append(headingLevel).append('>');
+                escape(line.substring(headingLevel - 1).strip(), html);
+                html.append("</h").append(headingLevel).append(">\n");
+            } else if (listItem) {
+                if (!inList) {
+                    html.append("<ul>\n");
+                    inList = true;
+                }
+                html.append("<li>");
+                escape(line.substring(2).strip(), html);
+                html.append("</li>\n");
+            } else if (inParagraph) {
+                html.append("<br>\n");
+                escape(line, html);
+            } else {
+                html.append("<p>");
+                escape(line, html);
+                inParagraph = true;
+            }
+        }
+        if (inParagraph) {
+            html.append("</p>\n");
+        }
+        if (inList) {
+            html.append("</ul>\n");
+        }
+        return html.toString();
+    }
+
+    // «#», «##», «###» -> h2..h4: h1 на странице занимает название урока
+    private static int headingLevel(String line) {
+        int hashes = 0;
+        while (hashes < line.length() && line.charAt(hashes) == '#') {
+            hashes++;
+        }
+        // «#» без пробела после — обычный текст (хэштег, номер)
+        if (hashes == 0 || hashes > 3 || hashes >= line.length() || line.charAt(hashes) != ' ') {
+            return 0;
+        }
+        return hashes + 1;
+    }
+
+    private static void escape(String text, StringBuilder out) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '&' -> out.append("&amp;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim();
+            if (!coding.equalsIgnoreCase("gzip") && !coding.equals("*")) {
+                continue;
+            }
+            // gzip;q=0 — явный отказ
+            for (int i = 1; i < tokens.length; i++) {
+                String parameter = tokens[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(parameter.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, bytes.length / 3));
+        // Сжимаем один раз при записи, поэтому берём максимальный уровень
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {{ def.setLevel(Deflater.BEST_COMPRESSION); }}) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.example.onlinelearning.services;
+
+import org.example.onlinelearning.cache.CourseLessonIndex;
+import org.example.onlinelearning.repositories.LessonRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Оглавления курсов в памяти. Загружаются лениво одним запросом без {@code content},
+ * а после коммита изменений урока заменяются новой копией с учётом изменения — без похода в базу.
+ */
+@Service
+public class LessonIndexService {
+    private final LessonRepository lessonRepository;
+    private final Map<Long, CourseLessonIndex> indexes = new ConcurrentHashMap<>();
+    // Растёт при каждом изменении: загрузка, начатая раньше, не кладёт в кэш устаревшее оглавление
+    private final AtomicLong generation = new AtomicLong();
+    private final int maxCourses;
+
+    @Autowired
+    public LessonIndexService(
+            LessonRepository lessonRepository,
+            @Value("${lessons.index.max-courses:10000}") int maxCourses
+    ) {
+        this.lessonRepository = lessonRepository;
+        this.maxCourses = maxCourses;
+    }
+
+    public CourseLessonIndex get(Long courseId) {
+        CourseLessonIndex cached = indexes.get(courseId);
+        if (cached != null) {
+            return cached;
+        }
+
+        long loadedAt = generation.get();
+        CourseLessonIndex loaded = CourseLessonIndex.of(lessonRepository.findSummariesByCourseId(courseId).stream()
+                .map(lesson -> new CourseLessonIndex.Entry(
+                        lesson.getId(),
+                        lesson.getCourseId(),
+                        lesson.getTitle(),
+                        lesson.getVideoURL(),
+                        lesson.getLessonOrder()))
+                .toList());
+        if (generation.get() != loadedAt) {
+            return loaded;
+        }
+        if (indexes.size() >= maxCourses) {
+            indexes.clear();
+        }
+        CourseLessonIndex existing = indexes.putIfAbsent(courseId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    public void lessonSaved(Long previousCourseId, CourseLessonIndex.Entry lesson) {
+        TransactionHooks.afterCommit(() -> {
+            generation.incrementAndGet();
+            if (previousCourseId != null && !previousCourseId.equals(lesson.courseId())) {
+                indexes.computeIfPresent(previousCourseId, (id, index) -> index.without(lesson.id()));
+            }
+            if (lesson.courseId() != null) {
+                indexes.computeIfPresent(lesson.courseId(), (id, index) -> index.with(lesson));
+            }
+        });
+    }
+
+    public void lessonDeleted(Long courseId, Long lessonId) {
+        TransactionHooks.afterCommit(() -> {
+            generation.incrementAndGet();
+            if (courseId != null) {
+                indexes.computeIfPresent(courseId, (id, index) -> index.without(lessonId));
+            }
+        });
+    }
+
+    public void courseDeleted(Long courseId) {
+        TransactionHooks.afterCommit(() -> {
+            generation.incrementAndGet();
+            indexes.remove(courseId);
+        });
+    }
+}
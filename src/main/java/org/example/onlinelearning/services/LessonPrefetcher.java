@@ -0,0 +1,151 @@
+package org.example.onlinelearning.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.onlinelearning.cache.BoundedCache;
+import org.example.onlinelearning.cache.CourseLessonIndex;
+import org.example.onlinelearning.dtos.AnswerDTO;
+import org.example.onlinelearning.dtos.AssignmentDTO;
+import org.example.onlinelearning.dtos.LessonDTO;
+import org.example.onlinelearning.mappers.AnswerMapper;
+import org.example.onlinelearning.mappers.AssignmentMapper;
+import org.example.onlinelearning.mappers.LessonMapper;
+import org.example.onlinelearning.repositories.AnswerRepository;
+import org.example.onlinelearning.repositories.AssignmentRepository;
+import org.example.onlinelearning.repositories.LessonRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+/**
+ * Предзагрузка по типичному пути студента: после урока N почти всегда открывают
+ * его задание, свой ответ на него и затем урок N+1. Всё это читается в фоне
+ * в кэши с коротким TTL; кэши наполняются только предзагрузкой, поэтому их
+ * hit rate (метрика cache.gets) — это доля угаданных запросов.
+ * Отсутствие задания или ответа тоже кэшируется, чтобы 404 не шёл в базу.
+ */
+@Service
+public class LessonPrefetcher {
+    private final LessonRepository lessonRepository;
+    private final AssignmentRepository assignmentRepository;
+    private final AnswerRepository answerRepository;
+    private final LessonMapper lessonMapper;
+    private final AssignmentMapper assignmentMapper;
+    private final AnswerMapper answerMapper;
+    private final LessonIndexService lessonIndexService;
+    private final TaskExecutor executor;
+
+    private final BoundedCache<Long, LessonDTO> lessons;
+    // По id урока
+    private final BoundedCache<Long, Optional<AssignmentDTO>> assignments;
+    private final BoundedCache<AnswerKey, Optional<AnswerDTO>> answers;
+
+    private final Counter scheduled;
+    private final Counter rejected;
+
+    private record AnswerKey(Long assignmentId, Long userId) {
+    }
+
+    public LessonPrefetcher(
+            LessonRepository lessonRepository,
+            AssignmentRepository assignmentRepository,
+            AnswerRepository answerRepository,
+            LessonMapper lessonMapper,
+            AssignmentMapper assignmentMapper,
+            AnswerMapper answerMapper,
+            LessonIndexService lessonIndexService,
+            @Qualifier("lessonPrefetchExecutor") TaskExecutor executor,
+            MeterRegistry registry,
+            @Value("${lessons.prefetch.cache-max-size:10000}") int maxSize,
+            @Value("${lessons.prefetch.ttl-seconds:60}") long ttlSeconds
+    ) {
+        this.lessonRepository = lessonRepository;
+        this.assignmentRepository = assignmentRepository;
+        this.answerRepository = answerRepository;
+        this.lessonMapper = lessonMapper;
+        this.assignmentMapper = assignmentMapper;
+        this.answerMapper = answerMapper;
+        this.lessonIndexService = lessonIndexService;
+        this.executor = executor;
+
+        this.lessons = new BoundedCache<>(maxSize, ttlSeconds * 1000);
+        this.assignments = new BoundedCache<>(maxSize, ttlSeconds * 1000);
+        this.answers = new BoundedCache<>(maxSize, ttlSeconds * 1000);
+        lessons.bindTo(registry, "lesson-prefetch");
+        assignments.bindTo(registry, "assignment-prefetch");
+        answers.bindTo(registry, "answer-prefetch");
+
+        this.scheduled = Counter.builder("lesson.prefetch.tasks").tag("result", "scheduled").register(registry);
+        this.rejected = Counter.builder("lesson.prefetch.tasks").tag("result", "rejected").register(registry);
+    }
+
+    /**
+     * Ставит в очередь предзагрузку после просмотра урока. userId может быть null —
+     * тогда ответ пользователя не загружается.
+     */
+    public void lessonViewed(LessonDTO lesson, Long userId) {
+        if (lesson == null || lesson.getCourseId() == null) {
+            return;
+        }
+        try {
+            executor.execute(() -> prefetch(lesson, userId));
+            scheduled.increment();
+        } catch (TaskRejectedException e) {
+            // Очередь полна — предзагрузка необязательна
+            rejected.increment();
+        }
+    }
+
+    public LessonDTO lesson(Long lessonId) {
+        return lessons.get(lessonId);
+    }
+
+    // null — в кэше ничего нет; пустой Optional — задания у урока точно нет
+    public Optional<AssignmentDTO> assignmentForLesson(Long lessonId) {
+        return assignments.get(lessonId);
+    }
+
+    public Optional<AnswerDTO> answer(Long assignmentId, Long userId) {
+        return answers.get(new AnswerKey(assignmentId, userId));
+    }
+
+    public void lessonChanged(Long lessonId) {
+        TransactionHooks.afterCommit(() -> lessons.invalidate(lessonId));
+    }
+
+    public void assignmentChanged(Long lessonId) {
+        TransactionHooks.afterCommit(() -> assignments.invalidate(lessonId));
+    }
+
+    public void answerChanged(Long assignmentId, Long userId) {
+        TransactionHooks.afterCommit(() -> answers.invalidate(new AnswerKey(assignmentId, userId)));
+    }
+
+    private void prefetch(LessonDTO lesson, Long userId) {
+        try {
+            assignments.preload(lesson.getId(), lessonId ->
+                    assignmentRepository.findByLessonId(lessonId).map(assignmentMapper::toAssignmentDTO));
+            Optional<AssignmentDTO> assignment = assignments.peek(lesson.getId());
+            if (userId != null && assignment != null && assignment.isPresent()) {
+                Long assignmentId = assignment.get().getId();
+                answers.preload(new AnswerKey(assignmentId, userId), key ->
+                        answerRepository.findByAssignmentIdAndUserId(assignmentId, userId)
+                                .map(answerMapper::toAnswerDTO));
+            }
+
+            CourseLessonIndex index = lessonIndexService.get(lesson.getCourseId());
+            int position = index.positionOf(lesson.getLessonOrder());
+            CourseLessonIndex.Entry next = position >= 0 ? index.at(position + 1) : null;
+            if (next != null) {
+                lessons.preload(next.id(), id ->
+                        lessonRepository.findById(id).map(lessonMapper::toLessonDTO).orElse(null));
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Lesson prefetch failed for lesson " + lesson.getId() + ": " + e.getMessage());
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package org.example.onlinelearning.services;
 
+import org.example.onlinelearning.cache.CourseLessonIndex;
 import org.example.onlinelearning.dtos.LessonDTO;
+import org.example.onlinelearning.dtos.LessonNavigationDTO;
+import org.example.onlinelearning.exceptions.InvalidRequestException;
 import org.example.onlinelearning.exceptions.NotFoundException;
 import org.example.onlinelearning.mappers.LessonMapper;
 import org.example.onlinelearning.models.Course;
@@ -11,6 +14,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,30 +23,89 @@ public class LessonService {
     private final LessonRepository lessonRepository;
     private final CourseRepository courseRepository;
     private final LessonMapper lessonMapper;
+    private final CourseStatsService courseStatsService;
+    private final SearchService searchService;
+    private final LessonIndexService lessonIndexService;
+    private final LessonContentService lessonContentService;
+    private final FileStorageService fileStorageService;
+    private final LessonPrefetcher lessonPrefetcher;
+    private final EnrollmentGuard enrollmentGuard;
 
     @Autowired
     public LessonService(
             LessonRepository lessonRepository,
             CourseRepository courseRepository,
-            LessonMapper lessonMapper
+            LessonMapper lessonMapper,
+            CourseStatsService courseStatsService,
+            SearchService searchService,
+            LessonIndexService lessonIndexService,
+            LessonContentService lessonContentService,
+            FileStorageService fileStorageService,
+            LessonPrefetcher lessonPrefetcher,
+            EnrollmentGuard enrollmentGuard
     ) {
         this.lessonRepository = lessonRepository;
         this.courseRepository = courseRepository;
         this.lessonMapper = lessonMapper;
+        this.courseStatsService = courseStatsService;
+        this.searchService = searchService;
+        this.lessonIndexService = lessonIndexService;
+        this.lessonContentService = lessonContentService;
+        this.fileStorageService = fileStorageService;
+        this.lessonPrefetcher = lessonPrefetcher;
+        this.enrollmentGuard = enrollmentGuard;
     }
 
     public LessonDTO getLessonById(Long lessonId) {
+        LessonDTO prefetched = lessonPrefetcher.lesson(lessonId);
+        if (prefetched != null) {
+            return prefetched;
+        }
         Lesson lesson = lessonRepository.findById(lessonId)
                 .orElseThrow(() -> new RuntimeException("Lesson not found"));
         return lessonMapper.toLessonDTO(lesson);
     }
 
     public LessonDTO getLessonByCourseAndOrder(Long courseId, Integer lessonOrder) {
-        Lesson lesson = lessonRepository.findByCourseIdAndLessonOrder(courseId, lessonOrder)
-                .orElseThrow(() -> new RuntimeException("Lesson not found"));
+        // Номер урока переводим в id по оглавлению в памяти, тело читаем по первичному ключу
+        CourseLessonIndex index = lessonIndexService.get(courseId);
+        CourseLessonIndex.Entry entry = index.at(index.positionOf(lessonOrder));
+        if (entry == null) {
+            throw new NotFoundException("Lesson not found");
+        }
+        // Следующий урок обычно уже подгружен предзагрузкой
+        LessonDTO prefetched = lessonPrefetcher.lesson(entry.id());
+        if (prefetched != null) {
+            return prefetched;
+        }
+        Lesson lesson = lessonRepository.findById(entry.id())
+                .orElseThrow(() -> new NotFoundException("Lesson not found"));
         return lessonMapper.toLessonDTO(lesson);
     }
 
+    /**
+     * Оглавление курса для боковой панели: уроки без содержимого, из памяти.
+     */
+    public List<LessonDTO> getLessonIndex(Long courseId) {
+        return lessonIndexService.get(courseId).entries().stream()
+                .map(this::toSummaryDTO)
+                .toList();
+    }
+
+    public LessonNavigationDTO getLessonNavigation(Long courseId, Integer lessonOrder) {
+        CourseLessonIndex index = lessonIndexService.get(courseId);
+        int position = index.positionOf(lessonOrder);
+        if (position < 0) {
+            throw new NotFoundException("Lesson not found");
+        }
+        return new LessonNavigationDTO(
+                toSummaryDTO(index.at(position)),
+                toSummaryDTO(index.at(position - 1)),
+                toSummaryDTO(index.at(position + 1)),
+                position + 1,
+                index.size());
+    }
+
     public List<LessonDTO> getAllLessonsByCourseId(Long courseId) {
         List<Lesson> lessons = lessonRepository.findAllByCourseId(courseId)
                 .orElseThrow(() -> new RuntimeException("Lessons not found"));
@@ -51,9 +114,19 @@ public class LessonService {
                 .toList();
     }
 
+    @Transactional
     public void deleteLesson(Long lessonId) {
         Optional<Lesson> lesson = lessonRepository.findById(lessonId);
-        lesson.ifPresent(lessonRepository::delete);
+        lesson.ifPresent(existing -> {
+            lessonRepository.delete(existing);
+            lessonContentService.lessonDeleted(existing.getId());
+            lessonPrefetcher.lessonChanged(existing.getId());
+            enrollmentGuard.lessonChanged(existing.getId());
+            courseStatsService.lessonRemoved(courseIdOf(existing));
+            lessonIndexService.lessonDeleted(courseIdOf(existing), existing.getId());
+            searchService.lessonDeleted(existing.getId());
+            discardVideoAfterCommit(existing.getVideoPath());
+        });
     }
 
     @Transactional
@@ -68,16 +141,29 @@ public class LessonService {
 
         // Сохранение и возврат DTO
         Lesson savedLesson = lessonRepository.save(lesson);
+        lessonContentService.store(savedLesson);
+        courseStatsService.lessonAdded(courseId);
+        enrollmentGuard.lessonChanged(savedLesson.getId());
+        lessonIndexService.lessonSaved(null, toIndexEntry(savedLesson));
+        searchService.lessonSaved(savedLesson.getId(), courseId, savedLesson.getTitle(), savedLesson.getContent());
         return lessonMapper.toLessonDTO(savedLesson);
     }
 
+    @Transactional
     public LessonDTO updateLesson(LessonDTO lessonDTO) {
         Lesson existingLesson = lessonRepository.findById(lessonDTO.getId())
                 .orElseThrow(() -> new NotFoundException("Lesson not found"));
+        Long oldCourseId = courseIdOf(existingLesson);
 
         // Обновляем поля
         existingLesson.setTitle(lessonDTO.getTitle());
         existingLesson.setContent(lessonDTO.getContent());
+        // Локальное видео заменили внешней ссылкой — файл больше не нужен
+        String localVideo = existingLesson.getVideoPath();
+        if (localVideo != null && !localVideoURL(existingLesson.getId()).equals(lessonDTO.getVideoURL())) {
+            existingLesson.setVideoPath(null);
+            discardVideoAfterCommit(localVideo);
+        }
         existingLesson.setVideoURL(lessonDTO.getVideoURL());
         existingLesson.setLessonOrder(lessonDTO.getLessonOrder());
 
@@ -89,6 +175,71 @@ public class LessonService {
         }
 
         Lesson updatedLesson = lessonRepository.save(existingLesson);
+        lessonContentService.store(updatedLesson);
+        lessonPrefetcher.lessonChanged(updatedLesson.getId());
+        enrollmentGuard.lessonChanged(updatedLesson.getId());
+        // Урок перенесли в другой курс — переносим и счётчик
+        Long newCourseId = courseIdOf(updatedLesson);
+        if (newCourseId != null && !newCourseId.equals(oldCourseId)) {
+            courseStatsService.lessonRemoved(oldCourseId);
+            courseStatsService.lessonAdded(newCourseId);
+        }
+        lessonIndexService.lessonSaved(oldCourseId, toIndexEntry(updatedLesson));
+        searchService.lessonSaved(updatedLesson.getId(), newCourseId,
+                updatedLesson.getTitle(), updatedLesson.getContent());
         return lessonMapper.toLessonDTO(updatedLesson);
     }
-}
\ No newline at end of file
+
+    /**
+     * Привязывает к уроку видео, уже лежащее в хранилище. Предыдущий файл удаляется;
+     * если урок успели изменить параллельно, удаляется новый, а клиент получает 400.
+     */
+    public LessonDTO attachVideo(Long lessonId, Path stored) {
+        Lesson lesson = lessonRepository.findById(lessonId).orElse(null);
+        if (lesson == null) {
+            fileStorageService.discard(stored.toString());
+            throw new NotFoundException("Lesson not found");
+        }
+
+        String previous = lesson.getVideoPath();
+        String videoURL = localVideoURL(lessonId);
+        if (lessonRepository.updateVideo(lessonId, previous, stored.toString(), videoURL) == 0) {
+            fileStorageService.discard(stored.toString());
+            throw new InvalidRequestException("Lesson video was changed concurrently, retry the upload");
+        }
+        fileStorageService.discard(previous);
+
+        lesson.setVideoPath(stored.toString());
+        lesson.setVideoURL(videoURL);
+        lessonIndexService.lessonSaved(courseIdOf(lesson), toIndexEntry(lesson));
+        lessonPrefetcher.lessonChanged(lessonId);
+        return lessonMapper.toLessonDTO(lesson);
+    }
+
+    public static String localVideoURL(Long lessonId) {
+        return "/api/lessons/" + lessonId + "/video";
+    }
+
+    private void discardVideoAfterCommit(String videoPath) {
+        if (videoPath != null) {
+            TransactionHooks.afterCommit(() -> fileStorageService.discard(videoPath));
+        }
+    }
+
+    private Long courseIdOf(Lesson lesson) {
+        return lesson.getCourse() != null ? lesson.getCourse().getId() : null;
+    }
+
+    private CourseLessonIndex.Entry toIndexEntry(Lesson lesson) {
+        return new CourseLessonIndex.Entry(lesson.getId(), courseIdOf(lesson),
+                lesson.getTitle(), lesson.getVideoURL(), lesson.getLessonOrder());
+    }
+
+    private LessonDTO toSummaryDTO(CourseLessonIndex.Entry entry) {
+        if (entry == null) {
+            return null;
+        }
+        return new LessonDTO(entry.id(), entry.courseId(), entry.title(), null,
+                entry.videoURL(), entry.lessonOrder());
+    }
+}
@@ -0,0 +1,108 @@
+package org.example.onlinelearning.services;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.onlinelearning.dtos.LessonDTO;
+import org.example.onlinelearning.exceptions.InvalidRequestException;
+import org.example.onlinelearning.exceptions.NotFoundException;
+import org.example.onlinelearning.exceptions.PayloadTooLargeException;
+import org.example.onlinelearning.exceptions.ServiceUnavailableException;
+import org.example.onlinelearning.repositories.LessonRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Видео уроков в локальном хранилище: загрузка потоком или по токену
+ * возобновляемой загрузки и отдача с поддержкой Range. Число одновременно
+ * отдаваемых потоков ограничено, сверх лимита клиент получает 503 с Retry-After.
+ */
+@Service
+public class LessonVideoService {
+    @Autowired
+    private LessonService lessonService;
+    @Autowired
+    private LessonRepository lessonRepository;
+    @Autowired
+    private FileStorageService fileStorageService;
+    @Autowired
+    private FileDeliveryService fileDeliveryService;
+    @Autowired
+    private PendingUploadService pendingUploadService;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${file.upload.max-video-bytes:2147483648}")
+    private long maxVideoBytes;
+    @Value("${file.video.max-streams:64}")
+    private int maxStreams;
+    // Длина одного ответа 206: перемотка стоит один такой кусок, а не перечитывание файла
+    @Value("${file.video.range-chunk-bytes:4194304}")
+    private long rangeChunkBytes;
+
+    private Semaphore streams;
+
+    @PostConstruct
+    void init() {
+        streams = new Semaphore(maxStreams);
+        Gauge.builder("lesson.video.streams.active", streams, s -> maxStreams - s.availablePermits())
+                .register(meterRegistry);
+    }
+
+    public LessonDTO uploadVideo(Long lessonId, InputStream body, long contentLength) {
+        // Если клиент заранее сообщил размер, отказываем до чтения тела
+        if (contentLength > maxVideoBytes) {
+            throw new PayloadTooLargeException("Video exceeds " + maxVideoBytes + " bytes");
+        }
+        // Не принимаем гигабайты для урока, которого нет
+        if (!lessonRepository.existsById(lessonId)) {
+            throw new NotFoundException("Lesson not found");
+        }
+        Path stored = fileStorageService.storeStream(body, maxVideoBytes, MediaSniffer::isVideo, "lessons");
+        return lessonService.attachVideo(lessonId, stored);
+    }
+
+    // Токен выдаёт POST /api/uploads/{id}/complete для сессии с kind=video
+    public LessonDTO attachUpload(Long lessonId, String uploadToken) {
+        Path stored = pendingUploadService.claim(uploadToken);
+        if (!MediaSniffer.isVideo(extensionOf(stored))) {
+            fileStorageService.discard(stored.toString());
+            throw new InvalidRequestException("Upload is not a video");
+        }
+        return lessonService.attachVideo(lessonId, stored);
+    }
+
+    public void stream(HttpServletRequest request, HttpServletResponse response, Long lessonId) throws IOException {
+        String videoPath = lessonRepository.findVideoPathById(lessonId)
+                .orElseThrow(() -> new NotFoundException("Video not found"));
+
+        if (!streams.tryAcquire()) {
+            throw new ServiceUnavailableException("Too many concurrent video streams");
+        }
+        // Ответ ограничен rangeChunkBytes, поэтому разрешение держится недолго. Без sendfile:
+        // Tomcat дописал бы тело уже после release, и лимит ограничивал бы не потоки, а заголовки
+        try {
+            // URL видео не меняется при замене файла, поэтому кэш всегда сверяется по ETag
+            fileDeliveryService.serve(request, response, Paths.get(videoPath), CacheControl.noCache(),
+                    rangeChunkBytes, false);
+        } finally {
+            streams.release();
+        }
+    }
+
+    private static String extensionOf(Path path) {
+        String name = path.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 ? name.substring(dot).toLowerCase() : null;
+    }
+}
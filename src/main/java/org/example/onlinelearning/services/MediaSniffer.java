@@ -0,0 +1,90 @@
+package org.example.onlinelearning.services;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Определение типа файла по сигнатуре (magic bytes), а не по имени от клиента.
+ */
+public final class MediaSniffer {
+    public static final int HEADER_SIZE = 32;
+
+    private MediaSniffer() {
+    }
+
+    /**
+     * Возвращает каноническое расширение с точкой или {@code null}, если тип не распознан.
+     */
+    public static String detectExtension(byte[] header, int length) {
+        if (startsWith(header, length, 0xFF, 0xD8, 0xFF)) {
+            return ".jpg";
+        }
+        if (startsWith(header, length, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return ".png";
+        }
+        if (startsWith(header, length, 'G', 'I', 'F', '8')) {
+            return ".gif";
+        }
+        if (length >= 12 && ascii(header, 0, 4).equals("RIFF") && ascii(header, 8, 4).equals("WEBP")) {
+            return ".webp";
+        }
+        if (startsWith(header, length, 0x1A, 0x45, 0xDF, 0xA3)) {
+            return ".webm";
+        }
+        // ISO BMFF: размер бокса, затем "ftyp" и бренд
+        if (length >= 12 && ascii(header, 4, 4).equals("ftyp")) {
+            String brand = ascii(header, 8, 4);
+            return switch (brand) {
+                case "avif", "avis" -> ".avif";
+                // Общие бренды HEIF: AVIF от HEIC отличает список совместимых брендов
+                case "mif1", "msf1" -> hasCompatibleBrand(header, length, "avif") ? ".avif" : ".heic";
+                case "heic", "heix", "heim", "heis", "hevc", "hevx" -> ".heic";
+                case "qt  " -> ".mov";
+                case "3gp4", "3gp5", "3gp6", "3gp7", "3gg6", "3g2a", "3g2b", "3g2c" -> ".3gp";
+                case "isom", "iso2", "iso4", "iso5", "iso6", "mp41", "mp42", "avc1", "dash", "M4V ", "MSNV" -> ".mp4";
+                // Прочие бренды ISO BMFF (m4a, crx, jp2 и т.п.) не видео и не изображения для браузера
+                default -> null;
+            };
+        }
+        return null;
+    }
+
+    public static boolean isImage(String extension) {
+        return extension != null && switch (extension) {
+            case ".jpg", ".png", ".gif", ".webp", ".avif" -> true;
+            default -> false;
+        };
+    }
+
+    public static boolean isVideo(String extension) {
+        return ".mp4".equals(extension) || ".webm".equals(extension);
+    }
+
+    private static boolean hasCompatibleBrand(byte[] header, int length, String brand) {
+        // Совместимые бренды идут после major brand и minor version, в пределах бокса ftyp
+        long boxSize = ((header[0] & 0xFFL) << 24) | ((header[1] & 0xFF) << 16) | ((header[2] & 0xFF) << 8)
+                | (header[3] & 0xFF);
+        long end = Math.min(length, boxSize);
+        for (int offset = 16; offset + 4 <= end; offset += 4) {
+            if (ascii(header, offset, 4).equals(brand)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean startsWith(byte[] header, int length, int... signature) {
+        if (length < signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if ((header[i] & 0xFF) != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String ascii(byte[] header, int offset, int count) {
+        return new String(header, offset, count, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,66 @@
+package org.example.onlinelearning.services;
+
+import org.example.onlinelearning.exceptions.InvalidRequestException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Загруженные заранее файлы, ещё не привязанные к курсу. Клиент получает одноразовый
+ * токен и передаёт его при создании курса; невостребованные файлы удаляются по таймауту.
+ */
+@Service
+public class PendingUploadService {
+    private final Map<String, PendingUpload> uploads = new ConcurrentHashMap<>();
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Value("${file.upload.pending-ttl-minutes:60}")
+    private long ttlMinutes;
+
+    public String register(Path path) {
+        String token = UUID.randomUUID().toString();
+        uploads.put(token, new PendingUpload(path, System.currentTimeMillis() + ttlMinutes * 60_000));
+        return token;
+    }
+
+    public Path claim(String token) {
+        PendingUpload upload = token == null ? null : uploads.remove(token);
+        if (upload == null) {
+            throw new InvalidRequestException("Unknown or expired upload token");
+        }
+        if (upload.isExpired(System.currentTimeMillis())) {
+            // Токен уже убран из карты — discardExpired этот файл больше не найдёт
+            fileStorageService.discard(upload.path().toString());
+            throw new InvalidRequestException("Unknown or expired upload token");
+        }
+        return upload.path();
+    }
+
+    @Scheduled(fixedDelayString = "${file.upload.pending-sweep-ms:60000}")
+    public void discardExpired() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<String, PendingUpload>> iterator = uploads.entrySet().iterator();
+        while (iterator.hasNext()) {
+            PendingUpload upload = iterator.next().getValue();
+            if (upload.isExpired(now)) {
+                iterator.remove();
+                fileStorageService.discard(upload.path().toString());
+            }
+        }
+    }
+
+    private record PendingUpload(Path path, long expiresAt) {
+        boolean isExpired(long now) {
+            return now > expiresAt;
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package org.example.onlinelearning.services;
+
+import org.example.onlinelearning.dtos.UploadSessionDTO;
+import org.example.onlinelearning.enums.UploadKind;
+import org.example.onlinelearning.exceptions.FileStorageException;
+import org.example.onlinelearning.exceptions.InvalidRequestException;
+import org.example.onlinelearning.exceptions.NotFoundException;
+import org.example.onlinelearning.exceptions.PayloadTooLargeException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Возобновляемая загрузка по чанкам. Файл сессии заранее создаётся нужного размера,
+ * чанки пишутся позиционной записью {@link FileChannel#write(ByteBuffer, long)} в любом
+ * порядке и параллельно; у каждого чанка своя контрольная сумма SHA-256.
+ * Принятые чанки отмечаются в {@link BitSet}, так что клиент после обрыва докачивает только недостающее.
+ * Сессия принадлежит создавшему её пользователю; число сессий и зарезервированный
+ * под них объём ограничены на пользователя, чтобы один клиент не занял весь диск.
+ */
+@Service
+public class ResumableUploadService {
+    public static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+    public static final int MIN_CHUNK_SIZE = 256 * 1024;
+    public static final int MAX_CHUNK_SIZE = 16 * 1024 * 1024;
+    private static final int IO_BUFFER_SIZE = 64 * 1024;
+
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private PendingUploadService pendingUploadService;
+
+    @Value("${file.upload.max-image-bytes:10485760}")
+    private long maxImageBytes;
+
+    @Value("${file.upload.max-video-bytes:2147483648}")
+    private long maxVideoBytes;
+
+    @Value("${file.upload.session-idle-minutes:30}")
+    private long sessionIdleMinutes;
+
+    @Value("${file.upload.max-sessions:1000}")
+    private int maxSessions;
+
+    @Value("${file.upload.max-sessions-per-user:5}")
+    private int maxSessionsPerUser;
+
+    @Value("${file.upload.max-reserved-bytes-per-user:4294967296}")
+    private long maxReservedBytesPerUser;
+
+    public UploadSessionDTO createSession(Long userId, String kindParam, Long size, Integer chunkSizeParam) {
+        UploadKind kind = UploadKind.fromParam(kindParam);
+        if (size == null || size <= 0) {
+            throw new InvalidRequestException("Upload size must be positive");
+        }
+        long limit = kind == UploadKind.IMAGE ? maxImageBytes : maxVideoBytes;
+        if (size > limit) {
+            throw new PayloadTooLargeException("Upload exceeds " + limit + " bytes");
+        }
+        int chunkSize = chunkSizeParam == null ? DEFAULT_CHUNK_SIZE : chunkSizeParam;
+        if (chunkSize < MIN_CHUNK_SIZE || chunkSize > MAX_CHUNK_SIZE) {
+            throw new InvalidRequestException(
+                    "Chunk size must be between " + MIN_CHUNK_SIZE + " and " + MAX_CHUNK_SIZE);
+        }
+
+        String id = UUID.randomUUID().toString();
+        // Проверка лимитов и регистрация сессии атомарны: параллельные запросы не обойдут лимит
+        synchronized (sessions) {
+            if (sessions.size() >= maxSessions) {
+                throw new InvalidRequestException("Too many active uploads, try again later");
+            }
+            int userSessions = 0;
+            long reserved = 0;
+            for (UploadSession existing : sessions.values()) {
+                if (existing.ownerId.equals(userId)) {
+                    userSessions++;
+                    reserved += existing.size;
+                }
+            }
+            if (userSessions >= maxSessionsPerUser) {
+                throw new InvalidRequestException("Too many active uploads for this user, at most " + maxSessionsPerUser);
+            }
+            if (reserved + size > maxReservedBytesPerUser) {
+                throw new PayloadTooLargeException("Active uploads of this user exceed " + maxReservedBytesPerUser + " bytes");
+            }
+            try {
+                Path file = fileStorageService.tempDirectory().resolve("session-" + id + ".part");
+                // Файл сразу нужной длины: чанки можно писать в любом порядке
+                try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+                    raf.setLength(size);
+                }
+                FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE);
+                UploadSession session = new UploadSession(id, userId, kind, file, channel, size, chunkSize);
+                sessions.put(id, session);
+                return toDTO(session, null);
+            } catch (IOException e) {
+                throw new FileStorageException("Could not create upload session", e);
+            }
+        }
+    }
+
+    public UploadSessionDTO getSession(String id, Long userId) {
+        return toDTO(find(id, userId), null);
+    }
+
+    public UploadSessionDTO writeChunk(String id, Long userId, int index, String checksum, long contentLength,
+                                       InputStream body) {
+        UploadSession session = find(id, userId);
+        if (index < 0 || index >= session.chunkCount) {
+            throw new InvalidRequestException("Chunk index out of range: " + index);
+        }
+        if (checksum == null || checksum.isBlank()) {
+            throw new InvalidRequestException("Chunk checksum (X-Chunk-Sha256) is required");
+        }
+        long offset = (long) index * session.chunkSize;
+        long expectedLength = Math.min(session.chunkSize, session.size - offset);
+        if (contentLength >= 0 && contentLength != expectedLength) {
+            throw new InvalidRequestException("Chunk " + index + " must be " + expectedLength + " bytes");
+        }
+
+        // Бит чанка снимается до записи: пока байты на диске не сверены, чанк не засчитан
+        session.beginWrite(index);
+        boolean accepted = false;
+        boolean counted;
+        try {
+            receive(session, index, offset, expectedLength, checksum, body);
+            accepted = true;
+        } finally {
+            counted = session.endWrite(index, accepted);
+        }
+        if (!counted) {
+            // Сессию завершили или отменили, пока чанк писался
+            throw new NotFoundException("Upload session not found");
+        }
+        return toDTO(session, null);
+    }
+
+    private void receive(UploadSession session, int index, long offset, long expectedLength,
+                            String checksum, InputStream body) {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[IO_BUFFER_SIZE];
+        long written = 0;
+        try {
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                if (written + read > expectedLength) {
+                    throw new InvalidRequestException("Chunk " + index + " is larger than " + expectedLength + " bytes");
+                }
+                digest.update(buffer, 0, read);
+                ByteBuffer data = ByteBuffer.wrap(buffer, 0, read);
+                while (data.hasRemaining()) {
+                    session.channel.write(data, offset + written + data.position());
+                }
+                written += read;
+            }
+        } catch (ClosedChannelException e) {
+            // Канал закрыт завершением, отменой или истечением сессии — это не ошибка сервера
+            throw new NotFoundException("Upload session not found");
+        } catch (IOException e) {
+            throw new FileStorageException("Could not write chunk " + index, e);
+        }
+
+        if (written != expectedLength) {
+            throw new InvalidRequestException("Chunk " + index + " is incomplete: " + written + " of " + expectedLength);
+        }
+        String actual = HexFormat.of().formatHex(digest.digest());
+        if (!actual.equals(checksum.trim().toLowerCase(Locale.ROOT))) {
+            // Чанк остаётся незасчитанным, пока повторная отправка не пройдёт проверку
+            throw new InvalidRequestException("Checksum mismatch for chunk " + index);
+        }
+    }
+
+    /**
+     * Завершает загрузку: проверяет, что пришли все чанки, переносит файл в хранилище
+     * и выдаёт токен, по которому файл привязывается к курсу или уроку.
+     */
+    public UploadSessionDTO complete(String id, Long userId) {
+        UploadSession session = find(id, userId);
+        // Проверка и закрытие атомарны: чанк, начатый после проверки, уже не пройдёт
+        session.closeIfComplete();
+        sessions.remove(id, session);
+        close(session);
+        Path stored = fileStorageService.importFile(session.file, session.kind::accepts, session.kind.flatDirectory());
+        return toDTO(session, pendingUploadService.register(stored));
+    }
+
+    public void cancel(String id, Long userId) {
+        UploadSession session = find(id, userId);
+        if (!sessions.remove(id, session)) {
+            throw new NotFoundException("Upload session not found");
+        }
+        session.markClosed();
+        discard(session);
+    }
+
+    @Scheduled(fixedDelayString = "${file.upload.pending-sweep-ms:60000}")
+    public void expireIdleSessions() {
+        long deadline = System.currentTimeMillis() - sessionIdleMinutes * 60_000;
+        Iterator<UploadSession> iterator = sessions.values().iterator();
+        while (iterator.hasNext()) {
+            UploadSession session = iterator.next();
+            if (session.lastActivity < deadline) {
+                iterator.remove();
+                session.markClosed();
+                discard(session);
+            }
+        }
+    }
+
+    // Чужая сессия неотличима от несуществующей
+    private UploadSession find(String id, Long userId) {
+        UploadSession session = sessions.get(id);
+        if (session == null || !session.ownerId.equals(userId)) {
+            throw new NotFoundException("Upload session not found");
+        }
+        return session;
+    }
+
+    private void discard(UploadSession session) {
+        close(session);
+        try {
+            Files.deleteIfExists(session.file);
+        } catch (IOException e) {
+            System.err.println("Could not delete upload session file " + session.file + ": " + e.getMessage());
+        }
+    }
+
+    private void close(UploadSession session) {
+        try {
+            session.channel.close();
+        } catch (IOException e) {
+            System.err.println("Could not close upload session file " + session.file + ": " + e.getMessage());
+        }
+    }
+
+    private UploadSessionDTO toDTO(UploadSession session, String uploadToken) {
+        List<Integer> missing = new ArrayList<>();
+        long offset;
+        synchronized (session) {
+            for (int i = session.received.nextClearBit(0); i < session.chunkCount;
+                 i = session.received.nextClearBit(i + 1)) {
+                missing.add(i);
+            }
+            int contiguous = session.received.nextClearBit(0);
+            offset = Math.min(session.size, (long) contiguous * session.chunkSize);
+        }
+        return new UploadSessionDTO(session.id, session.kind.name().toLowerCase(Locale.ROOT),
+                session.size, session.chunkSize, session.chunkCount, offset, missing, uploadToken);
+    }
+
+    private MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static final class UploadSession {
+        private final String id;
+        private final Long ownerId;
+        private final UploadKind kind;
+        private final Path file;
+        // FileChannel допускает параллельные позиционные записи из разных потоков
+        private final FileChannel channel;
+        private final long size;
+        private final int chunkSize;
+        private final int chunkCount;
+        private final BitSet received;
+        // Чанки, которые сейчас пишутся
+        private final BitSet writing;
+        private boolean closed;
+        private volatile long lastActivity = System.currentTimeMillis();
+
+        UploadSession(String id, Long ownerId, UploadKind kind, Path file, FileChannel channel, long size,
+                      int chunkSize) {
+            this.id = id;
+            this.ownerId = ownerId;
+            this.kind = kind;
+            this.file = file;
+            this.channel = channel;
+            this.size = size;
+            this.chunkSize = chunkSize;
+            this.chunkCount = (int) ((size + chunkSize - 1) / chunkSize);
+            this.received = new BitSet(chunkCount);
+            this.writing = new BitSet(chunkCount);
+        }
+
+        void touch() {
+            lastActivity = System.currentTimeMillis();
+        }
+
+        synchronized void beginWrite(int index) {
+            if (closed) {
+                throw new NotFoundException("Upload session not found");
+            }
+            if (writing.get(index)) {
+                throw new InvalidRequestException("Chunk " + index + " is already being uploaded");
+            }
+            writing.set(index);
+            received.clear(index);
+            touch();
+        }
+
+        synchronized boolean endWrite(int index, boolean accepted) {
+            writing.clear(index);
+            touch();
+            if (accepted && !closed) {
+                received.set(index);
+                return true;
+            }
+            return false;
+        }
+
+        synchronized void closeIfComplete() {
+            if (closed) {
+                throw new NotFoundException("Upload session not found");
+            }
+            if (!writing.isEmpty() || received.cardinality() != chunkCount) {
+                throw new InvalidRequestException("Upload is incomplete");
+            }
+            closed = true;
+        }
+
+        synchronized void markClosed() {
+            closed = true;
+        }
+    }
+}
@@ -9,6 +9,7 @@ import org.example.onlinelearning.models.Review;
 import org.example.onlinelearning.repositories.ReviewRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -19,18 +20,21 @@ public class ReviewService {
     private final ReviewMapper reviewMapper;
     private final CourseService courseService;
     private final UserService userService;
+    private final CourseStatsService courseStatsService;
 
     @Autowired
     public ReviewService(
             ReviewRepository reviewRepository,
             ReviewMapper reviewMapper,
             CourseService courseService,
-            UserService userService
+            UserService userService,
+            CourseStatsService courseStatsService
             ) {
         this.reviewRepository = reviewRepository;
         this.reviewMapper = reviewMapper;
         this.courseService = courseService;
         this.userService = userService;
+        this.courseStatsService = courseStatsService;
     }
 
     public ReviewDTO getReviewById(Long id) {
@@ -39,6 +43,7 @@ public class ReviewService {
         return reviewMapper.toReviewDTO(review);
     }
 
+    @Transactional
     public ReviewDTO createReview(Long courseId, ReviewDTO reviewDTO) {
         Review review = reviewMapper.toReview(reviewDTO);
 
@@ -53,25 +58,30 @@ public class ReviewService {
         review.setReviewTime(LocalDateTime.now());
 
         Review savedReview = reviewRepository.save(review);
+        courseStatsService.reviewAdded(courseId, savedReview.getRating());
         return reviewMapper.toReviewDTO(savedReview);
     }
 
+    @Transactional
     public ReviewDTO updateReview(Long id, ReviewDTO reviewDTO) {
         Review existingReview = reviewRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Review not found with id: " + id));
 
+        Integer oldRating = existingReview.getRating();
         existingReview.setRating(reviewDTO.getRating());
         existingReview.setComment(reviewDTO.getComment());
 
         Review updatedReview = reviewRepository.save(existingReview);
+        courseStatsService.reviewChanged(courseIdOf(updatedReview), oldRating, updatedReview.getRating());
         return reviewMapper.toReviewDTO(updatedReview);
     }
 
+    @Transactional
     public void deleteReview(Long id) {
-        if (!reviewRepository.existsById(id)) {
-            throw new NotFoundException("Review not found with id: " + id);
-        }
-        reviewRepository.deleteById(id);
+        Review review = reviewRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Review not found with id: " + id));
+        reviewRepository.delete(review);
+        courseStatsService.reviewRemoved(courseIdOf(review), review.getRating());
     }
 
     public List<ReviewDTO> getAllReviewsByCourseId(Long courseId) {
@@ -81,4 +91,8 @@ public class ReviewService {
                 .map(reviewMapper::toReviewDTO)
                 .toList();
     }
-}
\ No newline at end of file
+
+    private Long courseIdOf(Review review) {
+        return review.getCourse() != null ? review.getCourse().getId() : null;
+    }
+}
@@ -0,0 +1,143 @@
+package org.example.onlinelearning.services;
+
+import org.example.onlinelearning.dtos.SearchResultDTO;
+import org.example.onlinelearning.exceptions.InvalidRequestException;
+import org.example.onlinelearning.repositories.CourseRepository;
+import org.example.onlinelearning.repositories.LessonRepository;
+import org.example.onlinelearning.repositories.projections.SearchSource;
+import org.example.onlinelearning.search.SearchIndex;
+import org.example.onlinelearning.search.SearchIndex.DocKey;
+import org.example.onlinelearning.search.SearchIndex.DocType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+
+/**
+ * Полнотекстовый поиск по курсам и урокам. Индекс строится в фоне при старте
+ * и дальше обновляется из путей записи после коммита транзакции.
+ */
+@Service
+public class SearchService {
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+    private static final int LOAD_BATCH_SIZE = 500;
+
+    private final SearchIndex index = new SearchIndex();
+    private final CourseRepository courseRepository;
+    private final LessonRepository lessonRepository;
+    private final Executor taskExecutor;
+
+    // Удаления, пришедшие во время начальной загрузки: загрузчик не должен их «воскресить»
+    private final Set<DocKey> deletedDuringBuild = ConcurrentHashMap.newKeySet();
+    private volatile boolean building;
+
+    @Autowired
+    public SearchService(
+            CourseRepository courseRepository,
+            LessonRepository lessonRepository,
+            @Qualifier("applicationTaskExecutor") Executor taskExecutor
+    ) {
+        this.courseRepository = courseRepository;
+        this.lessonRepository = lessonRepository;
+        this.taskExecutor = taskExecutor;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        building = true;
+        taskExecutor.execute(this::build);
+    }
+
+    public List<SearchResultDTO> search(String query, String type, Integer limit) {
+        if (query == null || query.isBlank()) {
+            throw new InvalidRequestException("Query must not be empty");
+        }
+        int size = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+        return index.search(query, parseType(type), size).stream()
+                .map(hit -> new SearchResultDTO(
+                        hit.key().type().name().toLowerCase(Locale.ROOT),
+                        hit.key().id(),
+                        hit.courseId(),
+                        hit.title(),
+                        hit.score()))
+                .toList();
+    }
+
+    public void courseSaved(Long id, String title, String description) {
+        TransactionHooks.afterCommit(() -> index.upsert(new SearchIndex.Document(
+                new DocKey(DocType.COURSE, id), id, title, description)));
+    }
+
+    public void courseDeleted(Long id) {
+        TransactionHooks.afterCommit(() -> remove(new DocKey(DocType.COURSE, id)));
+    }
+
+    public void lessonSaved(Long id, Long courseId, String title, String content) {
+        TransactionHooks.afterCommit(() -> index.upsert(new SearchIndex.Document(
+                new DocKey(DocType.LESSON, id), courseId, title, content)));
+    }
+
+    public void lessonDeleted(Long id) {
+        TransactionHooks.afterCommit(() -> remove(new DocKey(DocType.LESSON, id)));
+    }
+
+    private void build() {
+        long started = System.nanoTime();
+        try {
+            load(DocType.COURSE, courseRepository::findSearchSourcesAfterId);
+            load(DocType.LESSON, lessonRepository::findSearchSourcesAfterId);
+            System.out.println("Search index built: " + index.size() + " documents in "
+                    + (System.nanoTime() - started) / 1_000_000 + " ms");
+        } catch (RuntimeException e) {
+            System.err.println("Search index build failed: " + e.getMessage());
+        } finally {
+            building = false;
+            deletedDuringBuild.clear();
+        }
+    }
+
+    private void load(DocType type, BiFunction<Long, Pageable, List<SearchSource>> loader) {
+        Long lastId = 0L;
+        List<SearchSource> batch;
+        do {
+            batch = loader.apply(lastId, PageRequest.of(0, LOAD_BATCH_SIZE));
+            for (SearchSource source : batch) {
+                lastId = source.getId();
+                DocKey key = new DocKey(type, source.getId());
+                if (!deletedDuringBuild.contains(key)) {
+                    index.addIfAbsent(new SearchIndex.Document(
+                            key, source.getCourseId(), source.getTitle(), source.getBody()));
+                }
+            }
+        } while (batch.size() == LOAD_BATCH_SIZE);
+    }
+
+    private void remove(DocKey key) {
+        if (building) {
+            deletedDuringBuild.add(key);
+        }
+        index.remove(key);
+    }
+
+    private DocType parseType(String type) {
+        if (type == null || type.isBlank()) {
+            return null;
+        }
+        try {
+            return DocType.valueOf(type.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Unsupported type: " + type);
+        }
+    }
+}
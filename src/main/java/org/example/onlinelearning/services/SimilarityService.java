@@ -0,0 +1,199 @@
+package org.example.onlinelearning.services;
+
+import org.example.onlinelearning.dtos.SimilarPairDTO;
+import org.example.onlinelearning.exceptions.InvalidRequestException;
+import org.example.onlinelearning.exceptions.NotFoundException;
+import org.example.onlinelearning.models.Submission;
+import org.example.onlinelearning.models.SubmissionSignature;
+import org.example.onlinelearning.repositories.AssignmentRepository;
+import org.example.onlinelearning.repositories.SubmissionBatchRepository;
+import org.example.onlinelearning.repositories.SubmissionBatchRepository.UnsignedSubmission;
+import org.example.onlinelearning.repositories.SubmissionSignatureRepository;
+import org.example.onlinelearning.similarity.LshIndex;
+import org.example.onlinelearning.similarity.MinHash;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Поиск почти одинаковых работ внутри задания. Подпись считается при сохранении работы
+ * и хранится в {@code submission_signatures}; LSH-индекс задания собирается из подписей
+ * лениво при первом отчёте и дальше поддерживается после коммитов без похода в базу.
+ */
+@Service
+public class SimilarityService {
+    private final SubmissionSignatureRepository signatureRepository;
+    private final SubmissionBatchRepository submissionBatchRepository;
+    private final AssignmentRepository assignmentRepository;
+    private final Map<Long, LshIndex> indexes = new ConcurrentHashMap<>();
+    // Растёт при каждом изменении: загрузка, начатая раньше, не кладёт в кэш устаревший индекс
+    private final AtomicLong generation = new AtomicLong();
+    private final int maxAssignments;
+    private final int maxBucketSize;
+
+    public SimilarityService(
+            SubmissionSignatureRepository signatureRepository,
+            SubmissionBatchRepository submissionBatchRepository,
+            AssignmentRepository assignmentRepository,
+            @Value("${similarity.max-assignments:1000}") int maxAssignments,
+            @Value("${similarity.max-bucket-size:500}") int maxBucketSize
+    ) {
+        this.signatureRepository = signatureRepository;
+        this.submissionBatchRepository = submissionBatchRepository;
+        this.assignmentRepository = assignmentRepository;
+        this.maxAssignments = maxAssignments;
+        this.maxBucketSize = maxBucketSize;
+    }
+
+    // skippedBuckets > 0 — часть совпадений (обычно общий шаблон задания) не перебиралась
+    public record SimilarPairs(List<SimilarPairDTO> pairs, int skippedBuckets) {
+    }
+
+    /**
+     * Считает и сохраняет подписи новых работ в текущей транзакции; индексы
+     * обновляются после коммита.
+     */
+    public void submissionsCreated(List<Submission> submissions) {
+        List<SubmissionSignature> signatures = new ArrayList<>(submissions.size());
+        for (Submission submission : submissions) {
+            SubmissionSignature signature = sign(submission.getId(), submission.getAssignment().getId(),
+                    submission.getUser() != null ? submission.getUser().getId() : null, submission.getContent());
+            if (signature != null) {
+                signatures.add(signature);
+            }
+        }
+        if (signatures.isEmpty()) {
+            return;
+        }
+        submissionBatchRepository.upsertSignatures(signatures);
+        TransactionHooks.afterCommit(() -> {
+            generation.incrementAndGet();
+            signatures.forEach(this::applyToIndex);
+        });
+    }
+
+    public void submissionUpdated(Submission submission) {
+        Long assignmentId = submission.getAssignment().getId();
+        SubmissionSignature signature = sign(submission.getId(), assignmentId,
+                submission.getUser() != null ? submission.getUser().getId() : null, submission.getContent());
+        if (signature == null) {
+            // Текст стал слишком коротким — прежняя подпись больше не про эту работу
+            submissionDeleted(submission.getId(), assignmentId);
+            return;
+        }
+        submissionBatchRepository.upsertSignatures(List.of(signature));
+        TransactionHooks.afterCommit(() -> {
+            generation.incrementAndGet();
+            applyToIndex(signature);
+        });
+    }
+
+    public void submissionDeleted(Long submissionId, Long assignmentId) {
+        signatureRepository.deleteBySubmissionId(submissionId);
+        TransactionHooks.afterCommit(() -> {
+            generation.incrementAndGet();
+            indexes.computeIfPresent(assignmentId, (id, index) -> {
+                index.remove(submissionId);
+                return index;
+            });
+        });
+    }
+
+    public void assignmentDeleted(Long assignmentId) {
+        signatureRepository.deleteByAssignmentId(assignmentId);
+        TransactionHooks.afterCommit(() -> {
+            generation.incrementAndGet();
+            indexes.remove(assignmentId);
+        });
+    }
+
+    /**
+     * Пары работ задания с похожестью не ниже minSimilarity, от самых похожих.
+     */
+    public SimilarPairs findSimilarPairs(Long assignmentId, double minSimilarity, int limit) {
+        if (minSimilarity <= 0 || minSimilarity > 1) {
+            throw new InvalidRequestException("minSimilarity must be in (0, 1]");
+        }
+        if (limit <= 0 || limit > 1000) {
+            throw new InvalidRequestException("limit must be between 1 and 1000");
+        }
+        if (!assignmentRepository.existsById(assignmentId)) {
+            throw new NotFoundException("Assignment not found with id: " + assignmentId);
+        }
+
+        LshIndex.Candidates candidates = indexFor(assignmentId).candidatePairs(minSimilarity, limit, maxBucketSize);
+        List<SimilarPairDTO> pairs = candidates.pairs().stream()
+                .map(pair -> new SimilarPairDTO(
+                        pair.first().submissionId(),
+                        pair.first().userId(),
+                        pair.second().submissionId(),
+                        pair.second().userId(),
+                        pair.similarity()))
+                .toList();
+        return new SimilarPairs(pairs, candidates.skippedBuckets());
+    }
+
+    private LshIndex indexFor(Long assignmentId) {
+        LshIndex cached = indexes.get(assignmentId);
+        if (cached != null) {
+            return cached;
+        }
+
+        long loadedAt = generation.get();
+        LshIndex loaded = new LshIndex();
+        for (SubmissionSignature signature : signatureRepository.findByAssignmentId(assignmentId)) {
+            loaded.put(toMember(signature));
+        }
+        // Работы, сданные до появления подписей, подписываются при первой загрузке задания
+        List<SubmissionSignature> backfill = new ArrayList<>();
+        for (UnsignedSubmission submission : submissionBatchRepository.findUnsigned(assignmentId)) {
+            SubmissionSignature signature = sign(submission.id(), assignmentId, submission.userId(),
+                    submission.content());
+            if (signature != null) {
+                backfill.add(signature);
+                loaded.put(toMember(signature));
+            }
+        }
+        if (!backfill.isEmpty()) {
+            submissionBatchRepository.upsertSignatures(backfill);
+        }
+
+        if (indexes.size() >= maxAssignments) {
+            indexes.clear();
+        }
+        // Проверка поколения и вставка — под блокировкой ключа: applyToIndex после коммита
+        // либо увидит индекс в карте, либо успеет сменить поколение до проверки
+        LshIndex cachedIndex = indexes.compute(assignmentId, (id, current) -> {
+            if (current != null) {
+                return current;
+            }
+            return generation.get() == loadedAt ? loaded : null;
+        });
+        return cachedIndex != null ? cachedIndex : loaded;
+    }
+
+    private void applyToIndex(SubmissionSignature signature) {
+        indexes.computeIfPresent(signature.getAssignmentId(), (id, index) -> {
+            index.put(toMember(signature));
+            return index;
+        });
+    }
+
+    private static SubmissionSignature sign(Long submissionId, Long assignmentId, Long userId, String content) {
+        int[] signature = MinHash.signature(content);
+        if (signature == null) {
+            return null;
+        }
+        return new SubmissionSignature(submissionId, assignmentId, userId, MinHash.toBytes(signature));
+    }
+
+    private static LshIndex.Member toMember(SubmissionSignature signature) {
+        return new LshIndex.Member(signature.getSubmissionId(), signature.getUserId(),
+                MinHash.fromBytes(signature.getSignature()));
+    }
+}
@@ -0,0 +1,347 @@
+package org.example.onlinelearning.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.onlinelearning.cache.BoundedCache;
+import org.example.onlinelearning.dtos.SubmissionReceiptDTO;
+import org.example.onlinelearning.exceptions.InvalidRequestException;
+import org.example.onlinelearning.exceptions.NotFoundException;
+import org.example.onlinelearning.exceptions.PayloadTooLargeException;
+import org.example.onlinelearning.exceptions.ServiceUnavailableException;
+import org.example.onlinelearning.ingest.SubmissionJournal;
+import org.example.onlinelearning.ingest.SubmissionJournal.Entry;
+import org.example.onlinelearning.models.Submission;
+import org.example.onlinelearning.repositories.AssignmentRepository;
+import org.example.onlinelearning.repositories.SubmissionRepository;
+import org.example.onlinelearning.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Приём работ в пик перед дедлайном. Запрос только пишет работу в журнал на диске
+ * и в очередь, без обращений к базе, и сразу получает квитанцию. Один поток-писатель
+ * забирает работы пачками и вставляет каждую пачку одной транзакцией с JDBC batch,
+ * так что пик держит одно соединение пула, а не по соединению на запрос.
+ * После падения журнал дочитывается при старте; дубли отсекаются по receipt_id.
+ */
+@Service
+public class SubmissionIngestService {
+    private static final long RETRY_BACKOFF_MS = 1000;
+
+    private final SubmissionRepository submissionRepository;
+    private final AssignmentRepository assignmentRepository;
+    private final UserRepository userRepository;
+    private final AutoGradingService autoGradingService;
+    private final SimilarityService similarityService;
+    private final CourseProgressService courseProgressService;
+    private final TransactionTemplate transactionTemplate;
+
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    // Место в очереди резервируется до записи в журнал: при переполнении клиент
+    // получает 503, а в журнале не остаётся работы, о которой он не знает
+    private final Semaphore slots;
+    private final Map<String, LocalDateTime> pending = new ConcurrentHashMap<>();
+    private final BoundedCache<String, String> failures;
+
+    private final Counter accepted;
+    private final Counter rejected;
+    private final Counter stored;
+    private final Counter failed;
+
+    @Value("${submissions.ingest.journal-path:data/submission-ingest.wal}")
+    private String journalPath;
+    @Value("${submissions.ingest.batch-size:500}")
+    private int batchSize;
+    // Сколько писатель ждёт добора пачки после первой работы
+    @Value("${submissions.ingest.linger-ms:20}")
+    private long lingerMillis;
+    // Запись длиннее SubmissionJournal.MAX_RECORD_SIZE журнал отклонит и сам
+    @Value("${submissions.ingest.max-content-bytes:1048576}")
+    private int maxContentBytes;
+
+    private SubmissionJournal journal;
+    private Thread writer;
+    private volatile boolean running;
+
+    public SubmissionIngestService(
+            SubmissionRepository submissionRepository,
+            AssignmentRepository assignmentRepository,
+            UserRepository userRepository,
+            AutoGradingService autoGradingService,
+            SimilarityService similarityService,
+            CourseProgressService courseProgressService,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry registry,
+            @Value("${submissions.ingest.queue-capacity:10000}") int queueCapacity
+    ) {
+        this.submissionRepository = submissionRepository;
+        this.assignmentRepository = assignmentRepository;
+        this.userRepository = userRepository;
+        this.autoGradingService = autoGradingService;
+        this.similarityService = similarityService;
+        this.courseProgressService = courseProgressService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.slots = new Semaphore(queueCapacity);
+        // Квитанции отклонённых работ живут сутки — клиенту хватит, чтобы узнать причину
+        this.failures = new BoundedCache<>(100_000, TimeUnit.DAYS.toMillis(1));
+
+        Gauge.builder("submissions.ingest.queue", queue, BlockingQueue::size).register(registry);
+        this.accepted = Counter.builder("submissions.ingest").tag("result", "accepted").register(registry);
+        this.rejected = Counter.builder("submissions.ingest").tag("result", "rejected").register(registry);
+        this.stored = Counter.builder("submissions.ingest").tag("result", "stored").register(registry);
+        this.failed = Counter.builder("submissions.ingest").tag("result", "failed").register(registry);
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        journal = new SubmissionJournal(Paths.get(journalPath));
+        List<Entry> unfinished = journal.readAll();
+        if (!unfinished.isEmpty()) {
+            System.out.println("Replaying " + unfinished.size() + " submissions from ingest journal");
+            for (int from = 0; from < unfinished.size(); from += batchSize) {
+                List<Entry> batch = unfinished.subList(from, Math.min(from + batchSize, unfinished.size()));
+                batch.forEach(entry -> pending.put(entry.receiptId(), toDateTime(entry.acceptedAt())));
+                store(skipAlreadyStored(batch));
+            }
+        }
+        journal.truncateIfIdle(pending::isEmpty);
+
+        running = true;
+        writer = new Thread(this::drain, "submission-ingest-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException, IOException {
+        // Писатель дописывает очередь; если не успел, работы останутся в журнале
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+        journal.close();
+    }
+
+    public SubmissionReceiptDTO accept(Long assignmentId, Long userId, String content) {
+        if (assignmentId == null || userId == null || content == null || content.isBlank()) {
+            throw new InvalidRequestException("assignmentId, userId and content are required");
+        }
+        // Символ UTF-8 — от 1 до 3 байт (суррогатная пара — 4 на 2 char): кодируем, только если граница неочевидна
+        if (content.length() > maxContentBytes || (content.length() * 3L > maxContentBytes
+                && content.getBytes(StandardCharsets.UTF_8).length > maxContentBytes)) {
+            rejected.increment();
+            throw new PayloadTooLargeException("Submission content exceeds " + maxContentBytes + " bytes");
+        }
+        if (!running || !slots.tryAcquire()) {
+            rejected.increment();
+            throw new ServiceUnavailableException("Submission queue is full, retry later");
+        }
+
+        // Время сдачи фиксирует сервер в момент приёма, а не в момент записи в базу
+        long acceptedAt = System.currentTimeMillis();
+        Entry entry = new Entry(UUID.randomUUID().toString(), assignmentId, userId, acceptedAt, content);
+        pending.put(entry.receiptId(), toDateTime(acceptedAt));
+        try {
+            journal.append(entry);
+        } catch (IllegalArgumentException e) {
+            unreserve(entry);
+            throw new PayloadTooLargeException("Submission is too large to accept");
+        } catch (IOException e) {
+            unreserve(entry);
+            throw new ServiceUnavailableException("Could not persist submission, retry later");
+        }
+        queue.add(entry);
+        accepted.increment();
+        return new SubmissionReceiptDTO(entry.receiptId(), SubmissionReceiptDTO.QUEUED, null,
+                toDateTime(acceptedAt), null);
+    }
+
+    public SubmissionReceiptDTO getReceipt(String receiptId) {
+        LocalDateTime acceptedAt = pending.get(receiptId);
+        if (acceptedAt != null) {
+            return new SubmissionReceiptDTO(receiptId, SubmissionReceiptDTO.QUEUED, null, acceptedAt, null);
+        }
+        String failure = failures.get(receiptId);
+        if (failure != null) {
+            return new SubmissionReceiptDTO(receiptId, SubmissionReceiptDTO.FAILED, null, null, failure);
+        }
+        return submissionRepository.findByReceiptId(receiptId)
+                .map(submission -> new SubmissionReceiptDTO(receiptId, SubmissionReceiptDTO.STORED,
+                        submission.getId(), submission.getSubmissionDate(), null))
+                .orElseThrow(() -> new NotFoundException("Receipt not found"));
+    }
+
+    private void drain() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    journal.truncateIfIdle(pending::isEmpty);
+                    continue;
+                }
+                batch.add(first);
+                // Под нагрузкой пачка набирается сразу; одиночная работа ждёт не дольше linger
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    Entry next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                slots.release(batch.size());
+                store(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                System.err.println("Could not truncate submission journal: " + e.getMessage());
+            } catch (RuntimeException e) {
+                System.err.println("Submission ingest writer error: " + e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Пишет пачку одной транзакцией. Пока база недоступна — повторяет, работы ждут
+     * в памяти и в журнале. Если пачка отклонена по данным (задание удалено и т.п.),
+     * пишет по одной, чтобы отклонить только виноватые работы.
+     */
+    private void store(List<Entry> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        while (true) {
+            try {
+                List<Submission> saved = transactionTemplate.execute(status -> insert(batch));
+                for (int i = 0; i < batch.size(); i++) {
+                    onStored(batch.get(i), saved.get(i));
+                }
+                return;
+            } catch (CannotCreateTransactionException | TransientDataAccessException
+                     | RecoverableDataAccessException e) {
+                if (!running && writer != null) {
+                    // Останавливаемся: работы дочитаются из журнала при следующем старте
+                    return;
+                }
+                sleepBeforeRetry();
+            } catch (RuntimeException e) {
+                break;
+            }
+        }
+
+        for (Entry entry : batch) {
+            try {
+                List<Submission> saved = transactionTemplate.execute(status -> insert(List.of(entry)));
+                onStored(entry, saved.get(0));
+            } catch (RuntimeException e) {
+                pending.remove(entry.receiptId());
+                failures.put(entry.receiptId(), "Submission rejected: " + rootMessage(e));
+                failed.increment();
+            }
+        }
+    }
+
+    private List<Submission> insert(List<Entry> batch) {
+        List<Submission> submissions = new ArrayList<>(batch.size());
+        for (Entry entry : batch) {
+            Submission submission = new Submission();
+            // Ссылки без SELECT: существование проверит внешний ключ при вставке
+            submission.setAssignment(assignmentRepository.getReferenceById(entry.assignmentId()));
+            submission.setUser(userRepository.getReferenceById(entry.userId()));
+            submission.setSubmissionDate(toDateTime(entry.acceptedAt()));
+            submission.setContent(entry.content());
+            submission.setGrade(0);
+            submission.setManuallyGraded(false);
+            submission.setReceiptId(entry.receiptId());
+            submissions.add(submission);
+        }
+        // flush до обновления прогресса: он проверяет более ранние работы того же пакета
+        List<Submission> saved = submissionRepository.saveAllAndFlush(submissions);
+        // Подписи и прогресс — пакетами и в той же транзакции, что и работы
+        similarityService.submissionsCreated(saved);
+        courseProgressService.submissionsCreated(saved);
+        return saved;
+    }
+
+    private void onStored(Entry entry, Submission submission) {
+        pending.remove(entry.receiptId());
+        stored.increment();
+        autoGradingService.submissionCreated(submission.getId(), entry.assignmentId(), entry.content());
+    }
+
+    // При повторе журнала часть работ могла уже попасть в базу до падения
+    private List<Entry> skipAlreadyStored(List<Entry> batch) {
+        Set<String> receipts = new HashSet<>();
+        batch.forEach(entry -> receipts.add(entry.receiptId()));
+        Set<String> existing = new HashSet<>(submissionRepository.findExistingReceiptIds(receipts));
+        List<Entry> remaining = new ArrayList<>(batch.size());
+        for (Entry entry : batch) {
+            if (existing.contains(entry.receiptId())) {
+                pending.remove(entry.receiptId());
+            } else {
+                remaining.add(entry);
+            }
+        }
+        return remaining;
+    }
+
+    // Работа не принята: освобождаем зарезервированное место в очереди
+    private void unreserve(Entry entry) {
+        pending.remove(entry.receiptId());
+        slots.release();
+        rejected.increment();
+    }
+
+    private void sleepBeforeRetry() {
+        try {
+            Thread.sleep(RETRY_BACKOFF_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null) {
+            root = root.getCause();
+        }
+        return root.getMessage();
+    }
+
+    private static LocalDateTime toDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
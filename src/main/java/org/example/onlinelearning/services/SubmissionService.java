@@ -1,19 +1,32 @@
 package org.example.onlinelearning.services;
 
 import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PostConstruct;
 import org.example.onlinelearning.dtos.AnswerDTO;
+import org.example.onlinelearning.dtos.GradeDTO;
+import org.example.onlinelearning.dtos.GradeResultDTO;
 import org.example.onlinelearning.dtos.SubmissionDTO;
+import org.example.onlinelearning.exceptions.InvalidRequestException;
 import org.example.onlinelearning.exceptions.NotFoundException;
 import org.example.onlinelearning.mappers.SubmissionMapper;
 import org.example.onlinelearning.models.Submission;
+import org.example.onlinelearning.repositories.SubmissionBatchRepository;
 import org.example.onlinelearning.repositories.SubmissionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.Statement;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 
 @Service
 public class SubmissionService {
@@ -21,18 +34,42 @@ public class SubmissionService {
     private final SubmissionMapper submissionMapper;
     private final AssignmentService assignmentService;
     private final UserService userService;
+    private final SubmissionBatchRepository submissionBatchRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final AutoGradingService autoGradingService;
+    private final SimilarityService similarityService;
+    private final CourseProgressService courseProgressService;
+
+    @Value("${submissions.grading.chunk-size:100}")
+    private int gradingChunkSize;
 
     @Autowired
     public SubmissionService(
             SubmissionRepository submissionRepository,
             SubmissionMapper submissionMapper,
             AssignmentService assignmentService,
-            UserService userService
+            UserService userService,
+            SubmissionBatchRepository submissionBatchRepository,
+            PlatformTransactionManager transactionManager,
+            AutoGradingService autoGradingService,
+            SimilarityService similarityService,
+            CourseProgressService courseProgressService
             ) {
         this.submissionRepository = submissionRepository;
         this.submissionMapper = submissionMapper;
         this.assignmentService = assignmentService;
         this.userService = userService;
+        this.submissionBatchRepository = submissionBatchRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.autoGradingService = autoGradingService;
+        this.similarityService = similarityService;
+        this.courseProgressService = courseProgressService;
+    }
+
+    // До первой вставки: схема к этому моменту уже обновлена Hibernate
+    @PostConstruct
+    void alignIdSequence() {
+        submissionBatchRepository.alignIdSequence();
     }
 
     public SubmissionDTO getSubmissionById(Long id) {
@@ -41,6 +78,7 @@ public class SubmissionService {
         return submissionMapper.toSubmissionDTO(submission);
     }
 
+    @Transactional
     public SubmissionDTO createSubmission(Long assignmentId, SubmissionDTO submissionDTO) {
         Submission submission = submissionMapper.toSubmission(submissionDTO);
 
@@ -53,8 +91,17 @@ public class SubmissionService {
         );
 
         submission.setSubmissionDate(LocalDateTime.now());
+        submission.setManuallyGraded(false);
+        if (submission.getGrade() == null) {
+            // Оценку выставит автопроверка или преподаватель
+            submission.setGrade(0);
+        }
 
         Submission savedSubmission = submissionRepository.save(submission);
+        autoGradingService.submissionCreated(savedSubmission.getId(), assignmentId, savedSubmission.getContent());
+        similarityService.submissionsCreated(List.of(savedSubmission));
+        // В той же транзакции: работа без учёта в прогрессе не сохранится
+        courseProgressService.submissionsCreated(List.of(savedSubmission));
         return submissionMapper.toSubmissionDTO(savedSubmission);
     }
 
@@ -62,28 +109,82 @@ public class SubmissionService {
         Submission existingSubmission = submissionRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Submission not found with id: " + id));
 
+        boolean contentChanged = !Objects.equals(existingSubmission.getContent(), submissionDTO.getContent());
         existingSubmission.setContent(submissionDTO.getContent());
+        // Ручная оценка закрепляется и больше не перезаписывается автопроверкой
+        if (submissionDTO.getGrade() != null && !submissionDTO.getGrade().equals(existingSubmission.getGrade())) {
+            existingSubmission.setManuallyGraded(true);
+        }
         existingSubmission.setGrade(submissionDTO.getGrade());
 
         Submission updatedSubmission = submissionRepository.save(existingSubmission);
+        if (contentChanged) {
+            similarityService.submissionUpdated(updatedSubmission);
+            // Ручную оценку автопроверка не трогает; остальные пересчитываются по новому тексту
+            if (!Boolean.TRUE.equals(updatedSubmission.getManuallyGraded()) && updatedSubmission.getAssignment() != null) {
+                autoGradingService.submissionChanged(updatedSubmission.getId(),
+                        updatedSubmission.getAssignment().getId(), updatedSubmission.getContent());
+            }
+        }
         return submissionMapper.toSubmissionDTO(updatedSubmission);
     }
 
-    public void deleteSubmission(Long id) {
-        if (!submissionRepository.existsById(id)) {
-            throw new NotFoundException("Submission not found with id: " + id);
+    /**
+     * Массовое оценивание: элементы идут пакетами по gradingChunkSize, каждый пакет —
+     * одна транзакция и один JDBC batch. Ошибка пакета не откатывает уже сохранённые.
+     */
+    public List<GradeResultDTO> gradeSubmissions(List<GradeDTO> grades) {
+        if (grades == null || grades.isEmpty()) {
+            throw new InvalidRequestException("No grades provided");
         }
-        submissionRepository.deleteById(id);
+
+        GradeResultDTO[] results = new GradeResultDTO[grades.size()];
+        List<Integer> valid = new ArrayList<>(grades.size());
+        for (int i = 0; i < grades.size(); i++) {
+            GradeDTO grade = grades.get(i);
+            if (grade == null || grade.getSubmissionId() == null || grade.getGrade() == null) {
+                results[i] = new GradeResultDTO(grade != null ? grade.getSubmissionId() : null,
+                        GradeResultDTO.INVALID, "submissionId and grade are required");
+            } else {
+                valid.add(i);
+            }
+        }
+
+        for (int from = 0; from < valid.size(); from += gradingChunkSize) {
+            List<Integer> chunk = valid.subList(from, Math.min(from + gradingChunkSize, valid.size()));
+            List<Long> ids = new ArrayList<>(chunk.size());
+            List<Integer> values = new ArrayList<>(chunk.size());
+            for (int index : chunk) {
+                ids.add(grades.get(index).getSubmissionId());
+                values.add(grades.get(index).getGrade());
+            }
+
+            try {
+                int[] counts = transactionTemplate.execute(status -> submissionBatchRepository.updateGrades(ids, values));
+                for (int i = 0; i < chunk.size(); i++) {
+                    // Драйвер может вернуть SUCCESS_NO_INFO (-2) — строка обновлена, число неизвестно
+                    boolean updated = counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO;
+                    results[chunk.get(i)] = updated
+                            ? new GradeResultDTO(ids.get(i), GradeResultDTO.UPDATED, null)
+                            : new GradeResultDTO(ids.get(i), GradeResultDTO.NOT_FOUND, "Submission not found");
+                }
+            } catch (DataAccessException | TransactionException e) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    results[chunk.get(i)] = new GradeResultDTO(ids.get(i), GradeResultDTO.FAILED,
+                            "Batch failed: " + e.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+        return Arrays.asList(results);
     }
 
-    public Submission findLatestSubmission(Long userId, Long courseId) {
-        Pageable pageable = PageRequest.of(0, 1);
-        List<Submission> submissions = submissionRepository.findLatestByUserIdAndCourseId(
-                userId,
-                courseId,
-                pageable
-        );
-        return submissions.isEmpty() ? null : submissions.get(0);
+    @Transactional
+    public void deleteSubmission(Long id) {
+        Submission existingSubmission = submissionRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Submission not found with id: " + id));
+        submissionRepository.delete(existingSubmission);
+        similarityService.submissionDeleted(id, existingSubmission.getAssignment().getId());
+        courseProgressService.submissionDeleted(existingSubmission);
     }
 
     public SubmissionDTO getUserSubmissionForAssignment(Long assignmentId, Long userId) {
@@ -0,0 +1,26 @@
+package org.example.onlinelearning.services;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Откладывает обновление кэшей и индексов в памяти до коммита, чтобы они
+ * не увидели данные откатившейся транзакции. Вне транзакции действие выполняется сразу.
+ */
+public final class TransactionHooks {
+    private TransactionHooks() {
+    }
+
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
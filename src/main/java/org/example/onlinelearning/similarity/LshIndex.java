@@ -0,0 +1,197 @@
+package org.example.onlinelearning.similarity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * LSH-индекс MinHash-подписей работ одного задания. Подпись режется на {@link #BANDS}
+ * полос по {@link #ROWS} значений; работы, совпавшие хотя бы в одной полосе, попадают
+ * в общую корзину и становятся кандидатами. Пары ищутся только внутри корзин, поэтому
+ * отчёт стоит порядка числа работ, а не их квадрата. При 16×8 порог срабатывания —
+ * около 0.7 по Жаккару: пара с похожестью 0.8 находится с вероятностью ~0.95.
+ * Корзины крупнее лимита (общий шаблон задания попадает в одну полосу у всех работ)
+ * пропускаются, как стоп-слова: настоящие списывания совпадают и в других полосах.
+ */
+public class LshIndex {
+    public static final int BANDS = 16;
+    public static final int ROWS = MinHash.NUM_HASHES / BANDS;
+
+    public record Member(long submissionId, Long userId, int[] signature) {
+    }
+
+    public record Pair(Member first, Member second, double similarity) {
+    }
+
+    // skippedBuckets — корзины крупнее лимита, пары внутри которых не перебирались
+    public record Candidates(List<Pair> pairs, int skippedBuckets) {
+    }
+
+    private static final Comparator<Pair> MOST_SIMILAR_FIRST = Comparator.comparingDouble(Pair::similarity)
+            .reversed()
+            .thenComparingLong(pair -> pair.first().submissionId())
+            .thenComparingLong(pair -> pair.second().submissionId());
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Indexed> members = new HashMap<>();
+    private final Map<Long, Bucket> buckets = new HashMap<>();
+
+    public void put(Member member) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(member.submissionId());
+            long[] keys = new long[BANDS];
+            for (int band = 0; band < BANDS; band++) {
+                keys[band] = bandKey(member.signature(), band);
+                int bucketBand = band;
+                buckets.computeIfAbsent(keys[band], key -> new Bucket(bucketBand)).add(member.submissionId());
+            }
+            members.put(member.submissionId(), new Indexed(member, keys));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long submissionId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(submissionId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return members.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Не больше limit пар-кандидатов с оценкой похожести не ниже minSimilarity, от самых
+     * похожих. Оценка считается по полным подписям, так что случайные совпадения полос
+     * отсеиваются. Пары работ одного пользователя (пересдачи) не считаются. Пара
+     * оценивается только в первой полосе, где она делит не пропущенную корзину, —
+     * без множества уже виденных пар, память не растёт с числом кандидатов.
+     */
+    public Candidates candidatePairs(double minSimilarity, int limit, int maxBucketSize) {
+        // Куча из limit лучших: в корне худшая из них
+        PriorityQueue<Pair> top = new PriorityQueue<>(MOST_SIMILAR_FIRST.reversed());
+        int skipped = 0;
+        lock.readLock().lock();
+        try {
+            for (Bucket bucket : buckets.values()) {
+                if (bucket.size < 2) {
+                    continue;
+                }
+                if (bucket.size > maxBucketSize) {
+                    skipped++;
+                    continue;
+                }
+                for (int i = 0; i < bucket.size; i++) {
+                    Indexed first = members.get(bucket.ids[i]);
+                    for (int j = i + 1; j < bucket.size; j++) {
+                        Indexed second = members.get(bucket.ids[j]);
+                        if (sameUser(first.member(), second.member())
+                                || sharedEarlier(first, second, bucket.band, maxBucketSize)) {
+                            continue;
+                        }
+                        double similarity = MinHash.similarity(first.member().signature(), second.member().signature());
+                        if (similarity < minSimilarity) {
+                            continue;
+                        }
+                        boolean ordered = first.member().submissionId() < second.member().submissionId();
+                        top.offer(ordered
+                                ? new Pair(first.member(), second.member(), similarity)
+                                : new Pair(second.member(), first.member(), similarity));
+                        if (top.size() > limit) {
+                            top.poll();
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Pair> pairs = new ArrayList<>(top);
+        pairs.sort(MOST_SIMILAR_FIRST);
+        return new Candidates(pairs, skipped);
+    }
+
+    private static boolean sameUser(Member first, Member second) {
+        return first.userId() != null && first.userId().equals(second.userId());
+    }
+
+    // Пара уже оценена в более ранней полосе, если делила там корзину, которую не пропустили
+    private boolean sharedEarlier(Indexed first, Indexed second, int band, int maxBucketSize) {
+        for (int earlier = 0; earlier < band; earlier++) {
+            long key = first.keys()[earlier];
+            if (key == second.keys()[earlier] && buckets.get(key).size <= maxBucketSize) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void removeLocked(long submissionId) {
+        Indexed existing = members.remove(submissionId);
+        if (existing == null) {
+            return;
+        }
+        for (long key : existing.keys()) {
+            Bucket bucket = buckets.get(key);
+            if (bucket != null && bucket.remove(submissionId) && bucket.size == 0) {
+                buckets.remove(key);
+            }
+        }
+    }
+
+    // Номер полосы входит в ключ: одинаковые значения в разных полосах — разные корзины
+    private static long bandKey(int[] signature, int band) {
+        long hash = band;
+        for (int row = band * ROWS; row < (band + 1) * ROWS; row++) {
+            hash = MinHash.mix(hash * 31 + signature[row]);
+        }
+        return hash;
+    }
+
+    // Ключи корзин по полосам считаются один раз при добавлении
+    private record Indexed(Member member, long[] keys) {
+    }
+
+    private static final class Bucket {
+        private final int band;
+        private long[] ids = new long[2];
+        private int size;
+
+        Bucket(int band) {
+            this.band = band;
+        }
+
+        void add(long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        boolean remove(long id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    // Порядок в корзине не важен: переносим последний на место удалённого
+                    ids[i] = ids[--size];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
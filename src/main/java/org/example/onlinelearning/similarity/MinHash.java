@@ -0,0 +1,127 @@
+package org.example.onlinelearning.similarity;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * MinHash-подпись текста по символьным шинглам. Доля совпавших позиций двух подписей —
+ * несмещённая оценка коэффициента Жаккара их множеств шинглов, поэтому сравнение
+ * двух работ стоит {@link #NUM_HASHES} сравнений int, а не разбор текстов.
+ */
+public final class MinHash {
+    public static final int NUM_HASHES = 128;
+    private static final int SHINGLE_SIZE = 5;
+    // Короткие ответы («42», «верно») совпадают у всех и списыванием не являются
+    private static final int MIN_SHINGLES = 20;
+
+    // Фиксированное зерно: подписи хранятся в базе и должны совпадать между запусками
+    private static final long[] SEEDS = new SplittableRandom(0x5EEDL).longs(NUM_HASHES).toArray();
+
+    private MinHash() {
+    }
+
+    /**
+     * Подпись текста или null, если текст слишком короткий для осмысленного сравнения.
+     */
+    public static int[] signature(String text) {
+        long[] shingles = shingles(text);
+        if (shingles.length < MIN_SHINGLES) {
+            return null;
+        }
+        int[] signature = new int[NUM_HASHES];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (long shingle : shingles) {
+            for (int i = 0; i < NUM_HASHES; i++) {
+                int hash = (int) (mix(shingle ^ SEEDS[i]) >>> 33);
+                if (hash < signature[i]) {
+                    signature[i] = hash;
+                }
+            }
+        }
+        return signature;
+    }
+
+    public static double similarity(int[] first, int[] second) {
+        int equal = 0;
+        for (int i = 0; i < NUM_HASHES; i++) {
+            if (first[i] == second[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / NUM_HASHES;
+    }
+
+    public static byte[] toBytes(int[] signature) {
+        ByteBuffer buffer = ByteBuffer.allocate(signature.length * Integer.BYTES);
+        buffer.asIntBuffer().put(signature);
+        return buffer.array();
+    }
+
+    public static int[] fromBytes(byte[] bytes) {
+        int[] signature = new int[bytes.length / Integer.BYTES];
+        ByteBuffer.wrap(bytes).asIntBuffer().get(signature);
+        return signature;
+    }
+
+    static long mix(long x) {
+        // Финализатор MurmurHash3: каждый бит входа влияет на все биты выхода
+        x ^= x >>> 33;
+        x *= 0xff51afd7ed558ccdL;
+        x ^= x >>> 33;
+        x *= 0xc4ceb9fe1a85ec53L;
+        x ^= x >>> 33;
+        return x;
+    }
+
+    /**
+     * Хэши уникальных шинглов нормализованного текста: нижний регистр, «ё» -> «е»,
+     * любые пробельные последовательности — один пробел. Переформатирование
+     * и смена регистра не прячут скопированный текст.
+     */
+    private static long[] shingles(String text) {
+        if (text == null) {
+            return new long[0];
+        }
+        char[] normalized = new char[text.length()];
+        int length = 0;
+        boolean space = true;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                if (!space) {
+                    normalized[length++] = ' ';
+                    space = true;
+                }
+                continue;
+            }
+            c = Character.toLowerCase(c);
+            normalized[length++] = c == 'ё' ? 'е' : c;
+            space = false;
+        }
+        if (length > 0 && normalized[length - 1] == ' ') {
+            length--;
+        }
+        if (length < SHINGLE_SIZE) {
+            return new long[0];
+        }
+
+        long[] hashes = new long[length - SHINGLE_SIZE + 1];
+        for (int start = 0; start < hashes.length; start++) {
+            long hash = 0;
+            for (int i = start; i < start + SHINGLE_SIZE; i++) {
+                hash = hash * 65_599 + normalized[i];
+            }
+            hashes[start] = mix(hash);
+        }
+        // Повторы шинглов на минимум не влияют — считаем каждый один раз
+        Arrays.sort(hashes);
+        int unique = 0;
+        for (int i = 0; i < hashes.length; i++) {
+            if (i == 0 || hashes[i] != hashes[i - 1]) {
+                hashes[unique++] = hashes[i];
+            }
+        }
+        return Arrays.copyOf(hashes, unique);
+    }
+}
@@ -4,10 +4,17 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.example.onlinelearning.config.JwtTokenProvider;
 import org.example.onlinelearning.controllers.CourseController;
 import org.example.onlinelearning.dtos.CourseDTO;
+import org.example.onlinelearning.dtos.CourseOverviewDTO;
+import org.example.onlinelearning.dtos.CoursePageDTO;
 import org.example.onlinelearning.dtos.LogDTO;
 import org.example.onlinelearning.exceptions.InvalidRequestException;
 import org.example.onlinelearning.exceptions.NotFoundException;
+import org.example.onlinelearning.services.CourseImageService;
+import org.example.onlinelearning.services.CourseOverviewService;
+import org.example.onlinelearning.services.GradebookService;
 import org.example.onlinelearning.services.CourseService;
+import org.example.onlinelearning.services.FileDeliveryService;
+import org.example.onlinelearning.services.ImageDerivativeService;
 import org.example.onlinelearning.services.LogService;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -48,6 +55,21 @@ class CourseControllerTest {
     @MockBean
     private LogService logService;
 
+    @MockBean
+    private CourseImageService courseImageService;
+
+    @MockBean
+    private FileDeliveryService fileDeliveryService;
+
+    @MockBean
+    private ImageDerivativeService imageDerivativeService;
+
+    @MockBean
+    private CourseOverviewService courseOverviewService;
+
+    @MockBean
+    private GradebookService gradebookService;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     private CourseDTO createTestCourseDTO() {
@@ -64,13 +86,130 @@ class CourseControllerTest {
         CourseDTO course = createTestCourseDTO();
         List<CourseDTO> courses = Collections.singletonList(course);
 
-        Mockito.when(courseService.getAllCourses()).thenReturn(courses);
+        Mockito.when(courseService.getCoursePage(null, null, "id"))
+                .thenReturn(new CoursePageDTO(courses, null));
 
         mockMvc.perform(get("/api/courses"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].title").value("Test Course"));
+                .andExpect(jsonPath("$.items[0].title").value("Test Course"))
+                .andExpect(jsonPath("$.next").doesNotExist());
+    }
+
+    @Test
+    void getAllCourses_WithCursor_ReturnsNextCursor() throws Exception {
+        CourseDTO course = createTestCourseDTO();
+
+        Mockito.when(courseService.getCoursePage("MQ", 1, "title"))
+                .thenReturn(new CoursePageDTO(List.of(course), "Mg"));
+
+        mockMvc.perform(get("/api/courses")
+                        .param("cursor", "MQ")
+                        .param("limit", "1")
+                        .param("sort", "title"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.size()").value(1))
+                .andExpect(jsonPath("$.next").value("Mg"));
+    }
+
+    @Test
+    void getAllCourses_InvalidCursor_ReturnsBadRequest() throws Exception {
+        Mockito.when(courseService.getCoursePage("broken", null, "id"))
+                .thenThrow(new InvalidRequestException("Invalid cursor"));
+
+        mockMvc.perform(get("/api/courses").param("cursor", "broken"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void streamCourseImages_TooManyIds_ReturnsBadRequest() throws Exception {
+        String ids = String.join(",", Collections.nCopies(CourseImageService.MAX_IDS_PER_REQUEST + 1, "1"));
+
+        mockMvc.perform(get("/api/courses/images/stream").param("ids", ids))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getCourseImage_UnknownSize_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/courses/1/image").param("size", "huge"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getCourseOverview_WithoutToken_ReturnsOverview() throws Exception {
+        CourseOverviewDTO overview = new CourseOverviewDTO();
+        overview.setCourse(createTestCourseDTO());
+        overview.setLessons(Collections.emptyList());
+        overview.setReviews(Collections.emptyList());
+
+        Mockito.when(courseOverviewService.getOverview(1L, null, null)).thenReturn(overview);
+
+        mockMvc.perform(get("/api/courses/1/overview"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.course.title").value("Test Course"))
+                .andExpect(jsonPath("$.lessons").isEmpty());
+    }
+
+    @Test
+    void exportGradebook_WithoutToken_ReturnsForbidden() throws Exception {
+        mockMvc.perform(get("/api/courses/1/gradebook"))
+                .andExpect(status().isForbidden());
+
+        Mockito.verifyNoInteractions(gradebookService);
+    }
+
+    @Test
+    void exportGradebook_StudentRole_ReturnsForbidden() throws Exception {
+        Mockito.when(jwtTokenProvider.getRole("studentToken")).thenReturn("STUDENT");
+
+        mockMvc.perform(get("/api/courses/1/gradebook").header("Authorization", "Bearer studentToken"))
+                .andExpect(status().isForbidden());
+
+        Mockito.verifyNoInteractions(gradebookService);
+    }
+
+    @Test
+    void exportGradebook_UnknownCourse_ReturnsNotFound() throws Exception {
+        Mockito.when(jwtTokenProvider.getRole("teacherToken")).thenReturn("TEACHER");
+        Mockito.when(gradebookService.columns(999L)).thenThrow(new NotFoundException("Course not found"));
+
+        mockMvc.perform(get("/api/courses/999/gradebook").header("Authorization", "Bearer teacherToken"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void exportGradebook_Teacher_ReturnsCsvAttachment() throws Exception {
+        Mockito.when(jwtTokenProvider.getRole("teacherToken")).thenReturn("TEACHER");
+        Mockito.when(gradebookService.columns(1L)).thenReturn(List.of());
+
+        mockMvc.perform(get("/api/courses/1/gradebook").header("Authorization", "Bearer teacherToken"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv;charset=UTF-8"))
+                .andExpect(header().string("Content-Disposition",
+                        "attachment; filename=\"course-1-gradebook.csv\""));
     }
 
+    @Test
+    void uploadCourseImage_WithoutToken_ReturnsForbidden() throws Exception {
+        mockMvc.perform(post("/api/courses/images")
+                        .contentType(MediaType.IMAGE_PNG)
+                        .content(new byte[]{(byte) 0x89, 'P', 'N', 'G'}))
+                .andExpect(status().isForbidden());
+
+        Mockito.verifyNoInteractions(courseService);
+    }
+
+    @Test
+    void uploadCourseImage_RawBody_ReturnsToken() throws Exception {
+        Mockito.when(jwtTokenProvider.validateToken("validToken")).thenReturn(true);
+        Mockito.when(courseService.uploadImage(Mockito.any(), Mockito.anyLong())).thenReturn("token-1");
+
+        mockMvc.perform(post("/api/courses/images")
+                        .header("Authorization", "Bearer validToken")
+                        .contentType(MediaType.IMAGE_PNG)
+                        .content(new byte[]{(byte) 0x89, 'P', 'N', 'G'}))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.imageToken").value("token-1"));
+    }
 
     @Test
     void getCourseById_ExistingId_ReturnsCourse() throws Exception {
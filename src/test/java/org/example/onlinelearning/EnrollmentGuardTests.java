@@ -0,0 +1,94 @@
+package org.example.onlinelearning;
+
+import org.example.onlinelearning.config.JwtConfig;
+import org.example.onlinelearning.config.JwtTokenProvider;
+import org.example.onlinelearning.exceptions.SecurityException;
+import org.example.onlinelearning.repositories.AssignmentRepository;
+import org.example.onlinelearning.repositories.LessonRepository;
+import org.example.onlinelearning.services.EnrollmentGuard;
+import org.example.onlinelearning.services.EnrollmentIndexService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+class EnrollmentGuardTest {
+    @Mock
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Mock
+    private EnrollmentIndexService enrollmentIndexService;
+
+    @Mock
+    private LessonRepository lessonRepository;
+
+    @Mock
+    private AssignmentRepository assignmentRepository;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        JwtConfig config = new JwtConfig();
+        config.setSecret("test-secret-test-secret-test-secret-42");
+        when(jwtTokenProvider.getJwtConfig()).thenReturn(config);
+
+        when(lessonRepository.findCourseIdById(5L)).thenReturn(Optional.of(1L));
+        when(jwtTokenProvider.validateToken("student")).thenReturn(true);
+        when(jwtTokenProvider.getRole("student")).thenReturn("STUDENT");
+        when(jwtTokenProvider.getUserId("student")).thenReturn(7L);
+        when(enrollmentIndexService.isEnrolled(7L, 1L)).thenReturn(true);
+    }
+
+    @Test
+    void checkLessonVideo_WithoutTokenOrHeader_ThrowsSecurity() {
+        EnrollmentGuard guard = guard(7200);
+
+        assertThrows(SecurityException.class, () -> guard.checkLessonVideo(null, null, 5L));
+    }
+
+    @Test
+    void checkLessonVideo_IssuedToken_AllowsWithoutHeader() {
+        EnrollmentGuard guard = guard(7200);
+        String token = guard.lessonVideoToken("Bearer student", 5L);
+
+        assertDoesNotThrow(() -> guard.checkLessonVideo(null, token, 5L));
+    }
+
+    @Test
+    void checkLessonVideo_TokenForOtherLessonOrTampered_ThrowsSecurity() {
+        EnrollmentGuard guard = guard(7200);
+        String token = guard.lessonVideoToken("Bearer student", 5L);
+        String extended = (Long.parseLong(token.substring(0, token.indexOf('.'))) + 3600)
+                + token.substring(token.indexOf('.'));
+
+        assertThrows(SecurityException.class, () -> guard.checkLessonVideo(null, token, 6L));
+        assertThrows(SecurityException.class, () -> guard.checkLessonVideo(null, extended, 5L));
+        assertThrows(SecurityException.class, () -> guard.checkLessonVideo(null, "garbage", 5L));
+    }
+
+    @Test
+    void checkLessonVideo_ExpiredToken_ThrowsSecurity() {
+        EnrollmentGuard guard = guard(-1);
+        String token = guard.lessonVideoToken("Bearer student", 5L);
+
+        assertThrows(SecurityException.class, () -> guard.checkLessonVideo(null, token, 5L));
+    }
+
+    @Test
+    void lessonVideoToken_NotEnrolled_ThrowsSecurity() {
+        when(enrollmentIndexService.isEnrolled(7L, 1L)).thenReturn(false);
+        EnrollmentGuard guard = guard(7200);
+
+        assertThrows(SecurityException.class, () -> guard.lessonVideoToken("Bearer student", 5L));
+    }
+
+    private EnrollmentGuard guard(long videoTokenTtlSeconds) {
+        return new EnrollmentGuard(jwtTokenProvider, enrollmentIndexService, lessonRepository, assignmentRepository,
+                true, 100, 600, videoTokenTtlSeconds);
+    }
+}
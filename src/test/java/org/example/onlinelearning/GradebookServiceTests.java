@@ -0,0 +1,111 @@
+package org.example.onlinelearning;
+
+import org.example.onlinelearning.exceptions.InvalidRequestException;
+import org.example.onlinelearning.exceptions.NotFoundException;
+import org.example.onlinelearning.repositories.CourseRepository;
+import org.example.onlinelearning.repositories.GradebookRepository;
+import org.example.onlinelearning.repositories.GradebookRepository.Column;
+import org.example.onlinelearning.services.GradebookService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class GradebookServiceTest {
+    private static final List<Column> COLUMNS = List.of(new Column(1L, "Задание 1"), new Column(2L, "=SUM(A1)"));
+
+    @Mock
+    private GradebookRepository gradebookRepository;
+
+    @Mock
+    private CourseRepository courseRepository;
+
+    private GradebookService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        service = new GradebookService();
+        ReflectionTestUtils.setField(service, "gradebookRepository", gradebookRepository);
+        ReflectionTestUtils.setField(service, "courseRepository", courseRepository);
+        ReflectionTestUtils.setField(service, "fetchSize", 100);
+
+        // Курсор отдаёт по строке на работу, по студенту подряд
+        List<ResultSet> rows = List.of(
+                row(1L, "ivan", "Иванов, Иван", 1L, 50),
+                row(1L, "ivan", "Иванов, Иван", 1L, 70),
+                row(2L, "@petr", "Say \"hi\"", 2L, 90),
+                row(2L, "@petr", "Say \"hi\"", 99L, 10));
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(2);
+            for (ResultSet rs : rows) {
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(gradebookRepository).streamCells(eq(7L), anyInt(), any());
+    }
+
+    @Test
+    void export_Csv_OneRowPerStudentWithLatestGradeAndEscaping() throws Exception {
+        String csv = export(GradebookService.CSV);
+
+        assertEquals("user_id,username,fullname,Задание 1,'=SUM(A1)\r\n"
+                + "1,ivan,\"Иванов, Иван\",70,\r\n"
+                + "2,'@petr,\"Say \"\"hi\"\"\",,90\r\n", csv);
+    }
+
+    @Test
+    void export_Ndjson_OnlySubmittedGradesPerStudent() throws Exception {
+        String ndjson = export(GradebookService.NDJSON);
+
+        assertEquals("{\"userId\":1,\"username\":\"ivan\",\"fullname\":\"Иванов, Иван\",\"grades\":{\"1\":70}}\n"
+                + "{\"userId\":2,\"username\":\"@petr\",\"fullname\":\"Say \\\"hi\\\"\",\"grades\":{\"2\":90}}\n",
+                ndjson);
+    }
+
+    @Test
+    void columns_UnknownCourse_ThrowsNotFound() {
+        when(courseRepository.existsById(8L)).thenReturn(false);
+
+        assertThrows(NotFoundException.class, () -> service.columns(8L));
+    }
+
+    @Test
+    void formatOf_DefaultsToCsvAndRejectsUnknown() {
+        assertEquals(GradebookService.CSV, GradebookService.formatOf(null));
+        assertEquals(GradebookService.NDJSON, GradebookService.formatOf(" NDJSON "));
+        assertThrows(InvalidRequestException.class, () -> GradebookService.formatOf("xlsx"));
+    }
+
+    private String export(String format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.export(7L, COLUMNS, format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static ResultSet row(long userId, String username, String fullname, long assignmentId, Integer grade)
+            throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("user_id")).thenReturn(userId);
+        when(rs.getString("username")).thenReturn(username);
+        when(rs.getString("fullname")).thenReturn(fullname);
+        when(rs.getLong("assignment_id")).thenReturn(assignmentId);
+        when(rs.getObject("grade", Integer.class)).thenReturn(grade);
+        return rs;
+    }
+}
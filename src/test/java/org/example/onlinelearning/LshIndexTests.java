@@ -0,0 +1,105 @@
+package org.example.onlinelearning;
+
+import org.example.onlinelearning.similarity.LshIndex;
+import org.example.onlinelearning.similarity.LshIndex.Candidates;
+import org.example.onlinelearning.similarity.LshIndex.Member;
+import org.example.onlinelearning.similarity.MinHash;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LshIndexTest {
+    private static final int NO_BUCKET_LIMIT = Integer.MAX_VALUE;
+
+    private final int[] copied = MinHash.signature(MinHashTest.text('a', 'm', 10));
+    private final int[] unrelated = MinHash.signature(MinHashTest.text('n', 'z', 11));
+
+    @Test
+    void candidatePairs_CopiedSubmissions_ReportedOnceDespiteSharingAllBands() {
+        LshIndex index = new LshIndex();
+        index.put(new Member(2, 20L, copied));
+        index.put(new Member(1, 10L, copied));
+        index.put(new Member(3, 30L, unrelated));
+
+        Candidates candidates = index.candidatePairs(0.8, 100, NO_BUCKET_LIMIT);
+
+        assertEquals(1, candidates.pairs().size());
+        LshIndex.Pair pair = candidates.pairs().get(0);
+        assertEquals(1, pair.first().submissionId());
+        assertEquals(2, pair.second().submissionId());
+        assertEquals(1.0, pair.similarity());
+        assertEquals(0, candidates.skippedBuckets());
+    }
+
+    @Test
+    void candidatePairs_SameUserResubmission_NotReported() {
+        LshIndex index = new LshIndex();
+        index.put(new Member(1, 10L, copied));
+        index.put(new Member(2, 10L, copied));
+
+        assertTrue(index.candidatePairs(0.8, 100, NO_BUCKET_LIMIT).pairs().isEmpty());
+    }
+
+    @Test
+    void candidatePairs_OversizedBuckets_SkippedAndCounted() {
+        LshIndex index = new LshIndex();
+        index.put(new Member(1, 10L, copied));
+        index.put(new Member(2, 20L, copied));
+        index.put(new Member(3, 30L, copied));
+
+        Candidates candidates = index.candidatePairs(0.8, 100, 2);
+
+        assertTrue(candidates.pairs().isEmpty());
+        assertEquals(LshIndex.BANDS, candidates.skippedBuckets());
+    }
+
+    @Test
+    void candidatePairs_Limit_KeepsMostSimilar() {
+        LshIndex index = new LshIndex();
+        for (long id = 1; id <= 4; id++) {
+            index.put(new Member(id, id * 10, copied));
+        }
+
+        Candidates candidates = index.candidatePairs(0.8, 2, NO_BUCKET_LIMIT);
+
+        assertEquals(2, candidates.pairs().size());
+        // При равной похожести порядок — по id первой работы, затем второй
+        assertEquals(1, candidates.pairs().get(0).first().submissionId());
+        assertEquals(2, candidates.pairs().get(0).second().submissionId());
+        assertEquals(1, candidates.pairs().get(1).first().submissionId());
+        assertEquals(3, candidates.pairs().get(1).second().submissionId());
+    }
+
+    @Test
+    void remove_Member_LeavesNoPairsBehind() {
+        LshIndex index = new LshIndex();
+        index.put(new Member(1, 10L, copied));
+        index.put(new Member(2, 20L, copied));
+
+        index.remove(2);
+
+        assertEquals(1, index.size());
+        assertTrue(index.candidatePairs(0.1, 100, NO_BUCKET_LIMIT).pairs().isEmpty());
+        // Повторное удаление ничего не ломает
+        index.remove(2);
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void put_ExistingSubmission_ReplacesOldBuckets() {
+        LshIndex index = new LshIndex();
+        index.put(new Member(1, 10L, copied));
+        index.put(new Member(2, 20L, copied));
+
+        // Работу переписали: старые корзины больше не связывают её с копией
+        index.put(new Member(2, 20L, unrelated));
+        assertEquals(2, index.size());
+        assertTrue(index.candidatePairs(0.8, 100, NO_BUCKET_LIMIT).pairs().isEmpty());
+
+        // И обратно: пара снова одна, без дублей от прежних вставок
+        index.put(new Member(2, 20L, copied));
+        assertEquals(1, index.candidatePairs(0.8, 100, NO_BUCKET_LIMIT).pairs().size());
+        // Корзина из двух работ не превышает лимит 2
+        assertEquals(0, index.candidatePairs(0.8, 100, 2).skippedBuckets());
+    }
+}
@@ -0,0 +1,68 @@
+package org.example.onlinelearning;
+
+import org.example.onlinelearning.similarity.MinHash;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MinHashTest {
+
+    @Test
+    void signature_IdenticalTexts_SimilarityIsOne() {
+        String text = text('a', 'm', 1);
+
+        assertEquals(1.0, MinHash.similarity(MinHash.signature(text), MinHash.signature(text)));
+    }
+
+    @Test
+    void signature_CaseAndWhitespaceChanges_SimilarityIsOne() {
+        String text = text('a', 'm', 2);
+        String reformatted = text.toUpperCase().replace(" ", " \n\t ");
+
+        assertEquals(1.0, MinHash.similarity(MinHash.signature(text), MinHash.signature(reformatted)));
+    }
+
+    @Test
+    void signature_DisjointTexts_SimilarityNearZero() {
+        // Буквы a-m и n-z: у текстов нет ни одного общего шингла
+        int[] first = MinHash.signature(text('a', 'm', 3));
+        int[] second = MinHash.signature(text('n', 'z', 4));
+
+        assertTrue(MinHash.similarity(first, second) < 0.05);
+    }
+
+    @Test
+    void signature_ShortText_ReturnsNull() {
+        assertNull(MinHash.signature("42"));
+        assertNull(MinHash.signature("верно"));
+        assertNull(MinHash.signature(""));
+    }
+
+    @Test
+    void toBytes_RoundTrip_KeepsSignature() {
+        int[] signature = MinHash.signature(text('a', 'm', 5));
+
+        byte[] bytes = MinHash.toBytes(signature);
+
+        assertEquals(MinHash.NUM_HASHES * Integer.BYTES, bytes.length);
+        assertArrayEquals(signature, MinHash.fromBytes(bytes));
+    }
+
+    // Случайные слова из букв [from, to] через одиночный пробел
+    static String text(char from, char to, long seed) {
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder();
+        for (int word = 0; word < 60; word++) {
+            if (word > 0) {
+                text.append(' ');
+            }
+            int length = 3 + random.nextInt(6);
+            for (int i = 0; i < length; i++) {
+                text.append((char) (from + random.nextInt(to - from + 1)));
+            }
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.onlinelearning;
+
+import org.example.onlinelearning.grading.AnswerMatcher;
+import org.example.onlinelearning.grading.NormalizedTextGrader;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NormalizedTextGraderTest {
+    private final NormalizedTextGrader grader = new NormalizedTextGrader();
+
+    @Test
+    void normalize_CaseYoPunctuationAndSpaces_Collapsed() {
+        assertEquals("ежик в тумане", normalize("  Ёжик, в  «ТУМАНЕ»!\n"));
+        assertEquals("x 2 y", normalize("x=2;y"));
+        assertEquals("", normalize(" ... "));
+    }
+
+    @Test
+    void compile_SameWordsDifferentFormatting_Matches() {
+        AnswerMatcher matcher = grader.compile("Лев Толстой");
+
+        assertTrue(matcher.matches("лев-толстой."));
+        assertFalse(matcher.matches("Левтолстой"));
+        assertFalse(matcher.matches(null));
+    }
+
+    private static String normalize(String text) {
+        return ReflectionTestUtils.invokeMethod(NormalizedTextGrader.class, "normalize", text);
+    }
+}
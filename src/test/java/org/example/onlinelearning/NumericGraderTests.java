@@ -0,0 +1,48 @@
+package org.example.onlinelearning;
+
+import org.example.onlinelearning.grading.AnswerMatcher;
+import org.example.onlinelearning.grading.NumericGrader;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NumericGraderTest {
+    private final NumericGrader grader = new NumericGrader();
+
+    @Test
+    void compile_PlusMinusTolerance_AcceptsRangeInclusive() {
+        AnswerMatcher matcher = grader.compile("3.14 ± 0.01");
+
+        assertTrue(matcher.matches("3.14"));
+        assertTrue(matcher.matches("3.15"));
+        assertTrue(matcher.matches(" 3.13 "));
+        assertFalse(matcher.matches("3.16"));
+    }
+
+    @Test
+    void compile_AsciiPlusMinusAndDecimalComma_ParsedLikeDot() {
+        AnswerMatcher matcher = grader.compile("2,5 +- 0,5");
+
+        assertTrue(matcher.matches("2"));
+        assertTrue(matcher.matches("2,9"));
+        assertTrue(matcher.matches("3.0"));
+        assertFalse(matcher.matches("3,1"));
+    }
+
+    @Test
+    void compile_WithoutTolerance_RequiresSameValue() {
+        AnswerMatcher matcher = grader.compile("42");
+
+        assertTrue(matcher.matches("42.0"));
+        assertTrue(matcher.matches("4.2e1"));
+        assertFalse(matcher.matches("42.001"));
+    }
+
+    @Test
+    void compile_NotANumber_MatchesNothing() {
+        assertFalse(grader.compile("42").matches("сорок два"));
+        assertFalse(grader.compile("42").matches("NaN"));
+        assertFalse(grader.compile("42").matches(null));
+        assertFalse(grader.compile("около 3 ± 1").matches("3"));
+    }
+}
@@ -0,0 +1,50 @@
+package org.example.onlinelearning;
+
+import org.example.onlinelearning.grading.AnswerMatcher;
+import org.example.onlinelearning.grading.RegexGrader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegexGraderTest {
+    private RegexGrader grader;
+
+    @BeforeEach
+    void setUp() {
+        grader = new RegexGrader();
+        ReflectionTestUtils.setField(grader, "timeoutMillis", 50L);
+    }
+
+    @Test
+    void compile_WholeMatchIgnoringCaseAndOuterSpaces() {
+        AnswerMatcher matcher = grader.compile(" Москв[аы] ");
+
+        assertTrue(matcher.matches("  москва\n"));
+        assertTrue(matcher.matches("МОСКВЫ"));
+        assertFalse(matcher.matches("столица — Москва"));
+        assertFalse(matcher.matches(null));
+    }
+
+    @Test
+    void compile_CatastrophicBacktracking_StopsAtDeadline() {
+        AnswerMatcher matcher = grader.compile("(a+)+b");
+        String submission = "a".repeat(64) + "c";
+
+        // Без дедлайна перебор занял бы годы
+        boolean matched = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> matcher.matches(submission));
+
+        assertFalse(matched);
+    }
+
+    @Test
+    void compile_InvalidPattern_MatchesNothing() {
+        AnswerMatcher matcher = grader.compile("([a-z");
+
+        assertFalse(matcher.matches("([a-z"));
+        assertFalse(matcher.matches("a"));
+    }
+}
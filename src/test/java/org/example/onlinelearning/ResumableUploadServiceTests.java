@@ -0,0 +1,207 @@
+package org.example.onlinelearning;
+
+import org.example.onlinelearning.dtos.UploadSessionDTO;
+import org.example.onlinelearning.exceptions.InvalidRequestException;
+import org.example.onlinelearning.exceptions.NotFoundException;
+import org.example.onlinelearning.exceptions.PayloadTooLargeException;
+import org.example.onlinelearning.services.FileStorageService;
+import org.example.onlinelearning.services.PendingUploadService;
+import org.example.onlinelearning.services.ResumableUploadService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ResumableUploadServiceTest {
+    private static final int CHUNK = ResumableUploadService.MIN_CHUNK_SIZE;
+    private static final Long USER = 1L;
+    private static final Long OTHER_USER = 2L;
+
+    @Mock
+    private FileStorageService fileStorageService;
+
+    @Mock
+    private PendingUploadService pendingUploadService;
+
+    @TempDir
+    Path tempDir;
+
+    private ResumableUploadService service;
+    private byte[] original;
+    private byte[] imported;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        service = new ResumableUploadService();
+        ReflectionTestUtils.setField(service, "fileStorageService", fileStorageService);
+        ReflectionTestUtils.setField(service, "pendingUploadService", pendingUploadService);
+        ReflectionTestUtils.setField(service, "maxImageBytes", 10L * 1024 * 1024);
+        ReflectionTestUtils.setField(service, "maxVideoBytes", 10L * 1024 * 1024);
+        ReflectionTestUtils.setField(service, "sessionIdleMinutes", 30L);
+        ReflectionTestUtils.setField(service, "maxSessions", 10);
+        ReflectionTestUtils.setField(service, "maxSessionsPerUser", 2);
+        ReflectionTestUtils.setField(service, "maxReservedBytesPerUser", 4L * 1024 * 1024);
+
+        when(fileStorageService.tempDirectory()).thenReturn(tempDir);
+        when(fileStorageService.importFile(any(), any(), any())).thenAnswer(invocation -> {
+            Path assembled = invocation.getArgument(0);
+            imported = Files.readAllBytes(assembled);
+            return assembled;
+        });
+        when(pendingUploadService.register(any())).thenReturn("upload-token");
+
+        // Три чанка, последний неполный
+        original = new byte[CHUNK * 2 + 100];
+        new Random(42).nextBytes(original);
+    }
+
+    @Test
+    void writeChunk_OutOfOrder_AssemblesOriginalFile() {
+        String id = createSession();
+
+        write(id, 2, chunk(2));
+        write(id, 0, chunk(0));
+        UploadSessionDTO progress = write(id, 1, chunk(1));
+        assertEquals(List.of(), progress.getMissingChunks());
+
+        UploadSessionDTO completed = service.complete(id, USER);
+
+        assertEquals("upload-token", completed.getUploadToken());
+        assertArrayEquals(original, imported);
+        // Видео в плоском режиме ложится к видео уроков, а не к обложкам курсов
+        verify(fileStorageService).importFile(any(), any(), eq("lessons"));
+    }
+
+    @Test
+    void writeChunk_ChecksumMismatch_ChunkNotCounted() {
+        String id = createSession();
+        byte[] data = chunk(0);
+
+        assertThrows(InvalidRequestException.class,
+                () -> service.writeChunk(id, USER, 0, sha256(new byte[]{1}), data.length, new ByteArrayInputStream(data)));
+
+        assertEquals(List.of(0, 1, 2), service.getSession(id, USER).getMissingChunks());
+    }
+
+    @Test
+    void writeChunk_CorruptResendOfAcceptedChunk_UncountsChunkUntilGoodResend() {
+        String id = createSession();
+        write(id, 0, chunk(0));
+        write(id, 1, chunk(1));
+        write(id, 2, chunk(2));
+
+        // Повтор уже принятого чанка с испорченными байтами и старой контрольной суммой
+        byte[] corrupted = chunk(1);
+        corrupted[0] ^= 1;
+        assertThrows(InvalidRequestException.class, () -> service.writeChunk(id, USER, 1, sha256(chunk(1)),
+                corrupted.length, new ByteArrayInputStream(corrupted)));
+
+        assertEquals(List.of(1), service.getSession(id, USER).getMissingChunks());
+        assertThrows(InvalidRequestException.class, () -> service.complete(id, USER));
+
+        write(id, 1, chunk(1));
+        service.complete(id, USER);
+        assertArrayEquals(original, imported);
+    }
+
+    @Test
+    void writeChunk_ResendOfAcceptedChunk_StaysCounted() {
+        String id = createSession();
+        write(id, 0, chunk(0));
+
+        UploadSessionDTO progress = write(id, 0, chunk(0));
+
+        assertEquals(List.of(1, 2), progress.getMissingChunks());
+        assertEquals(CHUNK, progress.getOffset());
+    }
+
+    @Test
+    void complete_MissingChunks_ThrowsInvalidRequest() {
+        String id = createSession();
+        write(id, 0, chunk(0));
+        write(id, 2, chunk(2));
+
+        assertThrows(InvalidRequestException.class, () -> service.complete(id, USER));
+        assertEquals(List.of(1), service.getSession(id, USER).getMissingChunks());
+    }
+
+    @Test
+    void writeChunk_AfterComplete_ThrowsNotFound() {
+        String id = createSession();
+        write(id, 0, chunk(0));
+        write(id, 1, chunk(1));
+        write(id, 2, chunk(2));
+        service.complete(id, USER);
+
+        assertThrows(NotFoundException.class, () -> write(id, 0, chunk(0)));
+    }
+
+    @Test
+    void getSession_OtherUser_ThrowsNotFound() {
+        String id = createSession();
+        byte[] data = chunk(0);
+
+        assertThrows(NotFoundException.class, () -> service.getSession(id, OTHER_USER));
+        assertThrows(NotFoundException.class, () -> service.writeChunk(id, OTHER_USER, 0, sha256(data),
+                data.length, new ByteArrayInputStream(data)));
+        assertThrows(NotFoundException.class, () -> service.cancel(id, OTHER_USER));
+        assertEquals(List.of(0, 1, 2), service.getSession(id, USER).getMissingChunks());
+    }
+
+    @Test
+    void createSession_OverPerUserSessionLimit_ThrowsInvalidRequest() {
+        createSession();
+        createSession();
+
+        assertThrows(InvalidRequestException.class, this::createSession);
+        // Лимит на пользователя, а не общий
+        assertNotNull(service.createSession(OTHER_USER, "video", (long) original.length, CHUNK).getId());
+    }
+
+    @Test
+    void createSession_OverPerUserReservedBytes_ThrowsPayloadTooLarge() {
+        service.createSession(USER, "video", 3L * 1024 * 1024, CHUNK);
+
+        assertThrows(PayloadTooLargeException.class,
+                () -> service.createSession(USER, "video", 2L * 1024 * 1024, CHUNK));
+    }
+
+    private String createSession() {
+        return service.createSession(USER, "video", (long) original.length, CHUNK).getId();
+    }
+
+    private UploadSessionDTO write(String id, int index, byte[] data) {
+        return service.writeChunk(id, USER, index, sha256(data), data.length, new ByteArrayInputStream(data));
+    }
+
+    private byte[] chunk(int index) {
+        int from = index * CHUNK;
+        return Arrays.copyOfRange(original, from, Math.min(original.length, from + CHUNK));
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
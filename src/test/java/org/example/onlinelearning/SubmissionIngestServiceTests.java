@@ -0,0 +1,151 @@
+package org.example.onlinelearning;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.onlinelearning.dtos.SubmissionReceiptDTO;
+import org.example.onlinelearning.exceptions.PayloadTooLargeException;
+import org.example.onlinelearning.ingest.SubmissionJournal;
+import org.example.onlinelearning.ingest.SubmissionJournal.Entry;
+import org.example.onlinelearning.models.Submission;
+import org.example.onlinelearning.repositories.AssignmentRepository;
+import org.example.onlinelearning.repositories.SubmissionRepository;
+import org.example.onlinelearning.repositories.UserRepository;
+import org.example.onlinelearning.services.AutoGradingService;
+import org.example.onlinelearning.services.CourseProgressService;
+import org.example.onlinelearning.services.SimilarityService;
+import org.example.onlinelearning.services.SubmissionIngestService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SubmissionIngestServiceTest {
+    @Mock
+    private SubmissionRepository submissionRepository;
+
+    @Mock
+    private AssignmentRepository assignmentRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private AutoGradingService autoGradingService;
+
+    @Mock
+    private SimilarityService similarityService;
+
+    @Mock
+    private CourseProgressService courseProgressService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path tempDir;
+
+    private SubmissionIngestService service;
+    private Path journalPath;
+    private final AtomicLong ids = new AtomicLong(100);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        service = new SubmissionIngestService(submissionRepository, assignmentRepository, userRepository,
+                autoGradingService, similarityService, courseProgressService, transactionManager,
+                new SimpleMeterRegistry(), 10);
+        journalPath = tempDir.resolve("ingest.wal");
+        ReflectionTestUtils.setField(service, "journalPath", journalPath.toString());
+        ReflectionTestUtils.setField(service, "batchSize", 100);
+        ReflectionTestUtils.setField(service, "lingerMillis", 1L);
+        ReflectionTestUtils.setField(service, "maxContentBytes", 1024);
+
+        when(submissionRepository.saveAllAndFlush(anyList())).thenAnswer(invocation -> {
+            List<Submission> submissions = invocation.getArgument(0);
+            submissions.forEach(submission -> submission.setId(ids.incrementAndGet()));
+            return submissions;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(service, "stop");
+    }
+
+    @Test
+    void start_JournalWithAlreadyStoredReceipt_ReplaysOnlyMissingEntries() throws Exception {
+        Entry storedBeforeCrash = new Entry("receipt-1", 10L, 100L, 1_000L, "first");
+        Entry lostInCrash = new Entry("receipt-2", 20L, 200L, 2_000L, "second");
+        try (SubmissionJournal journal = new SubmissionJournal(journalPath)) {
+            journal.append(storedBeforeCrash);
+            journal.append(lostInCrash);
+        }
+        when(submissionRepository.findExistingReceiptIds(any())).thenReturn(List.of("receipt-1"));
+
+        ReflectionTestUtils.invokeMethod(service, "start");
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Submission>> saved = ArgumentCaptor.forClass(List.class);
+        verify(submissionRepository).saveAllAndFlush(saved.capture());
+        assertEquals(1, saved.getValue().size());
+        Submission replayed = saved.getValue().get(0);
+        assertEquals("receipt-2", replayed.getReceiptId());
+        assertEquals("second", replayed.getContent());
+        verify(autoGradingService).submissionCreated(replayed.getId(), 20L, "second");
+        // Всё дочитано — журнал очищен
+        assertEquals(0, Files.size(journalPath));
+    }
+
+    @Test
+    void accept_StoredByWriter_ReceiptStoredAndJournalTruncated() throws Exception {
+        ReflectionTestUtils.invokeMethod(service, "start");
+
+        SubmissionReceiptDTO receipt = service.accept(10L, 100L, "answer");
+        assertEquals(SubmissionReceiptDTO.QUEUED, receipt.getStatus());
+
+        verify(autoGradingService, timeout(5000)).submissionCreated(anyLong(), eq(10L), eq("answer"));
+        Submission stored = new Submission();
+        stored.setId(ids.get());
+        when(submissionRepository.findByReceiptId(receipt.getReceiptId())).thenReturn(Optional.of(stored));
+        assertEquals(SubmissionReceiptDTO.STORED, service.getReceipt(receipt.getReceiptId()).getStatus());
+
+        // Писатель очищает журнал, когда очередь пуста и все работы в базе
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (Files.size(journalPath) > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, Files.size(journalPath));
+    }
+
+    @Test
+    void accept_ContentOverLimit_RejectedWithoutJournaling() throws Exception {
+        ReflectionTestUtils.invokeMethod(service, "start");
+
+        assertThrows(PayloadTooLargeException.class, () -> service.accept(10L, 100L, "ж".repeat(600)));
+
+        assertEquals(0, Files.size(journalPath));
+        verify(autoGradingService, never()).submissionCreated(anyLong(), anyLong(), anyString());
+    }
+}
@@ -0,0 +1,142 @@
+package org.example.onlinelearning;
+
+import org.example.onlinelearning.ingest.SubmissionJournal;
+import org.example.onlinelearning.ingest.SubmissionJournal.Entry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubmissionJournalTest {
+    @TempDir
+    Path tempDir;
+
+    private final Entry first = new Entry("receipt-1", 10L, 100L, 1_000L, "Первый ответ");
+    private final Entry second = new Entry("receipt-2", 20L, 200L, 2_000L, "Second answer");
+
+    @Test
+    void readAll_AfterReopen_ReturnsAppendedEntriesInOrder() throws Exception {
+        Path path = tempDir.resolve("journal.wal");
+        try (SubmissionJournal journal = new SubmissionJournal(path)) {
+            journal.append(first);
+            journal.append(second);
+        }
+
+        try (SubmissionJournal journal = new SubmissionJournal(path)) {
+            assertEquals(List.of(first, second), journal.readAll());
+            assertEquals(Files.size(path), journal.size());
+        }
+    }
+
+    @Test
+    void readAll_TornTail_TruncatesToLastCompleteRecord() throws Exception {
+        Path path = tempDir.resolve("journal.wal");
+        long firstEnd;
+        try (SubmissionJournal journal = new SubmissionJournal(path)) {
+            journal.append(first);
+            firstEnd = journal.size();
+            journal.append(second);
+        }
+        // Падение посреди записи: от второй записи остался только кусок
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(path) - 3);
+        }
+
+        try (SubmissionJournal journal = new SubmissionJournal(path)) {
+            assertEquals(List.of(first), journal.readAll());
+            assertEquals(firstEnd, Files.size(path));
+
+            // Новые записи ложатся сразу за последней целой, а не после мусора
+            journal.append(second);
+            assertEquals(List.of(first, second), journal.readAll());
+        }
+    }
+
+    @Test
+    void readAll_CorruptedRecord_DropsItAndEverythingAfter() throws Exception {
+        Path path = tempDir.resolve("journal.wal");
+        long firstEnd;
+        try (SubmissionJournal journal = new SubmissionJournal(path)) {
+            journal.append(first);
+            firstEnd = journal.size();
+            journal.append(second);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.read(last, channel.size() - 1);
+            last.put(0, (byte) (last.get(0) ^ 1)).rewind();
+            channel.write(last, channel.size() - 1);
+        }
+
+        try (SubmissionJournal journal = new SubmissionJournal(path)) {
+            assertEquals(List.of(first), journal.readAll());
+            assertEquals(firstEnd, journal.size());
+        }
+    }
+
+    @Test
+    void append_RecordOverLimit_ThrowsWithoutWriting() throws Exception {
+        try (SubmissionJournal journal = new SubmissionJournal(tempDir.resolve("journal.wal"))) {
+            Entry huge = new Entry("receipt-3", 1L, 1L, 1L, "x".repeat(SubmissionJournal.MAX_RECORD_SIZE));
+
+            assertThrows(IllegalArgumentException.class, () -> journal.append(huge));
+            assertEquals(0, journal.size());
+        }
+    }
+
+    @Test
+    void truncateIfIdle_NotIdle_KeepsEntries() throws Exception {
+        try (SubmissionJournal journal = new SubmissionJournal(tempDir.resolve("journal.wal"))) {
+            journal.append(first);
+
+            assertFalse(journal.truncateIfIdle(() -> false));
+            assertEquals(List.of(first), journal.readAll());
+        }
+    }
+
+    @Test
+    void truncateIfIdle_AppendDuringIdleCheck_WaitsAndSurvivesTruncation() throws Exception {
+        try (SubmissionJournal journal = new SubmissionJournal(tempDir.resolve("journal.wal"))) {
+            journal.append(first);
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            Thread appender = new Thread(() -> {
+                try {
+                    journal.append(second);
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            });
+
+            // Приём новой работы начинается ровно между проверкой idle и очисткой
+            boolean truncated = journal.truncateIfIdle(() -> {
+                appender.start();
+                awaitBlocked(appender);
+                return true;
+            });
+            appender.join(TimeUnit.SECONDS.toMillis(5));
+
+            assertTrue(truncated);
+            assertNull(failure.get());
+            assertEquals(List.of(second), journal.readAll());
+        }
+    }
+
+    private static void awaitBlocked(Thread thread) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (thread.getState() != Thread.State.BLOCKED) {
+            if (System.nanoTime() > deadline) {
+                fail("Append did not wait for truncation");
+            }
+            Thread.onSpinWait();
+        }
+    }
+}